@@ -0,0 +1,139 @@
+package com.projects.wtg.config;
+
+import com.projects.wtg.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder que executa o BCrypt num pool de threads dedicado e limitado.
+ *
+ * Cada hash ou verificação custa dezenas de milissegundos de CPU; sem limite, uma rajada de logins ocupa
+ * todos os núcleos e as demais requisições ficam paradas. Aqui no máximo {@code threads} operações rodam ao
+ * mesmo tempo, até {@code queueCapacity} esperam na fila, e o excedente é recusado na hora com
+ * {@link PasswordHashingUnavailableException} (HTTP 503).
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejections;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry, int threads, int queueCapacity, long timeoutMillis) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("security.password.hashing").tag("operation", "encode")
+                .description("Tempo de execução do hash de senhas").register(meterRegistry);
+        this.matchesTimer = Timer.builder("security.password.hashing").tag("operation", "matches")
+                .description("Tempo de execução da verificação de senhas").register(meterRegistry);
+        this.rejections = Counter.builder("security.password.rejected")
+                .description("Operações de senha recusadas por saturação do executor").register(meterRegistry);
+        Gauge.builder("security.password.queue.size", executor, e -> e.getQueue().size())
+                .description("Operações de senha aguardando na fila").register(meterRegistry);
+        Gauge.builder("security.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Operações de senha em execução").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new PasswordHashingUnavailableException("Serviço temporariamente sobrecarregado. Tente novamente em instantes.");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new PasswordHashingUnavailableException("Serviço temporariamente sobrecarregado. Tente novamente em instantes.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException("Operação de senha interrompida.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Escolhe o maior custo do BCrypt (entre 4 e 16) cujo hash, medido nesta máquina,
+     * fica dentro do tempo alvo. O custo fica gravado em cada hash, então mudá-lo não invalida senhas antigas.
+     */
+    public static int calibrateBcryptStrength(long targetMillis) {
+        int strength = 4;
+        for (int candidate = 4; candidate <= 16; candidate++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(candidate);
+            encoder.encode("calibracao"); // aquecimento
+            long start = System.nanoTime();
+            encoder.encode("calibracao");
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (elapsedMillis > targetMillis) {
+                break;
+            }
+            strength = candidate;
+            // Cada ponto de custo dobra o tempo: se o próximo certamente passa do alvo, para aqui.
+            if (elapsedMillis * 2 > targetMillis) {
+                break;
+            }
+        }
+        logger.info("Custo do BCrypt calibrado para {} (alvo de {} ms).", strength, targetMillis);
+        return strength;
+    }
+}
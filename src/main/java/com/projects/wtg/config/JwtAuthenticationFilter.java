@@ -0,0 +1,54 @@
+package com.projects.wtg.config;
+
+import com.projects.wtg.service.JwtPrincipal;
+import com.projects.wtg.service.JwtService;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Autentica as requisições do modo stateless pelo header "Authorization: Bearer <access token>".
+ * Sem o header, ou com um token inválido ou expirado, a requisição segue sem autenticação e as regras do
+ * SecurityConfig decidem o acesso: endpoints públicos como /api/auth/refresh e /api/auth/login continuam
+ * acessíveis, e os protegidos respondem 401 pelo entry point.
+ * Registrado apenas na cadeia do Spring Security (não é um @Component, para não virar um filtro do servlet).
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtService jwtService;
+
+    public JwtAuthenticationFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            try {
+                JwtPrincipal principal = jwtService.parseAccessToken(header.substring(BEARER_PREFIX.length()).trim());
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.debug("Access token inválido ou expirado em {}: {}", request.getRequestURI(), e.getMessage());
+                SecurityContextHolder.clearContext();
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,29 @@
+package com.projects.wtg.config;
+
+import com.projects.wtg.service.PromotionRanker;
+import com.projects.wtg.service.WeightedPromotionRanker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ranking de relevância padrão das buscas de promoções. Só é registrado se a aplicação não declarar
+ * o seu próprio {@link PromotionRanker}.
+ */
+@Configuration
+public class PromotionRankingConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(PromotionRanker.class)
+    public PromotionRanker promotionRanker(@Value("${promotions.ranking.distance-weight:1.0}") double distanceWeight,
+                                           @Value("${promotions.ranking.distance-half-life-meters:2000}") double distanceHalfLifeMeters,
+                                           @Value("${promotions.ranking.highlight-weight:1.5}") double highlightWeight,
+                                           @Value("${promotions.ranking.recency-weight:0.5}") double recencyWeight,
+                                           @Value("${promotions.ranking.recency-half-life-hours:72}") double recencyHalfLifeHours,
+                                           @Value("${promotions.ranking.plan-weight:1.0}") double planWeight,
+                                           @Value("${promotions.ranking.comments-weight:0.3}") double commentsWeight) {
+        return new WeightedPromotionRanker(distanceWeight, distanceHalfLifeMeters, highlightWeight, recencyWeight,
+                recencyHalfLifeHours, planWeight, commentsWeight);
+    }
+}
@@ -0,0 +1,202 @@
+package com.projects.wtg.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.wtg.repository.UserIdentity;
+import com.projects.wtg.service.IdentityResolver;
+import com.projects.wtg.service.RateLimitStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Aplica as políticas do {@link RateLimitRules} antes de a requisição chegar ao controller,
+ * respondendo 429 com Retry-After quando algum bucket da rota está vazio.
+ * Os limites são verificados em ordem (IP antes de e-mail) e a verificação para no primeiro que recusar,
+ * então uma requisição recusada não consome nem cria os buckets seguintes.
+ *
+ * Fica na cadeia do Spring Security depois da autenticação, para poder limitar por usuário,
+ * e antes do DispatcherServlet, então uploads recusados não chegam a ter o multipart processado.
+ * O IP usado é o de request.getRemoteAddr(); atrás de proxy, configure server.forward-headers-strategy.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    // Corpos com Content-Length maior que isso não são lidos para extrair o e-mail; o limite por IP continua valendo.
+    // Corpos sem Content-Length maiores que isso são recusados com 413, sem serem lidos por inteiro.
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final RateLimitRules rules;
+    private final RateLimitStore store;
+    private final IdentityResolver identityResolver;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitRules rules, RateLimitStore store, IdentityResolver identityResolver, ObjectMapper objectMapper) {
+        this.rules = rules;
+        this.store = store;
+        this.identityResolver = identityResolver;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitRules.Route route = rules.isEnabled() ? rules.match(request) : null;
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest effectiveRequest = request;
+        String email = null;
+        if (route.needsEmail() && isJsonWithinLimit(request)) {
+            byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "O corpo da requisição excede " + MAX_BODY_BYTES / 1024 + " KB.");
+                return;
+            }
+            effectiveRequest = new CachedBodyRequest(request, body);
+            email = readEmail(body);
+        }
+
+        for (RateLimitRules.Limit limit : route.limits()) {
+            String key = switch (limit.keyType()) {
+                case IP -> request.getRemoteAddr();
+                case EMAIL -> email;
+                case USER -> currentUserKey();
+            };
+            if (key == null) {
+                continue;
+            }
+            long retryAfterMillis = store.tryConsume(key, limit.policy());
+            if (retryAfterMillis > 0) {
+                long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+                logger.debug("Rate limit {} atingido em {} {} (IP {}).", limit.policy().name(), request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                writeError(response, HttpStatus.TOO_MANY_REQUESTS, "Muitas requisições. Tente novamente em " + retryAfterSeconds + " segundos.");
+                return;
+            }
+        }
+        filterChain.doFilter(effectiveRequest, response);
+    }
+
+    private static boolean isJsonWithinLimit(HttpServletRequest request) {
+        return request.getContentLengthLong() <= MAX_BODY_BYTES
+                && request.getContentType() != null
+                && request.getContentType().toLowerCase(Locale.ROOT).startsWith(MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private String readEmail(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            // Corpo inválido: o controller responde com o erro; aqui só não há chave de e-mail.
+            return null;
+        }
+    }
+
+    private String currentUserKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return identityResolver.find(authentication)
+                .map(UserIdentity::userId)
+                .map(String::valueOf)
+                .orElse(null);
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", new Date());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * Requisição com o corpo já lido, para que o e-mail possa ser extraído aqui e o controller
+     * ainda consiga ler o mesmo corpo.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // O corpo já está todo em memória: os dados estão disponíveis e já terminaram.
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+}
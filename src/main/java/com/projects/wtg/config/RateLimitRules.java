@@ -0,0 +1,95 @@
+package com.projects.wtg.config;
+
+import com.projects.wtg.service.RateLimitPolicy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Políticas de rate limit por rota. Cada rota limita por uma ou mais chaves:
+ * IP de origem, e-mail informado no corpo JSON ou usuário autenticado.
+ */
+@Component
+public class RateLimitRules {
+
+    /**
+     * Tipos de chave, na ordem em que são verificados.
+     */
+    public enum KeyType {
+        IP, EMAIL, USER
+    }
+
+    public record Limit(KeyType keyType, RateLimitPolicy policy) {
+    }
+
+    /**
+     * Os limites ficam ordenados pelo tipo de chave: o limite por IP é verificado antes do limite por e-mail,
+     * então um IP bloqueado não cria chaves de e-mail novas.
+     */
+    public record Route(HttpMethod method, String pattern, List<Limit> limits) {
+
+        public Route {
+            limits = limits.stream().sorted(Comparator.comparing(Limit::keyType)).toList();
+        }
+
+        public boolean needsEmail() {
+            return limits.stream().anyMatch(limit -> limit.keyType() == KeyType.EMAIL);
+        }
+    }
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final boolean enabled;
+    private final List<Route> routes;
+
+    public RateLimitRules(@Value("${rate-limit.enabled:true}") boolean enabled,
+                          @Value("${rate-limit.login.ip:20/1m}") String loginIp,
+                          @Value("${rate-limit.login.email:5/1m}") String loginEmail,
+                          @Value("${rate-limit.google.ip:30/1m}") String googleIp,
+                          @Value("${rate-limit.forgot-password.ip:10/1h}") String forgotPasswordIp,
+                          @Value("${rate-limit.forgot-password.email:3/1h}") String forgotPasswordEmail,
+                          @Value("${rate-limit.reset-password.ip:10/1h}") String resetPasswordIp,
+                          @Value("${rate-limit.register.ip:20/1h}") String registerIp,
+                          @Value("${rate-limit.register.email:5/1h}") String registerEmail,
+                          @Value("${rate-limit.upload.user:10/1m}") String uploadUser) {
+        this.enabled = enabled;
+        this.routes = List.of(
+                new Route(HttpMethod.POST, "/api/auth/login", List.of(
+                        new Limit(KeyType.IP, RateLimitPolicy.parse("login-ip", loginIp)),
+                        new Limit(KeyType.EMAIL, RateLimitPolicy.parse("login-email", loginEmail)))),
+                new Route(HttpMethod.POST, "/api/auth/google", List.of(
+                        new Limit(KeyType.IP, RateLimitPolicy.parse("google-ip", googleIp)))),
+                new Route(HttpMethod.POST, "/api/auth/forgot-password", List.of(
+                        new Limit(KeyType.IP, RateLimitPolicy.parse("forgot-password-ip", forgotPasswordIp)),
+                        new Limit(KeyType.EMAIL, RateLimitPolicy.parse("forgot-password-email", forgotPasswordEmail)))),
+                new Route(HttpMethod.POST, "/api/auth/reset-password", List.of(
+                        new Limit(KeyType.IP, RateLimitPolicy.parse("reset-password-ip", resetPasswordIp)))),
+                new Route(HttpMethod.POST, "/api/users/register", List.of(
+                        new Limit(KeyType.IP, RateLimitPolicy.parse("register-ip", registerIp)),
+                        new Limit(KeyType.EMAIL, RateLimitPolicy.parse("register-email", registerEmail)))),
+                new Route(HttpMethod.POST, "/api/promotions/*/images", List.of(
+                        new Limit(KeyType.USER, RateLimitPolicy.parse("upload-user", uploadUser))))
+        );
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return A rota limitada que corresponde à requisição, ou null se a rota não tem limite.
+     */
+    public Route match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.method().matches(request.getMethod()) && pathMatcher.match(route.pattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,283 @@
+package com.projects.wtg.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executa os jobs em segundo plano, cada um com o seu próprio agendador, para que um job lento não atrase os outros.
+ *
+ * Os jobs são os beans {@link JobDefinition} (declarados em ScheduledJobsConfig), registrados depois que todos os
+ * singletons estão criados.
+ * Cada job tem uma thread de agendamento (virtual) e cada execução roda numa virtual thread própria, limitada pelo
+ * timeout do job (jobs.&lt;nome&gt;.timeout, por exemplo jobs.user-plan-transitions.timeout=30m). Uma execução que
+ * estoura o timeout é interrompida; enquanto ela não terminar, os disparos seguintes são pulados, então um job nunca
+ * roda sobreposto a si mesmo.
+ * Um job sob demanda ({@link JobSchedule#onDemand()}) não tem agenda: roda quando alguém chama {@link #trigger(String)},
+ * com o mesmo timeout, a mesma proteção contra sobreposição e as mesmas métricas.
+ *
+ * Métricas por job (tag job): scheduled.job.duration (tag outcome: success, failure, timeout), scheduled.job.rows
+ * (linhas processadas), scheduled.job.lag (atraso do início em relação ao horário previsto), scheduled.job.failures
+ * (tag reason) e scheduled.job.skipped.
+ */
+@Component
+public class ScheduledJobRunner implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledJobRunner.class);
+
+    /**
+     * Corpo de um job.
+     * @return A quantidade de linhas (ou itens) processadas na execução.
+     */
+    @FunctionalInterface
+    public interface JobTask {
+        long run() throws Exception;
+    }
+
+    /**
+     * Um job: nome (usado nas métricas e em {@link #trigger(String)}), agenda, timeout de cada execução e corpo.
+     */
+    public record JobDefinition(String name, JobSchedule schedule, Duration timeout, JobTask task) {
+    }
+
+    /**
+     * Agenda de um job: cron, intervalo fixo entre o fim de uma execução e o início da próxima, taxa fixa ou sob demanda.
+     */
+    public record JobSchedule(CronExpression cron, Duration fixedDelay, Duration fixedRate, Duration initialDelay) {
+
+        public static JobSchedule cron(String expression) {
+            return new JobSchedule(CronExpression.parse(expression), null, null, Duration.ZERO);
+        }
+
+        public static JobSchedule fixedDelay(long millis) {
+            return new JobSchedule(null, Duration.ofMillis(millis), null, Duration.ZERO);
+        }
+
+        public static JobSchedule fixedRate(long millis) {
+            return new JobSchedule(null, null, Duration.ofMillis(millis), Duration.ZERO);
+        }
+
+        public static JobSchedule onDemand() {
+            return new JobSchedule(null, null, null, null);
+        }
+
+        public JobSchedule withInitialDelay(long millis) {
+            return new JobSchedule(cron, fixedDelay, fixedRate, Duration.ofMillis(millis));
+        }
+
+        boolean isOnDemand() {
+            return cron == null && fixedDelay == null && fixedRate == null;
+        }
+
+        Instant first(Instant now) {
+            return cron != null ? nextCron(now) : now.plus(initialDelay);
+        }
+
+        /**
+         * Próximo disparo. Disparos perdidos enquanto o job rodava não são recuperados em rajada.
+         */
+        Instant next(Instant scheduledAt, Instant finishedAt) {
+            if (isOnDemand()) {
+                return null;
+            }
+            if (cron != null) {
+                return nextCron(finishedAt.isAfter(scheduledAt) ? finishedAt : scheduledAt);
+            }
+            if (fixedDelay != null) {
+                return finishedAt.plus(fixedDelay);
+            }
+            Instant next = scheduledAt.plus(fixedRate);
+            return next.isAfter(finishedAt) ? next : finishedAt;
+        }
+
+        private Instant nextCron(Instant after) {
+            ZonedDateTime next = cron.next(after.atZone(ZoneId.systemDefault()));
+            if (next == null) {
+                throw new IllegalStateException("Expressão cron sem próxima execução: " + cron);
+            }
+            return next.toInstant();
+        }
+    }
+
+    private final class Job {
+
+        private final String name;
+        private final JobSchedule schedule;
+        private final Duration timeout;
+        private final JobTask task;
+        private final ScheduledExecutorService timer;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicBoolean triggerPending = new AtomicBoolean();
+
+        private final Counter rows;
+        private final Timer lag;
+        private final Counter skipped;
+
+        private Job(String name, JobSchedule schedule, Duration timeout, JobTask task) {
+            this.name = name;
+            this.schedule = schedule;
+            this.timeout = timeout;
+            this.task = task;
+            this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("job-" + name).factory());
+            this.rows = Counter.builder("scheduled.job.rows").tag("job", name)
+                    .description("Linhas processadas pelo job").register(meterRegistry);
+            this.lag = Timer.builder("scheduled.job.lag").tag("job", name)
+                    .description("Atraso do início da execução em relação ao horário previsto").register(meterRegistry);
+            this.skipped = Counter.builder("scheduled.job.skipped").tag("job", name)
+                    .description("Disparos pulados porque a execução anterior ainda não terminou").register(meterRegistry);
+        }
+
+        private void scheduleAt(Instant at) {
+            long delay = Math.max(0, Duration.between(Instant.now(), at).toMillis());
+            timer.schedule(() -> fire(at), delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void trigger() {
+            // Pedidos feitos enquanto um disparo espera na fila são atendidos por ele; um pedido durante a execução
+            // gera mais um disparo, que roda quando ela terminar.
+            if (triggerPending.compareAndSet(false, true)) {
+                Instant requestedAt = Instant.now();
+                timer.execute(() -> {
+                    triggerPending.set(false);
+                    fire(requestedAt);
+                });
+            }
+        }
+
+        private void fire(Instant scheduledAt) {
+            Instant startedAt = Instant.now();
+            lag.record(startedAt.isAfter(scheduledAt) ? Duration.between(scheduledAt, startedAt) : Duration.ZERO);
+            if (running.compareAndSet(false, true)) {
+                execute();
+            } else {
+                skipped.increment();
+                logger.warn("Job {} pulado: a execução anterior ainda não terminou.", name);
+            }
+            Instant next = schedule.next(scheduledAt, Instant.now());
+            if (next != null && !timer.isShutdown()) {
+                scheduleAt(next);
+            }
+        }
+
+        private void execute() {
+            CompletableFuture<Long> result = new CompletableFuture<>();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            Thread worker = Thread.ofVirtual().name("job-" + name + "-run").start(() -> {
+                try {
+                    result.complete(task.run());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    running.set(false);
+                }
+            });
+
+            String outcome;
+            try {
+                rows.increment(result.get(timeout.toMillis(), TimeUnit.MILLISECONDS));
+                outcome = "success";
+            } catch (TimeoutException e) {
+                worker.interrupt();
+                outcome = "timeout";
+                logger.warn("Job {} interrompido após o timeout de {}.", name, timeout);
+            } catch (ExecutionException e) {
+                outcome = "failure";
+                logger.error("Erro na execução do job {}: {}", name, e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                worker.interrupt();
+                return;
+            }
+
+            sample.stop(Timer.builder("scheduled.job.duration").tag("job", name).tag("outcome", outcome)
+                    .description("Duração das execuções do job").register(meterRegistry));
+            if (!"success".equals(outcome)) {
+                Counter.builder("scheduled.job.failures").tag("job", name).tag("reason", outcome)
+                        .description("Execuções do job que falharam ou estouraram o timeout").register(meterRegistry).increment();
+            }
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<JobDefinition> definitions;
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+    private volatile boolean started;
+
+    public ScheduledJobRunner(MeterRegistry meterRegistry, ObjectProvider<JobDefinition> definitions) {
+        this.meterRegistry = meterRegistry;
+        this.definitions = definitions;
+    }
+
+    /**
+     * Registra os jobs declarados como beans. Os beans dos jobs dependem de serviços que dependem deste runner
+     * (o PlanTransitionTimer), por isso são buscados só depois que todos os singletons estão criados.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        definitions.orderedStream().forEach(this::register);
+    }
+
+    /**
+     * Registra um job. Os jobs começam a ser disparados quando a aplicação termina de subir.
+     */
+    public synchronized void register(JobDefinition definition) {
+        if (jobs.stream().anyMatch(job -> job.name.equals(definition.name()))) {
+            throw new IllegalStateException("Job registrado duas vezes: " + definition.name());
+        }
+        JobSchedule schedule = definition.schedule();
+        Job job = new Job(definition.name(), schedule, definition.timeout(), definition.task());
+        jobs.add(job);
+        if (started && !schedule.isOnDemand()) {
+            job.scheduleAt(schedule.first(Instant.now()));
+        }
+    }
+
+    /**
+     * Pede uma execução de um job sob demanda, sem esperar por ela.
+     * @throws IllegalArgumentException se não houver job registrado com o nome.
+     */
+    public void trigger(String name) {
+        jobs.stream()
+                .filter(job -> job.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Job não registrado: " + name))
+                .trigger();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        started = true;
+        Instant now = Instant.now();
+        jobs.stream()
+                .filter(job -> !job.schedule.isOnDemand())
+                .forEach(job -> job.scheduleAt(job.schedule.first(now)));
+    }
+
+    @Override
+    public void destroy() {
+        jobs.forEach(job -> job.timer.shutdownNow());
+    }
+}
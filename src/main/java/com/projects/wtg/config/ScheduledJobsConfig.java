@@ -0,0 +1,105 @@
+package com.projects.wtg.config;
+
+import com.projects.wtg.config.ScheduledJobRunner.JobDefinition;
+import com.projects.wtg.config.ScheduledJobRunner.JobSchedule;
+import com.projects.wtg.service.AccountVerificationCodeStore;
+import com.projects.wtg.service.GoogleTokenVerifier;
+import com.projects.wtg.service.InMemoryRateLimitStore;
+import com.projects.wtg.service.OutboxService;
+import com.projects.wtg.service.PlanTransitionTimer;
+import com.projects.wtg.service.PromotionSchedulerService;
+import com.projects.wtg.service.RefreshTokenStore;
+import com.projects.wtg.service.UserWriteBehindBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Todos os jobs em segundo plano da aplicação, um {@link JobDefinition} por job, com a agenda de cada um.
+ * O {@link ScheduledJobRunner} registra as definições depois que todos os beans estão criados.
+ * O timeout de cada job vem só de jobs.&lt;nome&gt;.timeout (application.properties).
+ */
+@Configuration
+public class ScheduledJobsConfig {
+
+    @Bean
+    public JobDefinition userPlanTransitionsJob(PromotionSchedulerService promotionSchedulerService,
+                                                @Value("${plans.scheduler.cron:0 0 * * * *}") String cron,
+                                                @Value("${jobs.user-plan-transitions.timeout}") Duration timeout) {
+        return new JobDefinition("user-plan-transitions", JobSchedule.cron(cron), timeout, promotionSchedulerService::manageUserPlans);
+    }
+
+    @Bean
+    public JobDefinition planTransitionWindowJob(PlanTransitionTimer planTransitionTimer,
+                                                 @Value("${plans.timer.reload-interval-ms:1800000}") long reloadMillis,
+                                                 @Value("${jobs.plan-transition-window.timeout}") Duration timeout) {
+        return new JobDefinition("plan-transition-window", JobSchedule.fixedDelay(reloadMillis).withInitialDelay(reloadMillis),
+                timeout, planTransitionTimer::loadWindow);
+    }
+
+    @Bean
+    public JobDefinition planTransitionDeadlineJob(PromotionSchedulerService promotionSchedulerService,
+                                                   @Value("${jobs.plan-transition-deadline.timeout}") Duration timeout) {
+        // Disparado pelo PlanTransitionTimer no instante de cada transição.
+        return new JobDefinition(PlanTransitionTimer.JOB_NAME, JobSchedule.onDemand(), timeout,
+                () -> promotionSchedulerService.transitionDuePlans(LocalDateTime.now()));
+    }
+
+    @Bean
+    public JobDefinition userUpdatesFlushJob(UserWriteBehindBuffer userWriteBehindBuffer,
+                                             @Value("${user-updates.flush-interval-ms:1000}") long flushMillis,
+                                             @Value("${jobs.user-updates-flush.timeout}") Duration timeout) {
+        return new JobDefinition("user-updates-flush", JobSchedule.fixedDelay(flushMillis), timeout, userWriteBehindBuffer::flush);
+    }
+
+    @Bean
+    public JobDefinition rateLimitCleanupJob(InMemoryRateLimitStore rateLimitStore,
+                                             @Value("${rate-limit.cleanup-interval-ms:60000}") long cleanupMillis,
+                                             @Value("${jobs.rate-limit-cleanup.timeout}") Duration timeout) {
+        return new JobDefinition("rate-limit-cleanup", JobSchedule.fixedDelay(cleanupMillis), timeout, rateLimitStore::evictIdle);
+    }
+
+    @Bean
+    public JobDefinition googleKeysRefreshJob(GoogleTokenVerifier googleTokenVerifier,
+                                              @Value("${google.id-token.refresh-check-interval-ms:60000}") long checkMillis,
+                                              @Value("${jobs.google-keys-refresh.timeout}") Duration timeout) {
+        return new JobDefinition("google-keys-refresh", JobSchedule.fixedDelay(checkMillis), timeout,
+                () -> googleTokenVerifier.refreshKeysIfExpiring() ? 1 : 0);
+    }
+
+    @Bean
+    public JobDefinition outboxPublishJob(OutboxService outboxService,
+                                          @Value("${outbox.poll-interval-ms:1000}") long pollMillis,
+                                          @Value("${jobs.outbox-publish.timeout}") Duration timeout) {
+        return new JobDefinition("outbox-publish", JobSchedule.fixedDelay(pollMillis), timeout, outboxService::publishPending);
+    }
+
+    @Bean
+    public JobDefinition outboxRetentionJob(OutboxService outboxService,
+                                            @Value("${outbox.retention-interval-ms:3600000}") long retentionMillis,
+                                            @Value("${jobs.outbox-retention.timeout}") Duration timeout) {
+        return new JobDefinition("outbox-retention", JobSchedule.fixedDelay(retentionMillis).withInitialDelay(retentionMillis),
+                timeout, outboxService::purgePublished);
+    }
+
+    @Bean
+    public JobDefinition refreshTokenCleanupJob(RefreshTokenStore refreshTokenStore,
+                                                @Value("${security.jwt.refresh-token-cleanup-interval-ms:3600000}") long cleanupMillis,
+                                                @Value("${jobs.refresh-token-cleanup.timeout}") Duration timeout) {
+        return new JobDefinition("refresh-token-cleanup", JobSchedule.fixedDelay(cleanupMillis).withInitialDelay(cleanupMillis),
+                timeout, refreshTokenStore::purgeExpired);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "verification-codes.store", havingValue = "database")
+    public JobDefinition verificationCodeCleanupJob(AccountVerificationCodeStore accountVerificationCodeStore,
+                                                    @Value("${verification-codes.cleanup-interval-ms:90000}") long cleanupMillis,
+                                                    @Value("${jobs.verification-code-cleanup.timeout}") Duration timeout) {
+        return new JobDefinition("verification-code-cleanup", JobSchedule.fixedRate(cleanupMillis), timeout,
+                accountVerificationCodeStore::clearExpiredCodes);
+    }
+}
@@ -1,22 +1,32 @@
 package com.projects.wtg.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.wtg.service.CustomOidcUserService;
+import com.projects.wtg.service.IdentityResolver;
 import com.projects.wtg.service.JpaUserDetailsService;
+import com.projects.wtg.service.JwtService;
+import com.projects.wtg.service.RateLimitStore;
 import com.projects.wtg.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import com.projects.wtg.service.CustomAuthenticationSuccessHandler;
 
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -32,11 +42,22 @@ public class SecurityConfig {
     private final JpaUserDetailsService jpaUserDetailsService;
     private final CustomAuthenticationSuccessHandler customAuthenticationSuccessHandler;
     private final UserService userService;
+    private final JwtService jwtService;
+    private final RateLimitRules rateLimitRules;
+    private final RateLimitStore rateLimitStore;
+    private final IdentityResolver identityResolver;
+    private final ObjectMapper objectMapper;
 
-    public SecurityConfig(CustomOidcUserService customOidcUserService, JpaUserDetailsService jpaUserDetailsService, CustomAuthenticationSuccessHandler customAuthenticationSuccessHandler, UserService userService) {
+    public SecurityConfig(CustomOidcUserService customOidcUserService, JpaUserDetailsService jpaUserDetailsService, CustomAuthenticationSuccessHandler customAuthenticationSuccessHandler, UserService userService, JwtService jwtService,
+                          RateLimitRules rateLimitRules, RateLimitStore rateLimitStore, IdentityResolver identityResolver, ObjectMapper objectMapper) {
         this.customOidcUserService = customOidcUserService;
         this.jpaUserDetailsService = jpaUserDetailsService;
         this.userService = userService;
+        this.jwtService = jwtService;
+        this.rateLimitRules = rateLimitRules;
+        this.rateLimitStore = rateLimitStore;
+        this.identityResolver = identityResolver;
+        this.objectMapper = objectMapper;
         logger.info("### SecurityConfig INICIALIZADA com os serviços OIDC e JPA ###");
         this.customAuthenticationSuccessHandler = customAuthenticationSuccessHandler;
     }
@@ -46,12 +67,46 @@ public class SecurityConfig {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    /**
+     * BCrypt executado num pool dedicado e limitado (ver BoundedPasswordEncoder).
+     * Com security.password.target-millis > 0, o custo é calibrado na inicialização para esse tempo alvo;
+     * caso contrário, usa security.password.bcrypt-strength.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${security.password.target-millis:0}") long targetMillis,
+                                           @Value("${security.password.threads:0}") int threads,
+                                           @Value("${security.password.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.password.timeout-ms:2000}") long timeoutMillis) {
+        int bcryptStrength = targetMillis > 0 ? BoundedPasswordEncoder.calibrateBcryptStrength(targetMillis) : strength;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), meterRegistry, poolSize, queueCapacity, timeoutMillis);
     }
 
+    /**
+     * Login OAuth2 (redirect para o Google e callback): precisa de sessão para guardar o state e a requisição
+     * de autorização entre o redirect e o callback, então fica numa cadeia própria que nunca é stateless.
+     */
     @Bean
+    @Order(1)
+    public SecurityFilterChain oauth2LoginFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/oauth2/**", "/login/oauth2/**")
+                .csrf(csrf -> csrf.disable())
+                .cors(withDefaults())
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+                .oauth2Login(oauth2 -> oauth2
+                        .userInfoEndpoint(userInfo -> userInfo
+                                .oidcUserService(this.customOidcUserService)
+                        )
+                        .successHandler(customAuthenticationSuccessHandler)
+                );
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
@@ -63,6 +118,7 @@ public class SecurityConfig {
                                 "/api/users/register",
                                 "/api/auth/login",
                                 "/api/auth/google",
+                                "/api/auth/refresh",
                                 "/api/auth/forgot-password",
                                 "/api/auth/reset-password",
                                 "/error"
@@ -73,17 +129,20 @@ public class SecurityConfig {
                         .requestMatchers("/api/promotions/**").authenticated() // Protege os endpoints de promoção
                         .anyRequest().authenticated()
                 )
-                .oauth2Login(oauth2 -> oauth2
-                        .userInfoEndpoint(userInfo -> userInfo
-                                .oidcUserService(this.customOidcUserService)
-                        )
-                        .successHandler(customAuthenticationSuccessHandler)
-                )
                 .exceptionHandling(exceptions -> exceptions
                         .authenticationEntryPoint((request, response, authException) ->
                                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Não autorizado")
                         )
-                );
+                )
+                // Depois da autenticação (para limitar por usuário) e antes de chegar aos controllers.
+                .addFilterAfter(new RateLimitFilter(rateLimitRules, rateLimitStore, identityResolver, objectMapper), AnonymousAuthenticationFilter.class);
+
+        if (jwtService.isEnabled()) {
+            // Modo stateless: cada requisição se autentica pelo access token, sem HttpSession no servidor.
+            http
+                    .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                    .addFilterBefore(new JwtAuthenticationFilter(jwtService), UsernamePasswordAuthenticationFilter.class);
+        }
 
         return http.build();
     }
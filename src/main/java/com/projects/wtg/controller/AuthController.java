@@ -1,19 +1,20 @@
 package com.projects.wtg.controller;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import com.projects.wtg.dto.*;
 import com.projects.wtg.model.Account;
-import com.projects.wtg.model.Promotion;
 import com.projects.wtg.model.User;
 import com.projects.wtg.repository.AccountRepository;
-import com.projects.wtg.service.PromotionService;
+import com.projects.wtg.repository.UserIdentity;
+import com.projects.wtg.service.GoogleTokenVerifier;
+import com.projects.wtg.service.JpaUserDetailsService;
+import com.projects.wtg.service.JwtPrincipal;
+import com.projects.wtg.service.JwtService;
+import com.projects.wtg.service.NearbyPromotionPrefetcher;
 import com.projects.wtg.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
-import org.springframework.beans.factory.annotation.Value;
+import io.jsonwebtoken.JwtException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,10 +25,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -36,23 +37,26 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final AccountRepository accountRepository;
     private final UserService userService;
-    private final PromotionService promotionService;
+    private final NearbyPromotionPrefetcher nearbyPromotionPrefetcher;
+    private final GoogleTokenVerifier googleTokenVerifier;
+    private final JwtService jwtService;
 
-    public AuthController(AuthenticationManager authenticationManager, AccountRepository accountRepository, UserService userService, PromotionService promotionService) {
+    public AuthController(AuthenticationManager authenticationManager, AccountRepository accountRepository, UserService userService, NearbyPromotionPrefetcher nearbyPromotionPrefetcher, GoogleTokenVerifier googleTokenVerifier, JwtService jwtService) {
         this.authenticationManager = authenticationManager;
         this.accountRepository = accountRepository;
         this.userService = userService;
-        this.promotionService = promotionService;
+        this.nearbyPromotionPrefetcher = nearbyPromotionPrefetcher;
+        this.googleTokenVerifier = googleTokenVerifier;
+        this.jwtService = jwtService;
     }
 
-    @Value("${spring.security.oauth2.client.registration.google.client-id}")
-    private String googleWebClientId;
-    @Value("${google.ios.client-id}")
-    private String googleIosClientId;
-
-
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequestDto loginRequest, HttpServletRequest request) {
+    public ResponseEntity<?> login(@RequestBody LoginRequestDto loginRequest,
+                                   @RequestParam(required = false) String view,
+                                   @RequestParam(required = false) String fields,
+                                   HttpServletRequest request) {
+        Set<String> selectedFields = UserView.selectFields(view, fields);
+        NearbyPromotionPrefetcher.Prefetch nearby = null;
         try {
             UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
                     loginRequest.getEmail(),
@@ -60,13 +64,13 @@ public class AuthController {
             );
 
             Authentication authentication = authenticationManager.authenticate(token);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            HttpSession session = request.getSession(true);
-            session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
-            userService.updateUserLocation(loginRequest.getEmail(), loginRequest.getLatitude(), loginRequest.getLongitude());
+            // Só depois da autenticação: a busca das promoções próximas corre em paralelo com a carga da conta.
+            nearby = nearbyPromotionPrefetcher.start(loginRequest.getLatitude(), loginRequest.getLongitude());
+            startSession(authentication, request);
 
-            Account account = accountRepository.findByEmailWithUserAndPlans(loginRequest.getEmail())
+            Account account = accountRepository.findByEmailWithUser(loginRequest.getEmail())
                     .orElseThrow(() -> new IllegalStateException("Usuário logado não encontrado no banco de dados."));
+            userService.recordLogin(account.getUser(), loginRequest.getLatitude(), loginRequest.getLongitude());
 
             String message;
             if (!account.getActive()) {
@@ -77,22 +81,22 @@ public class AuthController {
             }
 
             User user = account.getUser();
-            UserDto userDto = new UserDto(user);
+            UserDto userDto = new UserDto(user, selectedFields);
             boolean isRegistrationComplete = user.getCpf() != null && !user.getCpf().isEmpty() && user.getBirthday() != null;
 
-            List<PromotionDto> nearbyPromotions = null;
-            if (loginRequest.getLatitude() != null && loginRequest.getLongitude() != null) {
-                List<Promotion> promotions = promotionService.findWithFilters(null, loginRequest.getLatitude(), loginRequest.getLongitude(), 5.0);
-                nearbyPromotions = promotions.stream().map(PromotionDto::new).collect(Collectors.toList());
-            }
-
-            LoginResponseDto response = new LoginResponseDto("ok", message, 200, userDto, nearbyPromotions);
+            LoginResponseDto response = new LoginResponseDto("ok", message, 200, userDto, nearby.await());
+            response.setNearbyPromotionsOmitted(nearby.omitted());
             response.setIsRegistrationComplete(isRegistrationComplete);
+            addTokens(response, account);
 
             return ResponseEntity.ok(response);
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Collections.singletonMap("error", "E-mail ou senha inválidos."));
+        } finally {
+            if (nearby != null) {
+                nearby.cancel();
+            }
         }
     }
 
@@ -104,49 +108,102 @@ public class AuthController {
 
     @PostMapping("/reset-password")
     public ResponseEntity<?> resetPassword(@RequestBody ResetPasswordRequestDto resetPasswordRequestDto) {
-        userService.resetPassword(resetPasswordRequestDto.getToken(), resetPasswordRequestDto.getNewPassword());
+        userService.resetPassword(resetPasswordRequestDto.getEmail(), resetPasswordRequestDto.getToken(),
+                resetPasswordRequestDto.getNewPassword());
         return ResponseEntity.ok(Map.of("message", "Senha redefinida com sucesso."));
     }
 
     @PostMapping("/google")
-    public ResponseEntity<?> loginWithGoogle(@RequestBody GoogleLoginRequestDto loginRequest, HttpServletRequest request) {
+    public ResponseEntity<?> loginWithGoogle(@RequestBody GoogleLoginRequestDto loginRequest,
+                                             @RequestParam(required = false) String view,
+                                             @RequestParam(required = false) String fields,
+                                             HttpServletRequest request) {
+        Set<String> selectedFields = UserView.selectFields(view, fields);
+        NearbyPromotionPrefetcher.Prefetch nearby = null;
         try {
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(new NetHttpTransport(), new GsonFactory())
-                    .setAudience(Arrays.asList(googleWebClientId, googleIosClientId))
-                    .build();
-
-            GoogleIdToken idToken = verifier.verify(loginRequest.getToken());
+            GoogleIdToken idToken = googleTokenVerifier.verify(loginRequest.getToken());
             if (idToken == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Token do Google inválido."));
             }
+            nearby = nearbyPromotionPrefetcher.start(loginRequest.getLatitude(), loginRequest.getLongitude());
 
             GoogleIdToken.Payload payload = idToken.getPayload();
             String email = payload.getEmail();
 
             Account account = userService.processGoogleUser(payload, loginRequest.getLatitude(), loginRequest.getLongitude());
 
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(email, null, Collections.emptyList());
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            HttpSession session = request.getSession(true);
-            session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(email, null, JpaUserDetailsService.authoritiesFor(account.getUser().getUserType()));
+            startSession(authentication, request);
 
             User user = account.getUser();
-            UserDto userDto = new UserDto(user);
+            UserDto userDto = new UserDto(user, selectedFields);
             boolean isRegistrationComplete = user.getCpf() != null && !user.getCpf().isEmpty() && user.getBirthday() != null;
 
-            List<PromotionDto> nearbyPromotions = null;
-            if (loginRequest.getLatitude() != null && loginRequest.getLongitude() != null) {
-                List<Promotion> promotions = promotionService.findWithFilters(null, loginRequest.getLatitude(), loginRequest.getLongitude(), 5.0);
-                nearbyPromotions = promotions.stream().map(PromotionDto::new).collect(Collectors.toList());
-            }
-
-            LoginResponseDto response = new LoginResponseDto("ok", "logado com SSO", 200, userDto, nearbyPromotions);
+            LoginResponseDto response = new LoginResponseDto("ok", "logado com SSO", 200, userDto, nearby.await());
+            response.setNearbyPromotionsOmitted(nearby.omitted());
             response.setIsRegistrationComplete(isRegistrationComplete);
+            addTokens(response, account);
 
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Erro no login com Google: " + e.getMessage()));
+        } finally {
+            if (nearby != null) {
+                nearby.cancel();
+            }
+        }
+    }
+
+    /**
+     * Renova os tokens do modo stateless. O refresh token é de uso único: é trocado por um novo par de tokens,
+     * desde que a conta ainda exista e continue ativa. A reapresentação de um refresh token já usado revoga
+     * todos os refresh tokens do usuário (ver {@link JwtService#consumeRefreshToken(String)}).
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequestDto refreshRequest) {
+        if (!jwtService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Autenticação por token não habilitada."));
         }
+        try {
+            JwtPrincipal principal = jwtService.consumeRefreshToken(refreshRequest.getRefreshToken());
+            Optional<Account> account = accountRepository.findByEmailWithUser(principal.email());
+            if (account.isEmpty() || !Boolean.TRUE.equals(account.get().getActive())
+                    || !account.get().getUser().getId().equals(principal.userId())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Conta inativa ou inexistente."));
+            }
+            // Tipo e conta relidos do banco: o novo access token reflete alterações feitas desde o último login.
+            return ResponseEntity.ok(jwtService.issueTokens(identityOf(account.get())));
+        } catch (JwtException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Refresh token inválido ou expirado."));
+        }
+    }
+
+    /**
+     * No modo por sessão, guarda o contexto de segurança na HttpSession.
+     * No modo stateless nada é guardado no servidor: o cliente usa os tokens devolvidos no login.
+     */
+    private void startSession(Authentication authentication, HttpServletRequest request) {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (jwtService.isEnabled()) {
+            return;
+        }
+        HttpSession session = request.getSession(true);
+        session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
+    }
+
+    private void addTokens(LoginResponseDto response, Account account) {
+        if (!jwtService.isEnabled()) {
+            return;
+        }
+        TokenResponseDto tokens = jwtService.issueTokens(identityOf(account));
+        response.setAccessToken(tokens.getAccessToken());
+        response.setRefreshToken(tokens.getRefreshToken());
+        response.setExpiresIn(tokens.getExpiresIn());
+    }
+
+    private static UserIdentity identityOf(Account account) {
+        User user = account.getUser();
+        return new UserIdentity(user.getId(), account.getId(), account.getEmail(), user.getUserType(), account.getActive());
     }
-}
\ No newline at end of file
+}
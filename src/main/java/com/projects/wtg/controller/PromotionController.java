@@ -1,10 +1,11 @@
 package com.projects.wtg.controller;
 
 import com.projects.wtg.dto.*;
-import com.projects.wtg.model.Promotion;
+import com.projects.wtg.model.PromotionSort;
 import com.projects.wtg.model.PromotionType;
 import com.projects.wtg.model.User;
 import com.projects.wtg.service.PromotionService;
+import com.projects.wtg.service.PromotionStreamService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -14,30 +15,38 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException; // <<< --- CORREÇÃO APLICADA AQUI ---
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/promotions")
 public class PromotionController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final PromotionService promotionService;
+    private final PromotionStreamService promotionStreamService;
 
-    public PromotionController(PromotionService promotionService) {
+    public PromotionController(PromotionService promotionService, PromotionStreamService promotionStreamService) {
         this.promotionService = promotionService;
+        this.promotionStreamService = promotionStreamService;
     }
 
     @PostMapping
     public ResponseEntity<UserDto> createPromotion(
             @Valid @RequestBody CreatePromotionRequestDto promotionRequestDto,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
             Authentication authentication) {
 
+        Set<String> selectedFields = UserView.selectFields(view, fields);
         String userEmail = authentication.getName();
         User updatedUser = promotionService.createPromotion(promotionRequestDto, userEmail);
 
-        return new ResponseEntity<>(new UserDto(updatedUser), HttpStatus.CREATED);
+        return new ResponseEntity<>(new UserDto(updatedUser, selectedFields), HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}/edit")
@@ -59,22 +68,105 @@ public class PromotionController {
      * @param latitude Latitude do ponto de busca.
      * @param longitude Longitude do ponto de busca.
      * @param radius Raio da busca em quilômetros.
-     * @return Uma lista de promoções que correspondem aos filtros.
+     * @param nearest Quantidade máxima de promoções mais próximas; sem radius, busca as k mais próximas sem limite de distância.
+     * @param sort Ordenação: DISTANCE (padrão) ou RELEVANCE, que prioriza destaques, parceiros, recência e comentários
+     *             e retorna as {@code nearest} (padrão 50) mais relevantes.
+     * @return Uma lista de promoções ativas que correspondem aos filtros, ordenadas pela distância quando há localização.
      */
     @GetMapping("/filter")
     public ResponseEntity<List<PromotionDto>> getPromotionsByFilter(
             @RequestParam(required = false) PromotionType promotionType,
             @RequestParam(required = false) Double latitude,
             @RequestParam(required = false) Double longitude,
-            @RequestParam(required = false) Double radius) {
+            @RequestParam(required = false) Double radius,
+            @RequestParam(required = false) Integer nearest,
+            @RequestParam(required = false) PromotionSort sort) {
+
+        return ResponseEntity.ok(promotionService.findPromotionDtos(promotionType, latitude, longitude, radius, nearest, sort));
+    }
+
+    /**
+     * Mesma busca de /filter, escrita em NDJSON (uma promoção por linha) à medida que é lida do banco.
+     * Indicada para resultados grandes, pois não materializa a lista inteira em memória.
+     */
+    @GetMapping(value = "/filter/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPromotionsByFilter(
+            @RequestParam(required = false) PromotionType promotionType,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radius,
+            @RequestParam(required = false) Integer nearest) {
+
+        StreamingResponseBody body = promotionStreamService.streamWithFilters(promotionType, latitude, longitude, radius, nearest);
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Exporta todas as promoções (ativas ou não) em NDJSON. Apenas para administradores.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportPromotions(Authentication authentication) {
+        StreamingResponseBody body = promotionStreamService.exportAll(authentication.getName());
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .header("Content-Disposition", "attachment; filename=\"promotions.ndjson\"")
+                .body(body);
+    }
+
+    /**
+     * Endpoint para buscar as promoções da área retangular visível no mapa.
+     * @param minLat Latitude da borda sul.
+     * @param minLon Longitude da borda oeste.
+     * @param maxLat Latitude da borda norte.
+     * @param maxLon Longitude da borda leste (menor que minLon quando a área atravessa o antimeridiano).
+     * @param promotionType Tipo da promoção (opcional).
+     * @param limit Quantidade máxima de promoções (padrão 200, máximo 500).
+     * @return As promoções ativas da área, destaques primeiro e depois as mais recentes.
+     */
+    @GetMapping("/viewport")
+    public ResponseEntity<List<PromotionDto>> getPromotionsInViewport(
+            @RequestParam Double minLat,
+            @RequestParam Double minLon,
+            @RequestParam Double maxLat,
+            @RequestParam Double maxLon,
+            @RequestParam(required = false) PromotionType promotionType,
+            @RequestParam(required = false) Integer limit) {
+
+        return ResponseEntity.ok(promotionService.findInViewport(minLat, minLon, maxLat, maxLon, promotionType, limit));
+    }
+
+    /**
+     * Versão paginada por cursor da busca de promoções, para listas com rolagem infinita.
+     * @param size Tamanho da página (padrão 20, máximo 100).
+     * @param cursor Cursor opaco devolvido em nextCursor pela página anterior; omitido na primeira página.
+     * @return Uma página de promoções e o cursor da próxima página, se houver.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<PromotionPageDto> searchPromotions(
+            @RequestParam(required = false) PromotionType promotionType,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radius,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
 
-        List<Promotion> promotions = promotionService.findWithFilters(promotionType, latitude, longitude, radius);
+        return ResponseEntity.ok(promotionService.searchPage(promotionType, latitude, longitude, radius, size, cursor));
+    }
 
-        List<PromotionDto> dtos = promotions.stream()
-                .map(PromotionDto::new)
-                .collect(Collectors.toList());
+    /**
+     * Endpoint para o mapa: agrupa as promoções ativas da área visível em clusters calculados no servidor.
+     * @param bbox Área visível do mapa no formato "minLon,minLat,maxLon,maxLat".
+     * @param zoom Nível de zoom do mapa (0 a 22); quanto maior, menores as células.
+     * @param promotionType Tipo da promoção (opcional).
+     * @return Os clusters com quantidade, centróide, divisão por tipo e uma promoção representativa.
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<List<PromotionClusterDto>> getPromotionClusters(
+            @RequestParam String bbox,
+            @RequestParam Integer zoom,
+            @RequestParam(required = false) PromotionType promotionType) {
 
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(promotionService.findClusters(bbox, zoom, promotionType));
     }
 
     @PostMapping(value = "/{id}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
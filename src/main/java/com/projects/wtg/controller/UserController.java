@@ -1,9 +1,8 @@
 package com.projects.wtg.controller;
 
 import com.projects.wtg.dto.*;
-import com.projects.wtg.model.Promotion;
 import com.projects.wtg.model.User;
-import com.projects.wtg.service.PromotionService;
+import com.projects.wtg.service.NearbyPromotionPrefetcher;
 import com.projects.wtg.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,20 +11,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
     private final UserService userService;
-    private final PromotionService promotionService;
+    private final NearbyPromotionPrefetcher nearbyPromotionPrefetcher;
 
     @Autowired
-    public UserController(UserService userService, PromotionService promotionService) {
+    public UserController(UserService userService, NearbyPromotionPrefetcher nearbyPromotionPrefetcher) {
         this.userService = userService;
-        this.promotionService = promotionService;
+        this.nearbyPromotionPrefetcher = nearbyPromotionPrefetcher;
     }
 
     @PostMapping("/register")
@@ -53,17 +51,18 @@ public class UserController {
             // Aqui podemos chamar um método que aplica a validação @Valid programaticamente se necessário,
             // mas as validações dentro do `createUserWithAccount` já tratam disso.
             User createdUser = userService.createUserWithAccount(registrationDto, authentication);
-            UserDto userDto = new UserDto(createdUser);
+            // As promoções próximas (raio de 5km, o mesmo do login) só são buscadas depois que o cadastro deu certo,
+            // em paralelo com a montagem do DTO e limitadas pelo mesmo orçamento do login.
+            NearbyPromotionPrefetcher.Prefetch nearby = nearbyPromotionPrefetcher.start(registrationDto.getLatitude(), registrationDto.getLongitude());
+            try {
+                UserDto userDto = new UserDto(createdUser);
 
-            List<PromotionDto> nearbyPromotions = null;
-            if (registrationDto.getLatitude() != null && registrationDto.getLongitude() != null) {
-                // Assumindo um raio padrão de 5km se não for especificado
-                List<Promotion> promotions = promotionService.findWithFilters(null, registrationDto.getLatitude(), registrationDto.getLongitude(), 5.0);
-                nearbyPromotions = promotions.stream().map(PromotionDto::new).collect(Collectors.toList());
+                RegistrationResponseDto response = new RegistrationResponseDto(userDto, nearby.await());
+                response.setNearbyPromotionsOmitted(nearby.omitted());
+                return new ResponseEntity<>(response, HttpStatus.CREATED);
+            } finally {
+                nearby.cancel();
             }
-
-            RegistrationResponseDto response = new RegistrationResponseDto(userDto, nearbyPromotions);
-            return new ResponseEntity<>(response, HttpStatus.CREATED);
         }
 
         // Se nenhuma das condições for atendida, a requisição é inválida.
@@ -71,9 +70,13 @@ public class UserController {
     }
 
     @PutMapping("/update")
-    public ResponseEntity<UserDto> updateUser(@Valid @RequestBody UserUpdateDto userUpdateDto, Authentication authentication) {
+    public ResponseEntity<UserDto> updateUser(@Valid @RequestBody UserUpdateDto userUpdateDto,
+                                              @RequestParam(required = false) String view,
+                                              @RequestParam(required = false) String fields,
+                                              Authentication authentication) {
+        Set<String> selectedFields = UserView.selectFields(view, fields);
         String userEmail = authentication.getName();
         User updatedUser = userService.updateUser(userEmail, userUpdateDto);
-        return ResponseEntity.ok(new UserDto(updatedUser));
+        return ResponseEntity.ok(new UserDto(updatedUser, selectedFields));
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.projects.wtg.controller;
 
 import com.projects.wtg.dto.UserDto;
+import com.projects.wtg.dto.UserView;
 import com.projects.wtg.model.User;
 import com.projects.wtg.service.UserService;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +9,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import com.projects.wtg.dto.LoginResponseDto;
 
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/profile/me") // Endpoint base para o perfil do usuário logado
 public class UserProfileController {
@@ -20,11 +23,14 @@ public class UserProfileController {
 
     // Endpoint para desativar a própria conta
     @PatchMapping("/deactivate")
-    public ResponseEntity<LoginResponseDto> deactivateOwnAccount(Authentication authentication) {
+    public ResponseEntity<LoginResponseDto> deactivateOwnAccount(@RequestParam(required = false) String view,
+                                                                 @RequestParam(required = false) String fields,
+                                                                 Authentication authentication) {
+        Set<String> selectedFields = UserView.selectFields(view, fields);
         String userEmail = authentication.getName();
         User deactivatedUser = userService.deactivateUserByEmail(userEmail);
 
-        UserDto userDto = new UserDto(deactivatedUser);
+        UserDto userDto = new UserDto(deactivatedUser, selectedFields);
         // CORREÇÃO: Adicionado 'null' como último argumento para o novo construtor
         LoginResponseDto response = new LoginResponseDto("ok", "usuário desativado", 200, userDto, null);
 
@@ -40,9 +46,12 @@ public class UserProfileController {
     }
 
     @GetMapping("/user-info")
-    public ResponseEntity<UserDto> getUserInfo(Authentication authentication) {
+    public ResponseEntity<UserDto> getUserInfo(@RequestParam(required = false) String view,
+                                               @RequestParam(required = false) String fields,
+                                               Authentication authentication) {
+        Set<String> selectedFields = UserView.selectFields(view, fields);
         String userEmail = authentication.getName();
         User user = userService.findUserByEmail(userEmail);
-        return ResponseEntity.ok(new UserDto(user));
+        return ResponseEntity.ok(new UserDto(user, selectedFields));
     }
 }
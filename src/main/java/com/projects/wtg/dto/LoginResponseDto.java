@@ -16,7 +16,13 @@ public class LoginResponseDto {
     private int code;
     private UserDto user;
     private List<PromotionDto> nearbyPromotions;
+    // true quando as promoções próximas não ficaram prontas dentro do orçamento da resposta
+    private Boolean nearbyPromotionsOmitted;
     private Boolean isRegistrationComplete;
+    // Preenchidos apenas no modo stateless (security.jwt.enabled=true)
+    private String accessToken;
+    private String refreshToken;
+    private Long expiresIn;
 
     public LoginResponseDto(String status, String messagem, int code, UserDto user, List<PromotionDto> nearbyPromotions) {
         this.status = status;
@@ -1,5 +1,6 @@
 package com.projects.wtg.dto;
 
+import com.projects.wtg.model.CurrentPlan;
 import com.projects.wtg.model.PlanStatus;
 import com.projects.wtg.model.PlanType;
 import com.projects.wtg.model.UserPlan;
@@ -28,4 +29,16 @@ public class PlanDto {
         this.finishAt = userPlan.getFinishAt();
         this.paymentMade = userPlan.getPaymentMade();
     }
+
+    // Construtor a partir do snapshot do plano atual do usuário (sem carregar o histórico de planos)
+    public PlanDto(CurrentPlan currentPlan) {
+        if (currentPlan.getPlan() != null) {
+            this.planName = currentPlan.getPlan().getPlanName();
+            this.value = currentPlan.getPlan().getValue();
+        }
+        this.type = currentPlan.getType();
+        this.status = currentPlan.getStatus();
+        this.startedAt = currentPlan.getStartedAt();
+        this.finishAt = currentPlan.getFinishAt();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.projects.wtg.dto;
+
+import com.projects.wtg.model.PromotionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// Cluster de promoções exibido no mapa
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromotionClusterDto {
+    private long count;
+    private double latitude; // centróide das promoções do cluster
+    private double longitude;
+    private Map<PromotionType, Long> types; // quantidade de promoções por tipo
+    private Long representativeId; // promoção exibida quando o cluster é tocado
+}
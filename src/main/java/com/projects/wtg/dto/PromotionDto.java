@@ -1,5 +1,6 @@
 package com.projects.wtg.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.projects.wtg.model.Promotion;
 import com.projects.wtg.model.PromotionType;
 import lombok.Data;
@@ -21,6 +22,8 @@ public class PromotionDto {
     private PromotionType promotionType;
     private boolean highlight;
     private List<PromotionImageDto> images;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceInMeters;
 
     // Construtor para facilitar a conversão da entidade para DTO
     public PromotionDto(Promotion promotion) {
@@ -32,6 +35,7 @@ public class PromotionDto {
         this.promotionType = promotion.getPromotionType();
         this.highlight = promotion.isHighlight();
         this.highlight = promotion.isHighlight();
+        this.distanceInMeters = promotion.getDistance();
 
         if (promotion.getAddress() != null) {
             this.address = new AddressDto(promotion.getAddress());
@@ -42,4 +46,22 @@ public class PromotionDto {
                     .collect(Collectors.toList());
         }
     }
+
+    /**
+     * @return Uma cópia deste DTO com outra distância (as listas e o endereço são compartilhados).
+     */
+    public PromotionDto withDistanceInMeters(Double distanceInMeters) {
+        PromotionDto copy = new PromotionDto();
+        copy.title = title;
+        copy.description = description;
+        copy.free = free;
+        copy.obs = obs;
+        copy.active = active;
+        copy.address = address;
+        copy.promotionType = promotionType;
+        copy.highlight = highlight;
+        copy.images = images;
+        copy.distanceInMeters = distanceInMeters;
+        return copy;
+    }
 }
\ No newline at end of file
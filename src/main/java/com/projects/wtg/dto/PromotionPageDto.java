@@ -0,0 +1,18 @@
+package com.projects.wtg.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Página de uma busca de promoções paginada por cursor
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PromotionPageDto {
+    private List<PromotionDto> items;
+    private String nextCursor; // null quando não há mais páginas
+}
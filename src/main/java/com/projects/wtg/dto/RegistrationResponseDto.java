@@ -1,7 +1,6 @@
 package com.projects.wtg.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -9,9 +8,15 @@ import java.util.List;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class RegistrationResponseDto {
     private UserDto user;
     private List<PromotionDto> nearbyPromotions;
+    // true quando as promoções próximas não ficaram prontas dentro do orçamento da resposta
+    private Boolean nearbyPromotionsOmitted;
+
+    public RegistrationResponseDto(UserDto user, List<PromotionDto> nearbyPromotions) {
+        this.user = user;
+        this.nearbyPromotions = nearbyPromotions;
+    }
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import lombok.Data;
 
 @Data
 public class ResetPasswordRequestDto {
+    @NotBlank
+    private String email;
     @NotBlank
     private String token;
     @NotBlank
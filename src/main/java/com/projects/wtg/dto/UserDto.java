@@ -1,14 +1,34 @@
 package com.projects.wtg.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.projects.wtg.model.User;
 import com.projects.wtg.model.UserType;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class UserDto {
+
+    // Nomes aceitos no parâmetro fields= (ver UserView)
+    public static final String ID = "id";
+    public static final String FIRST_NAME = "firstName";
+    public static final String FULL_NAME = "fullName";
+    public static final String PHONE = "phone";
+    public static final String PICTURE_URL = "pictureUrl";
+    public static final String EMAIL = "email";
+    public static final String ACTIVE = "active";
+    public static final String ACTIVE_PLAN = "activePlan";
+    public static final String USER_TYPE = "userType";
+    public static final String PROMOTIONS = "promotions";
+    public static final String WALLET = "wallet";
+    public static final String CPF = "cpf";
+    public static final Set<String> ALL_FIELDS = Set.of(ID, FIRST_NAME, FULL_NAME, PHONE, PICTURE_URL, EMAIL, ACTIVE,
+            ACTIVE_PLAN, USER_TYPE, PROMOTIONS, WALLET, CPF);
+
     private Long id;
     private String firstName;
     private String fullName;
@@ -23,37 +43,58 @@ public class UserDto {
     private String cpf;
 
     public UserDto(User user) {
+        this(user, ALL_FIELDS);
+    }
+
+    /**
+     * Preenche apenas os campos pedidos. Associações de campos não pedidos (planos, promoções, carteira)
+     * não são acessadas, então continuam sem ser carregadas do banco.
+     */
+    public UserDto(User user, Set<String> fields) {
         this.id = user.getId();
-        this.firstName = user.getFirstName();
-        this.fullName = user.getFullName();
-        this.phone = user.getPhone();
-        this.pictureUrl = user.getPictureUrl();
-        this.userType = user.getUserType();
-        this.cpf = user.getCpf();
+        if (fields.contains(FIRST_NAME)) {
+            this.firstName = user.getFirstName();
+        }
+        if (fields.contains(FULL_NAME)) {
+            this.fullName = user.getFullName();
+        }
+        if (fields.contains(PHONE)) {
+            this.phone = user.getPhone();
+        }
+        if (fields.contains(PICTURE_URL)) {
+            this.pictureUrl = user.getPictureUrl();
+        }
+        if (fields.contains(USER_TYPE)) {
+            this.userType = user.getUserType();
+        }
+        if (fields.contains(CPF)) {
+            this.cpf = user.getCpf();
+        }
 
         if (user.getAccount() != null) {
-            this.email = user.getAccount().getEmail();
-            this.active = user.getAccount().getActive();
+            if (fields.contains(EMAIL)) {
+                this.email = user.getAccount().getEmail();
+            }
+            if (fields.contains(ACTIVE)) {
+                this.active = user.getAccount().getActive();
+            }
         }
 
-        if (user.getUserPlans() != null && !user.getUserPlans().isEmpty()) {
-            this.activePlan = user.getUserPlans().stream()
-                    .findFirst()
-                    .map(PlanDto::new)
-                    .orElse(null);
+        if (fields.contains(ACTIVE_PLAN) && user.getCurrentPlan() != null && user.getCurrentPlan().getType() != null) {
+            this.activePlan = new PlanDto(user.getCurrentPlan());
         }
 
-        if (user.getPromotions() != null) {
+        if (fields.contains(PROMOTIONS) && user.getPromotions() != null) {
             this.promotions = user.getPromotions().stream()
                     .map(PromotionDto::new)
                     .collect(Collectors.toList());
         }
 
-        if (user.getWallet() != null) {
+        if (fields.contains(WALLET) && user.getWallet() != null) {
             this.wallet = new WalletDto(user.getWallet());
         }
     }
     public String getCpf() {
         return cpf;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.projects.wtg.dto;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Perfis de visualização do {@link UserDto}. Cada perfil define quais campos são preenchidos e,
+ * por consequência, quais associações do usuário são carregadas do banco.
+ */
+public enum UserView {
+
+    /** Nome, foto e plano ativo: o que as telas iniciais do app usam. */
+    SUMMARY(UserDto.ID, UserDto.FIRST_NAME, UserDto.PICTURE_URL, UserDto.USER_TYPE, UserDto.ACTIVE_PLAN),
+
+    /** Dados cadastrais, sem promoções e carteira. */
+    PROFILE(UserDto.ID, UserDto.FIRST_NAME, UserDto.FULL_NAME, UserDto.PHONE, UserDto.PICTURE_URL, UserDto.EMAIL,
+            UserDto.ACTIVE, UserDto.ACTIVE_PLAN, UserDto.USER_TYPE, UserDto.CPF),
+
+    /** O agregado completo, como era devolvido antes dos perfis. */
+    FULL(UserDto.ALL_FIELDS.toArray(String[]::new));
+
+    private final Set<String> fields;
+
+    UserView(String... fields) {
+        this.fields = Set.of(fields);
+    }
+
+    public Set<String> fields() {
+        return fields;
+    }
+
+    /**
+     * Resolve os campos pedidos na requisição. {@code fields} (lista separada por vírgulas) tem prioridade
+     * sobre {@code view}; sem nenhum dos dois, usa o perfil completo. O id é sempre incluído.
+     * @throws IllegalArgumentException se o perfil ou algum campo não existir.
+     */
+    public static Set<String> selectFields(String view, String fields) {
+        if (fields != null && !fields.isBlank()) {
+            Set<String> selected = new LinkedHashSet<>();
+            selected.add(UserDto.ID);
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!UserDto.ALL_FIELDS.contains(name)) {
+                    throw new IllegalArgumentException("Campo desconhecido: '" + name + "'. Campos disponíveis: " + UserDto.ALL_FIELDS);
+                }
+                selected.add(name);
+            }
+            return selected;
+        }
+        if (view == null || view.isBlank()) {
+            return FULL.fields();
+        }
+        try {
+            return valueOf(view.trim().toUpperCase(Locale.ROOT)).fields();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Perfil desconhecido: '" + view + "'. Perfis disponíveis: " + Arrays.toString(values()));
+        }
+    }
+}
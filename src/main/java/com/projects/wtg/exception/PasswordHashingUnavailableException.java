@@ -0,0 +1,14 @@
+package com.projects.wtg.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE) // HTTP 503: o executor de senhas está saturado
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
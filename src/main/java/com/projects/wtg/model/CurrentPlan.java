@@ -0,0 +1,49 @@
+package com.projects.wtg.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot do plano atual do usuário, gravado nas colunas current_plan_* da tabela user.
+ * Permite ler o plano vigente sem carregar o histórico de UserPlan.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CurrentPlan {
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "current_plan_id")
+    private Plan plan;
+
+    @Column(name = "current_plan_type")
+    private PlanType type;
+
+    @Column(name = "current_plan_status")
+    private PlanStatus status;
+
+    @Column(name = "current_plan_started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "current_plan_finish_at")
+    private LocalDateTime finishAt;
+
+    public static CurrentPlan of(UserPlan userPlan) {
+        return new CurrentPlan(userPlan.getPlan(), userPlan.getPlan().getType(), userPlan.getPlanStatus(),
+                userPlan.getStartedAt(), userPlan.getFinishAt());
+    }
+
+    public boolean isActive() {
+        return status == PlanStatus.ACTIVE;
+    }
+
+    public boolean isOf(Plan other) {
+        return plan != null && other != null && plan.getId() != null && plan.getId().equals(other.getId());
+    }
+}
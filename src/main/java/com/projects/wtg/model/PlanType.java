@@ -1,9 +1,28 @@
 package com.projects.wtg.model;
 
+import java.time.LocalDateTime;
+
+/**
+ * Tipos de plano e a duração de cada um, contada a partir da ativação.
+ * É a única definição da duração: os serviços e a ativação em lote do agendador (UserPlanRepositoryCustomImpl)
+ * calculam o término por {@link #finishAt(LocalDateTime)}.
+ */
 public enum PlanType {
     WEEKLY,
     MONTHLY,
     ANUAL,
     FREE,
-    PARTNER
+    PARTNER;
+
+    /**
+     * @return O término de um plano deste tipo ativado em {@code startedAt}.
+     */
+    public LocalDateTime finishAt(LocalDateTime startedAt) {
+        return switch (this) {
+            case FREE -> startedAt.plusHours(24);
+            case WEEKLY -> startedAt.plusDays(7);
+            case MONTHLY -> startedAt.plusDays(30);
+            case ANUAL, PARTNER -> startedAt.plusYears(1);
+        };
+    }
 }
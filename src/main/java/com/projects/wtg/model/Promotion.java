@@ -17,6 +17,11 @@ import java.util.ArrayList; //
 @Entity
 @EntityListeners(AuditingEntityListener.class)
 @Table(name= "promotion", schema = "appwtg")
+@SqlResultSetMapping(
+        name = "PromotionWithDistance",
+        entities = @EntityResult(entityClass = Promotion.class),
+        columns = @ColumnResult(name = "distance", type = Double.class)
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,8 +56,12 @@ public class Promotion {
 
     private Boolean active;
 
+    // Distância (em metros) até o ponto de uma busca geográfica; não é persistida.
+    @Transient
+    private Double distance;
+
     // --- CORREÇÃO: ADICIONANDO O CAMPO QUE FALTAVA ---
-    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "address_id", referencedColumnName = "id")
     @JsonManagedReference
     private Address address; // Este é o campo que o mappedBy="address" estava procurando
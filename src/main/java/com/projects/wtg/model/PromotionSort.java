@@ -0,0 +1,6 @@
+package com.projects.wtg.model;
+
+public enum PromotionSort {
+    DISTANCE,
+    RELEVANCE
+}
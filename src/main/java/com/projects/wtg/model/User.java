@@ -73,6 +73,10 @@ public class User {
     @ToString.Exclude
     private Wallet wallet;
 
+    // Snapshot do plano vigente, mantido por refreshCurrentPlan a cada mudança em userPlans
+    @Embedded
+    private CurrentPlan currentPlan;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference("user-comments")
     @Builder.Default
@@ -89,6 +93,18 @@ public class User {
         this.account = account;
     }
 
+    /**
+     * Atualiza o snapshot do plano atual depois que um plano do usuário foi criado ou mudou de status.
+     * Um plano ativo sempre vira o atual; um plano agendado ou encerrado só substitui o atual
+     * se for o mesmo plano ou se o atual não estiver ativo.
+     */
+    public void refreshCurrentPlan(UserPlan userPlan) {
+        if (currentPlan == null || !currentPlan.isActive() || currentPlan.isOf(userPlan.getPlan())
+                || userPlan.getPlanStatus() == PlanStatus.ACTIVE) {
+            this.currentPlan = CurrentPlan.of(userPlan);
+        }
+    }
+
     public void addPromotion(Promotion promotion) {
         this.promotions.add(promotion);
         promotion.setUser(this);
@@ -2,9 +2,12 @@ package com.projects.wtg.repository;
 
 import com.projects.wtg.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
@@ -13,7 +16,17 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Optional<Account> findByToken(String token);
 
-    @Query("SELECT a FROM Account a JOIN FETCH a.user u LEFT JOIN FETCH u.userPlans WHERE a.email = :email")
-    Optional<Account> findByEmailWithUserAndPlans(@Param("email") String email);
+    boolean existsByRegistrationToken(String registrationToken);
+
+    // Conta e usuário numa única query; o plano atual vem do snapshot em User.currentPlan
+    @Query("SELECT a FROM Account a JOIN FETCH a.user u WHERE a.email = :email")
+    Optional<Account> findByEmailWithUser(@Param("email") String email);
+
+    // Limpa de uma vez os códigos de verificação vencidos (usado pelo AccountVerificationCodeStore)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Account a SET a.registrationToken = null, a.token = null, a.registrationTokenExpiration = null " +
+            "WHERE a.registrationTokenExpiration < :now AND (a.registrationToken IS NOT NULL OR a.token IS NOT NULL)")
+    int clearExpiredVerificationCodes(@Param("now") LocalDateTime now);
 
 }
@@ -0,0 +1,15 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.PlanType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dados mínimos de uma promoção usados pelo ranking de relevância, lidos sem carregar a entidade.
+ * @param distanceInMeters Distância até o ponto da busca, ou null em buscas sem localização.
+ * @param ownerPlanType Tipo do plano ativo do dono da promoção, ou null se não houver.
+ * @param commentCount Quantidade de comentários não bloqueados.
+ */
+public record PromotionCandidate(Long id, Double distanceInMeters, boolean highlight, LocalDateTime updatedAt,
+                                 PlanType ownerPlanType, long commentCount) {
+}
@@ -0,0 +1,20 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.PromotionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agregado de uma célula da grade de clusterização para um tipo de promoção.
+ * @param cellLongitude Longitude do canto da célula (saída do ST_SnapToGrid), usada como chave.
+ * @param cellLatitude Latitude do canto da célula, usada como chave.
+ * @param longitude Longitude média (circular) das promoções da célula, entre -180 e 180.
+ * @param latitude Latitude média das promoções da célula.
+ * @param representativeId Promoção mais relevante da célula (destaque primeiro, depois a mais recente).
+ * @param highlight Destaque da promoção representativa.
+ * @param updatedAt Última atualização da promoção representativa.
+ */
+public record PromotionClusterCell(double cellLongitude, double cellLatitude, PromotionType promotionType, long count,
+                                   double longitude, double latitude, Long representativeId,
+                                   boolean highlight, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,14 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.PromotionType;
+import org.locationtech.jts.geom.Point;
+
+/**
+ * Projeção enxuta de uma promoção, contendo apenas o necessário para o índice espacial em memória.
+ */
+public interface PromotionLocationView {
+    Long getId();
+    Point getPoint();
+    PromotionType getPromotionType();
+    Boolean getActive();
+}
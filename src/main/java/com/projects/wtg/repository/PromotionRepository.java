@@ -2,19 +2,21 @@ package com.projects.wtg.repository;
 
 import com.projects.wtg.model.Promotion;
 import com.projects.wtg.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.locationtech.jts.geom.Point;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Repositório para a entidade Promotion.
- * Estende JpaSpecificationExecutor para permitir a criação de queries dinâmicas.
+ * Estende JpaSpecificationExecutor para permitir a criação de queries dinâmicas
+ * e PromotionRepositoryCustom para as buscas geográficas em SQL nativo.
  */
-public interface PromotionRepository extends JpaRepository<Promotion, Long>, JpaSpecificationExecutor<Promotion> {
+public interface PromotionRepository extends JpaRepository<Promotion, Long>, JpaSpecificationExecutor<Promotion>, PromotionRepositoryCustom {
 
     /**
      * Busca uma promoção pelo seu ID e pelo usuário associado.
@@ -25,15 +27,29 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long>, Jpa
     Optional<Promotion> findByIdAndUser(Long id, User user);
 
     /**
-     * Busca os IDs das promoções que estão dentro de um raio específico a partir de uma localização.
-     * Esta é uma query nativa otimizada para performance, retornando apenas os IDs.
-     * @param userLocation A localização do usuário como um objeto Point.
-     * @param radiusInMeters O raio da busca em metros.
-     * @return Uma lista de IDs (Long) das promoções encontradas.
+     * Busca uma promoção pelo seu ID e pelo ID do usuário dono, sem precisar carregar o usuário.
+     * @param id O ID da promoção.
+     * @param userId O ID do usuário dono da promoção.
+     * @return um Optional contendo a promoção, se encontrada.
+     */
+    Optional<Promotion> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Carrega a localização, o tipo e o status de todas as promoções georreferenciadas.
+     * Usado para construir o índice espacial em memória na inicialização.
+     * @return Uma lista de projeções com id, ponto, tipo e flag de ativa.
+     */
+    @Query("SELECT p.id AS id, p.point AS point, p.promotionType AS promotionType, p.active AS active FROM Promotion p WHERE p.point IS NOT NULL")
+    List<PromotionLocationView> findAllLocations();
+
+    /**
+     * Plano de busca das listagens: carrega as promoções com endereço e imagens em uma única query,
+     * evitando uma consulta extra por promoção ao montar os DTOs.
+     * Se as promoções já estiverem no contexto de persistência, suas associações são inicializadas.
+     * @param ids Os IDs das promoções.
+     * @return As promoções encontradas, sem ordem definida.
      */
-    @Query(value = "SELECT p.id FROM appwtg.promotion p WHERE ST_DWithin(p.point, :userLocation, :radiusInMeters)", nativeQuery = true)
-    List<Long> findIdsWithinRadius(
-            @Param("userLocation") Point userLocation,
-            @Param("radiusInMeters") double radiusInMeters
-    );
+    @EntityGraph(attributePaths = {"address", "images"})
+    @Query("SELECT DISTINCT p FROM Promotion p WHERE p.id IN :ids")
+    List<Promotion> findWithAddressAndImagesByIdIn(@Param("ids") Collection<Long> ids);
 }
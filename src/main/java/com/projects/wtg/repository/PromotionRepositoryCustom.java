@@ -0,0 +1,106 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.Promotion;
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.service.BoundingBox;
+import org.locationtech.jts.geom.Point;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Consultas geográficas de promoções escritas em SQL nativo (PostGIS).
+ */
+public interface PromotionRepositoryCustom {
+
+    /**
+     * Busca as promoções ativas próximas a uma localização, em uma única ida ao banco.
+     * O filtro de raio, o filtro de tipo, o cálculo da distância e a ordenação (KNN, operador {@code <->})
+     * são feitos pela mesma query. A distância, em metros, é preenchida em {@link Promotion#getDistance()}.
+     * @param location A localização de referência.
+     * @param radiusInMeters O raio da busca em metros, ou null para não limitar por raio (modo "k mais próximas").
+     * @param promotionType O tipo da promoção, ou null para todos.
+     * @param limit Número máximo de resultados, ou null para não limitar.
+     * @return As promoções encontradas, da mais próxima para a mais distante.
+     */
+    List<Promotion> findNearby(Point location, Double radiusInMeters, PromotionType promotionType, Integer limit);
+
+    /**
+     * Página de uma busca geográfica paginada por keyset sobre (distância, id).
+     * A distância usada é a do operador KNN {@code <->} (esfera), a mesma da ordenação,
+     * para que o cursor seja estável entre as páginas.
+     * @param afterDistance Distância da última promoção da página anterior, ou null na primeira página.
+     * @param afterId Id da última promoção da página anterior, ou null na primeira página.
+     * @param limit Número máximo de promoções retornadas.
+     */
+    List<Promotion> findNearbyPage(Point location, Double radiusInMeters, PromotionType promotionType, Double afterDistance, Long afterId, int limit);
+
+    /**
+     * Página de uma busca sem localização, paginada por keyset sobre (updatedAt, id) em ordem decrescente.
+     * @param afterUpdatedAt updatedAt da última promoção da página anterior, ou null na primeira página.
+     * @param afterId Id da última promoção da página anterior, ou null na primeira página.
+     * @param limit Número máximo de promoções retornadas.
+     */
+    List<Promotion> findLatestPage(PromotionType promotionType, LocalDateTime afterUpdatedAt, Long afterId, int limit);
+
+    /**
+     * Agrega as promoções ativas de uma área do mapa em células de uma grade regular ({@code ST_SnapToGrid}).
+     * Retorna uma linha por célula e tipo de promoção, para que o serviço monte a divisão por tipo de cada cluster.
+     * @param boundingBox A área visível do mapa.
+     * @param cellSizeDegrees O tamanho da célula da grade, em graus.
+     * @param promotionType O tipo da promoção, ou null para todos.
+     */
+    List<PromotionClusterCell> findClusterCells(BoundingBox boundingBox, double cellSizeDegrees, PromotionType promotionType);
+
+    /**
+     * Busca as promoções ativas dentro de uma área retangular do mapa usando o operador {@code &&}
+     * (interseção de caixas), que pode ser respondido por uma varredura do índice GiST.
+     * @param boundingBox A área visível do mapa.
+     * @param promotionType O tipo da promoção, ou null para todos.
+     * @param limit Número máximo de resultados.
+     * @return As promoções encontradas, destaques primeiro e depois as mais recentes.
+     */
+    List<Promotion> findInBoundingBox(BoundingBox boundingBox, PromotionType promotionType, int limit);
+
+    /**
+     * Versão em stream de {@link #findNearby(Point, Double, PromotionType, Integer)}: as linhas são lidas do
+     * cursor JDBC em lotes de {@code fetchSize}, sem materializar o resultado inteiro.
+     * Deve ser consumida dentro de uma transação e fechada ao final.
+     */
+    Stream<Promotion> streamNearby(Point location, Double radiusInMeters, PromotionType promotionType, Integer limit, int fetchSize);
+
+    /**
+     * Stream das promoções ativas, opcionalmente filtradas pelo tipo, das mais recentes para as mais antigas.
+     * Deve ser consumida dentro de uma transação e fechada ao final.
+     */
+    Stream<Promotion> streamActive(PromotionType promotionType, int fetchSize);
+
+    /**
+     * Stream de todas as promoções (ativas ou não) em ordem de id, para exportação.
+     * Deve ser consumida dentro de uma transação e fechada ao final.
+     */
+    Stream<Promotion> streamAll(int fetchSize);
+
+    /**
+     * Stream das candidatas do ranking de relevância: apenas id, distância, destaque, updatedAt,
+     * tipo do plano ativo do dono e quantidade de comentários, sem carregar as entidades.
+     * Deve ser consumida dentro de uma transação e fechada ao final.
+     * @param location A localização de referência, ou null para buscar sem localização.
+     * @param radiusInMeters O raio da busca em metros, ou null para não limitar por raio.
+     */
+    Stream<PromotionCandidate> streamRankingCandidates(Point location, Double radiusInMeters, PromotionType promotionType, int fetchSize);
+
+    /**
+     * Desativa, em um único UPDATE, as promoções dos usuários que ainda estavam ativas ou liberadas pelo plano.
+     * @return As promoções alteradas, para a publicação dos eventos de alteração.
+     */
+    List<PromotionStatusChange> deactivatePromotionsOfUsers(Collection<Long> userIds, LocalDateTime now);
+
+    /**
+     * Libera, em um único UPDATE, a ativação das promoções dos usuários (allow_user_active_promotion = true).
+     * @return A quantidade de promoções alteradas.
+     */
+    int allowPromotionsOfUsers(Collection<Long> userIds, LocalDateTime now);
+}
@@ -0,0 +1,350 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.PlanType;
+import com.projects.wtg.model.Promotion;
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.service.BoundingBox;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class PromotionRepositoryCustomImpl implements PromotionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Promotion> findNearby(Point location, Double radiusInMeters, PromotionType promotionType, Integer limit) {
+        return withDistances(nearbyQuery(location, radiusInMeters, promotionType, limit).getResultList());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Promotion> streamNearby(Point location, Double radiusInMeters, PromotionType promotionType, Integer limit, int fetchSize) {
+        Stream<Object[]> rows = nearbyQuery(location, radiusInMeters, promotionType, limit)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+        return rows.map(PromotionRepositoryCustomImpl::withDistance);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Promotion> streamActive(PromotionType promotionType, int fetchSize) {
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT p.* FROM appwtg.promotion p ")
+                .append("WHERE p.active = true ");
+        if (promotionType != null) {
+            sql.append("AND p.promotion_type = :promotionType ");
+        }
+        sql.append("ORDER BY p.updated_at DESC, p.id DESC");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Promotion.class);
+        if (promotionType != null) {
+            query.setParameter("promotionType", promotionType.name().toLowerCase());
+        }
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Promotion> streamAll(int fetchSize) {
+        return entityManager.createNativeQuery("SELECT p.* FROM appwtg.promotion p ORDER BY p.id", Promotion.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<PromotionCandidate> streamRankingCandidates(Point location, Double radiusInMeters, PromotionType promotionType, int fetchSize) {
+        StringBuilder sql = new StringBuilder("SELECT p.id, ")
+                .append(location != null ? "ST_Distance(p.point, CAST(:location AS geography)), " : "CAST(NULL AS double precision), ")
+                .append("p.highlight, p.updated_at, ")
+                // Tipo do plano do dono lido do snapshot em "user", sem percorrer o histórico de user_plan
+                .append("CASE WHEN u.current_plan_status = 'active' THEN CAST(u.current_plan_type AS text) END, ")
+                .append("(SELECT COUNT(*) FROM appwtg.comments c WHERE c.promotion_id = p.id AND c.block_comment = false) ")
+                .append("FROM appwtg.promotion p ")
+                .append("LEFT JOIN appwtg.\"user\" u ON u.id = p.user_id ")
+                .append("WHERE p.active = true ");
+        if (location != null) {
+            sql.append("AND p.point IS NOT NULL ");
+        }
+        if (location != null && radiusInMeters != null) {
+            sql.append("AND ST_DWithin(p.point, CAST(:location AS geography), :radiusInMeters) ");
+        }
+        if (promotionType != null) {
+            sql.append("AND p.promotion_type = :promotionType ");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        if (location != null) {
+            query.setParameter("location", location);
+        }
+        if (location != null && radiusInMeters != null) {
+            query.setParameter("radiusInMeters", radiusInMeters);
+        }
+        if (promotionType != null) {
+            query.setParameter("promotionType", promotionType.name().toLowerCase());
+        }
+        Stream<Object[]> rows = query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize).getResultStream();
+        return rows.map(row -> new PromotionCandidate(
+                ((Number) row[0]).longValue(),
+                row[1] != null ? ((Number) row[1]).doubleValue() : null,
+                Boolean.TRUE.equals(row[2]),
+                toLocalDateTime(row[3]),
+                row[4] != null ? PlanType.valueOf(row[4].toString().toUpperCase()) : null,
+                ((Number) row[5]).longValue()));
+    }
+
+    private Query nearbyQuery(Point location, Double radiusInMeters, PromotionType promotionType, Integer limit) {
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT p.*, ST_Distance(p.point, CAST(:location AS geography)) AS distance ")
+                .append("FROM appwtg.promotion p ")
+                .append("WHERE p.active = true AND p.point IS NOT NULL ");
+        if (radiusInMeters != null) {
+            sql.append("AND ST_DWithin(p.point, CAST(:location AS geography), :radiusInMeters) ");
+        }
+        if (promotionType != null) {
+            sql.append("AND p.promotion_type = :promotionType ");
+        }
+        sql.append("ORDER BY p.point <-> CAST(:location AS geography), p.id");
+        if (limit != null) {
+            sql.append(" LIMIT :limit");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString(), "PromotionWithDistance")
+                .setParameter("location", location);
+        if (radiusInMeters != null) {
+            query.setParameter("radiusInMeters", radiusInMeters);
+        }
+        if (promotionType != null) {
+            query.setParameter("promotionType", promotionType.name().toLowerCase());
+        }
+        if (limit != null) {
+            query.setParameter("limit", limit);
+        }
+        return query;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Promotion> findNearbyPage(Point location, Double radiusInMeters, PromotionType promotionType, Double afterDistance, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT p.*, p.point <-> CAST(:location AS geography) AS distance ")
+                .append("FROM appwtg.promotion p ")
+                .append("WHERE p.active = true AND p.point IS NOT NULL ");
+        if (radiusInMeters != null) {
+            sql.append("AND ST_DWithin(p.point, CAST(:location AS geography), :radiusInMeters) ");
+        }
+        if (promotionType != null) {
+            sql.append("AND p.promotion_type = :promotionType ");
+        }
+        if (afterId != null) {
+            sql.append("AND (p.point <-> CAST(:location AS geography), p.id) > (:afterDistance, :afterId) ");
+        }
+        sql.append("ORDER BY p.point <-> CAST(:location AS geography), p.id LIMIT :limit");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), "PromotionWithDistance")
+                .setParameter("location", location)
+                .setParameter("limit", limit);
+        if (radiusInMeters != null) {
+            query.setParameter("radiusInMeters", radiusInMeters);
+        }
+        if (promotionType != null) {
+            query.setParameter("promotionType", promotionType.name().toLowerCase());
+        }
+        if (afterId != null) {
+            query.setParameter("afterDistance", afterDistance);
+            query.setParameter("afterId", afterId);
+        }
+        return withDistances(query.getResultList());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Promotion> findLatestPage(PromotionType promotionType, LocalDateTime afterUpdatedAt, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT p.* FROM appwtg.promotion p ")
+                .append("WHERE p.active = true ");
+        if (promotionType != null) {
+            sql.append("AND p.promotion_type = :promotionType ");
+        }
+        if (afterId != null) {
+            sql.append("AND (p.updated_at, p.id) < (:afterUpdatedAt, :afterId) ");
+        }
+        sql.append("ORDER BY p.updated_at DESC, p.id DESC LIMIT :limit");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Promotion.class)
+                .setParameter("limit", limit);
+        if (promotionType != null) {
+            query.setParameter("promotionType", promotionType.name().toLowerCase());
+        }
+        if (afterId != null) {
+            query.setParameter("afterUpdatedAt", afterUpdatedAt);
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PromotionClusterCell> findClusterCells(BoundingBox boundingBox, double cellSizeDegrees, PromotionType promotionType) {
+        // Uma linha por (célula, tipo): a promoção representativa (DISTINCT ON na ordem de relevância), com destaque
+        // e data dela, e os agregados da célula por janela. A longitude média é circular (atan2 das somas de seno
+        // e cosseno), para não cair no meio do mapa quando as promoções estão dos dois lados do antimeridiano.
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT DISTINCT ON (c.cell_lon, c.cell_lat, c.promotion_type) c.cell_lon, c.cell_lat, c.promotion_type, ")
+                .append("COUNT(*) OVER w, DEGREES(ATAN2(SUM(SIN(RADIANS(ST_X(c.geom)))) OVER w, SUM(COS(RADIANS(ST_X(c.geom)))) OVER w)), ")
+                .append("AVG(ST_Y(c.geom)) OVER w, c.id, c.highlight, c.updated_at ")
+                .append("FROM (SELECT p.id, p.promotion_type, p.highlight, p.updated_at, CAST(p.point AS geometry) AS geom, ")
+                .append("ST_X(ST_SnapToGrid(CAST(p.point AS geometry), :cellSize)) AS cell_lon, ")
+                .append("ST_Y(ST_SnapToGrid(CAST(p.point AS geometry), :cellSize)) AS cell_lat ")
+                .append("FROM appwtg.promotion p ")
+                .append("WHERE p.active = true AND p.point IS NOT NULL ");
+        appendBoundingBox(sql, boundingBox);
+        if (promotionType != null) {
+            sql.append("AND p.promotion_type = :promotionType ");
+        }
+        sql.append(") c WINDOW w AS (PARTITION BY c.cell_lon, c.cell_lat, c.promotion_type) ")
+                .append("ORDER BY c.cell_lon, c.cell_lat, c.promotion_type, c.highlight DESC, c.updated_at DESC, c.id DESC");
+
+        Query query = entityManager.createNativeQuery(sql.toString())
+                .setParameter("cellSize", cellSizeDegrees);
+        setBoundingBox(query, boundingBox);
+        if (promotionType != null) {
+            query.setParameter("promotionType", promotionType.name().toLowerCase());
+        }
+
+        List<Object[]> rows = query.getResultList();
+        List<PromotionClusterCell> cells = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            cells.add(new PromotionClusterCell(
+                    ((Number) row[0]).doubleValue(),
+                    ((Number) row[1]).doubleValue(),
+                    row[2] != null ? PromotionType.valueOf(row[2].toString().toUpperCase()) : null,
+                    ((Number) row[3]).longValue(),
+                    ((Number) row[4]).doubleValue(),
+                    ((Number) row[5]).doubleValue(),
+                    ((Number) row[6]).longValue(),
+                    Boolean.TRUE.equals(row[7]),
+                    toLocalDateTime(row[8])));
+        }
+        return cells;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Promotion> findInBoundingBox(BoundingBox boundingBox, PromotionType promotionType, int limit) {
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT p.* FROM appwtg.promotion p ")
+                .append("WHERE p.active = true AND p.point IS NOT NULL ");
+        appendBoundingBox(sql, boundingBox);
+        if (promotionType != null) {
+            sql.append("AND p.promotion_type = :promotionType ");
+        }
+        sql.append("ORDER BY p.highlight DESC, p.updated_at DESC, p.id DESC LIMIT :limit");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Promotion.class)
+                .setParameter("limit", limit);
+        setBoundingBox(query, boundingBox);
+        if (promotionType != null) {
+            query.setParameter("promotionType", promotionType.name().toLowerCase());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Filtro pela área do mapa sobre o ponto convertido para geometry (lon/lat planos),
+     * dividido em dois retângulos quando a área atravessa o antimeridiano.
+     */
+    private void appendBoundingBox(StringBuilder sql, BoundingBox boundingBox) {
+        if (boundingBox.crossesAntimeridian()) {
+            sql.append("AND (CAST(p.point AS geometry) && ST_MakeEnvelope(:minLon, :minLat, 180, :maxLat, 4326) ")
+                    .append("OR CAST(p.point AS geometry) && ST_MakeEnvelope(-180, :minLat, :maxLon, :maxLat, 4326)) ");
+        } else {
+            sql.append("AND CAST(p.point AS geometry) && ST_MakeEnvelope(:minLon, :minLat, :maxLon, :maxLat, 4326) ");
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PromotionStatusChange> deactivatePromotionsOfUsers(Collection<Long> userIds, LocalDateTime now) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "UPDATE appwtg.promotion p SET active = false, allow_user_active_promotion = false, updated_at = :now " +
+                        "WHERE p.user_id IN (:userIds) AND (p.active = true OR p.allow_user_active_promotion IS DISTINCT FROM false) " +
+                        "RETURNING p.id, ST_X(CAST(p.point AS geometry)), ST_Y(CAST(p.point AS geometry)), CAST(p.promotion_type AS text), p.active")
+                .setParameter("now", now)
+                .setParameter("userIds", userIds)
+                .getResultList();
+
+        List<PromotionStatusChange> changes = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Point point = row[1] != null ? geometryFactory.createPoint(new Coordinate((Double) row[1], (Double) row[2])) : null;
+            PromotionType promotionType = row[3] != null ? PromotionType.valueOf(((String) row[3]).toUpperCase()) : null;
+            changes.add(new PromotionStatusChange(((Number) row[0]).longValue(), point, promotionType, (Boolean) row[4]));
+        }
+        return changes;
+    }
+
+    @Override
+    public int allowPromotionsOfUsers(Collection<Long> userIds, LocalDateTime now) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createNativeQuery(
+                        "UPDATE appwtg.promotion SET allow_user_active_promotion = true, updated_at = :now " +
+                        "WHERE user_id IN (:userIds) AND allow_user_active_promotion IS DISTINCT FROM true")
+                .setParameter("now", now)
+                .setParameter("userIds", userIds)
+                .executeUpdate();
+    }
+
+    private void setBoundingBox(Query query, BoundingBox boundingBox) {
+        query.setParameter("minLon", boundingBox.minLongitude())
+                .setParameter("minLat", boundingBox.minLatitude())
+                .setParameter("maxLon", boundingBox.maxLongitude())
+                .setParameter("maxLat", boundingBox.maxLatitude());
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private List<Promotion> withDistances(List<Object[]> rows) {
+        List<Promotion> promotions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            promotions.add(withDistance(row));
+        }
+        return promotions;
+    }
+
+    private static Promotion withDistance(Object[] row) {
+        Promotion promotion = (Promotion) row[0];
+        promotion.setDistance((Double) row[1]);
+        return promotion;
+    }
+}
@@ -4,13 +4,13 @@ import com.projects.wtg.model.Promotion;
 import com.projects.wtg.model.PromotionType;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
-import java.util.List;
 
 public class PromotionSpecifications {
 
-    public static Specification<Promotion> createSpecification(PromotionType promotionType, List<Long> idsInRadius) {
+    public static Specification<Promotion> createSpecification(PromotionType promotionType) {
         return (root, query, criteriaBuilder) -> {
-            Predicate predicate = criteriaBuilder.conjunction();
+            // Apenas promoções ativas são retornadas nas buscas
+            Predicate predicate = criteriaBuilder.isTrue(root.get("active"));
 
             // Adiciona filtro por tipo, se fornecido
             if (promotionType != null) {
@@ -18,11 +18,6 @@ public class PromotionSpecifications {
                         criteriaBuilder.equal(root.get("promotionType"), promotionType));
             }
 
-            // Adiciona filtro por IDs de geolocalização, se fornecidos
-            if (idsInRadius != null && !idsInRadius.isEmpty()) {
-                predicate = criteriaBuilder.and(predicate, root.get("id").in(idsInRadius));
-            }
-
             return predicate;
         };
     }
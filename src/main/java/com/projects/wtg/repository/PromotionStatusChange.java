@@ -0,0 +1,10 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.PromotionType;
+import org.locationtech.jts.geom.Point;
+
+/**
+ * Promoção alterada por uma atualização em lote, com os dados necessários para publicar o PromotionChangedEvent.
+ */
+public record PromotionStatusChange(Long id, Point point, PromotionType promotionType, Boolean active) {
+}
@@ -0,0 +1,14 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.UserType;
+
+/**
+ * Identidade compacta do usuário autenticado: o suficiente para checar permissões
+ * e montar referências por id, sem carregar as entidades User e Account.
+ */
+public record UserIdentity(Long userId, Long accountId, String email, UserType userType, Boolean active) {
+
+    public boolean isAdmin() {
+        return userType == UserType.ADMIN;
+    }
+}
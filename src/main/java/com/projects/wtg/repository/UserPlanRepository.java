@@ -6,10 +6,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface UserPlanRepository extends JpaRepository<UserPlan, UserPlanId> {
+public interface UserPlanRepository extends JpaRepository<UserPlan, UserPlanId>, UserPlanRepositoryCustom {
 
     // --- CORREÇÃO: Alterado 'ACTIVE' para 'active' e 'PAUSED' para 'paused' ---
     @Query("SELECT up FROM UserPlan up WHERE up.user = :user AND (up.planStatus = 'active' OR (up.planStatus = 'paused' AND up.startedAt >= :now))")
@@ -19,6 +20,9 @@ public interface UserPlanRepository extends JpaRepository<UserPlan, UserPlanId>
     // Procura um plano para um usuário específico com um status específico.
     Optional<UserPlan> findByUserAndPlanStatus(User user, PlanStatus planStatus);
 
+    // Verifica se o usuário já tem o plano em um dos status, sem carregar o histórico de planos
+    boolean existsByUserAndPlan_IdAndPlanStatusIn(User user, Long planId, Collection<PlanStatus> statuses);
+
     // Métodos antigos mantidos para outras partes do sistema
     Optional<UserPlan> findTopByUserOrderByCreatedAtDesc(User user);
 
@@ -28,13 +32,11 @@ public interface UserPlanRepository extends JpaRepository<UserPlan, UserPlanId>
     @Query("SELECT up FROM UserPlan up JOIN FETCH up.plan WHERE up.user = :user AND up.planStatus = :status")
     Optional<UserPlan> findActivePlanByUser(@Param("user") User user, @Param("status") PlanStatus status);
 
-    // --- NOVOS MÉTODOS PARA O SCHEDULER ---
-
-    // Busca todos os planos que estão ativos mas cuja data de término já passou.
-    @Query("SELECT up FROM UserPlan up JOIN FETCH up.user u LEFT JOIN FETCH u.promotions WHERE up.planStatus = com.projects.wtg.model.PlanStatus.ACTIVE AND up.finishAt <= :now")
-    List<UserPlan> findExpiredActivePlans(@Param("now") LocalDateTime now);
+    // Instantes de término dos planos ativos numa janela (PlanTransitionTimer), pelo índice parcial de status = active
+    @Query("SELECT DISTINCT up.finishAt FROM UserPlan up WHERE up.planStatus = com.projects.wtg.model.PlanStatus.ACTIVE AND up.finishAt > :from AND up.finishAt <= :to")
+    List<LocalDateTime> findActiveFinishTimesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-    // Busca todos os planos que estão prontos para ativar e cuja data de início já chegou.
-    @Query("SELECT up FROM UserPlan up JOIN FETCH up.user u WHERE up.planStatus = com.projects.wtg.model.PlanStatus.READYTOACTIVE AND up.startedAt <= :now")
-    List<UserPlan> findReadyToActivatePlans(@Param("now") LocalDateTime now);
+    // Instantes de início dos planos prontos para ativar numa janela (PlanTransitionTimer)
+    @Query("SELECT DISTINCT up.startedAt FROM UserPlan up WHERE up.planStatus = com.projects.wtg.model.PlanStatus.READYTOACTIVE AND up.startedAt > :from AND up.startedAt <= :to")
+    List<LocalDateTime> findReadyStartTimesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
\ No newline at end of file
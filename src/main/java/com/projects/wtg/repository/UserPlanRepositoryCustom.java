@@ -0,0 +1,28 @@
+package com.projects.wtg.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Atualizações em lote dos planos de usuário feitas pelo agendador, em SQL nativo.
+ * Cada chamada processa no máximo {@code limit} planos e deve rodar numa transação própria e curta.
+ * Apenas os planos da partição informada são processados ({@code user_id % partitions = partition});
+ * sem particionamento, use partitions = 1 e partition = 0.
+ */
+public interface UserPlanRepositoryCustom {
+
+    /**
+     * Inativa até {@code limit} planos ativos vencidos (finish_at <= now) e atualiza o snapshot do plano atual
+     * dos donos, nas mesmas regras de {@link com.projects.wtg.model.User#refreshCurrentPlan}.
+     * @return Os planos inativados.
+     */
+    List<UserPlanTransition> expireActivePlans(LocalDateTime now, int limit, int partitions, int partition);
+
+    /**
+     * Para até {@code limit} usuários sem plano ativo, processa o plano pronto para ativar mais antigo
+     * ({@code DISTINCT ON (user_id)} ordenado por started_at): ele é ativado, com início em {@code now} e término
+     * conforme o tipo do plano, ou inativado, se o seu término já passou. O snapshot do plano atual é atualizado.
+     * @return Os planos processados, com o status resultante.
+     */
+    List<UserPlanTransition> activateReadyPlans(LocalDateTime now, int limit, int partitions, int partition);
+}
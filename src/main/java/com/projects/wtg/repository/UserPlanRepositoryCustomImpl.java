@@ -0,0 +1,120 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.PlanStatus;
+import com.projects.wtg.model.PlanType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public class UserPlanRepositoryCustomImpl implements UserPlanRepositoryCustom {
+
+    // O snapshot só é trocado se estiver vazio, não estiver ativo ou for do próprio plano (ver User.refreshCurrentPlan).
+    private static final String EXPIRE_ACTIVE_PLANS = """
+            WITH expired AS (
+                SELECT up.user_id, up.plan_id FROM appwtg.user_plan up
+                WHERE up.status = 'active' AND up.finish_at <= :now AND mod(up.user_id, :partitions) = :partition
+                ORDER BY up.finish_at, up.user_id, up.plan_id
+                LIMIT :limit
+            ), updated AS (
+                UPDATE appwtg.user_plan up SET status = 'inactive', updated_at = :now
+                FROM expired e
+                WHERE up.user_id = e.user_id AND up.plan_id = e.plan_id AND up.status = 'active'
+                RETURNING up.user_id, up.plan_id, up.status, up.started_at, up.finish_at
+            ), snapshot AS (
+                UPDATE appwtg."user" u SET current_plan_id = x.plan_id, current_plan_type = pl.type, current_plan_status = x.status,
+                    current_plan_started_at = x.started_at, current_plan_finish_at = x.finish_at
+                FROM updated x JOIN appwtg.plan pl ON pl.id = x.plan_id
+                WHERE u.id = x.user_id
+                  AND (u.current_plan_id IS NULL OR u.current_plan_id = x.plan_id OR u.current_plan_status IS DISTINCT FROM 'active')
+            )
+            SELECT user_id, plan_id, CAST(status AS text) FROM updated
+            """;
+
+    // Um plano por usuário sem plano ativo: o pronto para ativar mais antigo. Um plano ativado sempre vira o snapshot,
+    // e um inativado também, porque o usuário não tem plano ativo. O término de cada tipo vem de PlanType.finishAt,
+    // calculado em Java para o :now da execução e passado como parâmetro (um ramo do CASE por tipo).
+    private static final String ACTIVATE_READY_PLANS = """
+            WITH candidates AS (
+                SELECT DISTINCT ON (up.user_id) up.user_id, up.plan_id, up.finish_at, pl.type,
+                    (up.finish_at IS NOT NULL AND up.finish_at < :now) AS already_finished
+                FROM appwtg.user_plan up JOIN appwtg.plan pl ON pl.id = up.plan_id
+                WHERE up.status = 'readytoactive' AND up.started_at <= :now AND mod(up.user_id, :partitions) = :partition
+                  AND NOT EXISTS (SELECT 1 FROM appwtg.user_plan a WHERE a.user_id = up.user_id AND a.status = 'active')
+                ORDER BY up.user_id, up.started_at, up.plan_id
+                LIMIT :limit
+            ), updated AS (
+                UPDATE appwtg.user_plan up SET
+                    status = CAST(CASE WHEN c.already_finished THEN 'inactive' ELSE 'active' END AS appwtg.plan_status),
+                    started_at = CASE WHEN c.already_finished THEN up.started_at ELSE CAST(:now AS timestamp) END,
+                    finish_at = CASE
+                        WHEN c.already_finished THEN up.finish_at
+                        %s
+                        END,
+                    updated_at = :now
+                FROM candidates c
+                WHERE up.user_id = c.user_id AND up.plan_id = c.plan_id AND up.status = 'readytoactive'
+                RETURNING up.user_id, up.plan_id, up.status, up.started_at, up.finish_at, c.type
+            ), snapshot AS (
+                UPDATE appwtg."user" u SET current_plan_id = x.plan_id, current_plan_type = x.type, current_plan_status = x.status,
+                    current_plan_started_at = x.started_at, current_plan_finish_at = x.finish_at
+                FROM updated x
+                WHERE u.id = x.user_id
+            )
+            SELECT user_id, plan_id, CAST(status AS text) FROM updated
+            """.formatted(Arrays.stream(PlanType.values())
+            .map(type -> "WHEN c.type = '%s' THEN CAST(:%s AS timestamp)".formatted(finishAtValue(type), finishAtParameter(type)))
+            .collect(Collectors.joining("\n            ")));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserPlanTransition> expireActivePlans(LocalDateTime now, int limit, int partitions, int partition) {
+        return transitions(EXPIRE_ACTIVE_PLANS, now, limit, partitions, partition);
+    }
+
+    @Override
+    public List<UserPlanTransition> activateReadyPlans(LocalDateTime now, int limit, int partitions, int partition) {
+        Query query = entityManager.createNativeQuery(ACTIVATE_READY_PLANS);
+        for (PlanType type : PlanType.values()) {
+            query.setParameter(finishAtParameter(type), type.finishAt(now));
+        }
+        return transitions(query, now, limit, partitions, partition);
+    }
+
+    private List<UserPlanTransition> transitions(String sql, LocalDateTime now, int limit, int partitions, int partition) {
+        return transitions(entityManager.createNativeQuery(sql), now, limit, partitions, partition);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserPlanTransition> transitions(Query query, LocalDateTime now, int limit, int partitions, int partition) {
+        List<Object[]> rows = query
+                .setParameter("now", now)
+                .setParameter("limit", limit)
+                .setParameter("partitions", (long) partitions)
+                .setParameter("partition", (long) partition)
+                .getResultList();
+        List<UserPlanTransition> transitions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            transitions.add(new UserPlanTransition(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                    PlanStatus.valueOf(((String) row[2]).toUpperCase())));
+        }
+        return transitions;
+    }
+
+    // Valor do enum appwtg.plan_type.
+    private static String finishAtValue(PlanType type) {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String finishAtParameter(PlanType type) {
+        return "finishAt_" + type.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,10 @@
+package com.projects.wtg.repository;
+
+import com.projects.wtg.model.PlanStatus;
+
+/**
+ * Mudança de status de um plano de usuário feita pelas atualizações em lote do agendador.
+ * @param status O status do plano depois da atualização.
+ */
+public record UserPlanTransition(Long userId, Long planId, PlanStatus status) {
+}
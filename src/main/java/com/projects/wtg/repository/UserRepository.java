@@ -21,4 +21,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.account.email = :email")
     Optional<User> findByAccountEmail(@Param("email") String email);
 
+    /**
+     * Busca apenas os ids, o tipo e o status do usuário dono do e-mail, sem carregar as entidades.
+     * Usado pelo IdentityResolver para resolver o usuário autenticado.
+     *
+     * @param email O e-mail da conta do usuário.
+     * @return um Optional contendo a identidade, se encontrada.
+     */
+    @Query("SELECT new com.projects.wtg.repository.UserIdentity(u.id, a.id, a.email, u.userType, a.active) FROM User u JOIN u.account a WHERE a.email = :email")
+    Optional<UserIdentity> findIdentityByEmail(@Param("email") String email);
+
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.model.Account;
+import com.projects.wtg.repository.AccountRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Códigos de verificação guardados nas colunas da conta (registration_token, token e
+ * registration_token_expiration), para quando há mais de uma instância da aplicação.
+ * Os índices parciais em token e registration_token atendem à checagem de unicidade na emissão.
+ * A limpeza dos códigos vencidos é um único UPDATE sobre as linhas que têm código, usando o índice parcial.
+ */
+@Component
+@ConditionalOnProperty(name = "verification-codes.store", havingValue = "database")
+public class AccountVerificationCodeStore implements VerificationCodeStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountVerificationCodeStore.class);
+    private static final int MAX_CODE_ATTEMPTS = 100;
+
+    private final AccountRepository accountRepository;
+    private final JobLeaseService jobLeaseService;
+    private final SecureRandom random = new SecureRandom();
+
+    public AccountVerificationCodeStore(AccountRepository accountRepository, JobLeaseService jobLeaseService) {
+        this.accountRepository = accountRepository;
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    @Override
+    @Transactional
+    public String issue(Purpose purpose, String email, Duration ttl) {
+        Account account = accountRepository.findByEmail(email)
+                .orElseThrow(() -> new EntityNotFoundException("Conta não encontrada para o e-mail: " + email));
+
+        String code = null;
+        for (int attempt = 0; attempt < MAX_CODE_ATTEMPTS && code == null; attempt++) {
+            String candidate = String.format("%04d", random.nextInt(10000));
+            boolean taken = purpose == Purpose.REGISTRATION
+                    ? accountRepository.existsByRegistrationToken(candidate)
+                    : accountRepository.findByToken(candidate).isPresent();
+            if (!taken) {
+                code = candidate;
+            }
+        }
+        if (code == null) {
+            throw new IllegalStateException("Não foi possível gerar um código de verificação. Tente novamente em instantes.");
+        }
+
+        if (purpose == Purpose.REGISTRATION) {
+            account.setRegistrationToken(code);
+        } else {
+            account.setToken(code);
+        }
+        account.setRegistrationTokenExpiration(LocalDateTime.now().plus(ttl));
+        accountRepository.save(account);
+        return code;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean matches(Purpose purpose, String email, String code) {
+        return accountRepository.findByEmail(email)
+                .filter(this::isValid)
+                .map(account -> code != null && code.equals(codeOf(purpose, account)))
+                .orElse(false);
+    }
+
+    @Override
+    @Transactional
+    public void invalidate(Purpose purpose, String email) {
+        accountRepository.findByEmail(email).ifPresent(account -> {
+            if (purpose == Purpose.REGISTRATION) {
+                account.setRegistrationToken(null);
+            } else {
+                account.setToken(null);
+            }
+            account.setRegistrationTokenExpiration(null);
+            accountRepository.save(account);
+        });
+    }
+
+    /**
+     * Roda a cada verification-codes.cleanup-interval-ms (registrada em ScheduledJobsConfig), em uma instância
+     * por vez (lease). O lease é adquirido fora da transação do UPDATE.
+     * @return A quantidade de contas com códigos removidos.
+     */
+    public int clearExpiredCodes() {
+        AtomicInteger cleared = new AtomicInteger();
+        jobLeaseService.runExclusive("verification-code-cleanup", () -> {
+            cleared.set(accountRepository.clearExpiredVerificationCodes(LocalDateTime.now()));
+            if (cleared.get() > 0) {
+                logger.debug("{} códigos de verificação expirados removidos.", cleared.get());
+            }
+        });
+        return cleared.get();
+    }
+
+    private boolean isValid(Account account) {
+        return account.getRegistrationTokenExpiration() != null && account.getRegistrationTokenExpiration().isAfter(LocalDateTime.now());
+    }
+
+    private static String codeOf(Purpose purpose, Account account) {
+        return purpose == Purpose.REGISTRATION ? account.getRegistrationToken() : account.getToken();
+    }
+}
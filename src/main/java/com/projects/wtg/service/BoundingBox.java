@@ -0,0 +1,52 @@
+package com.projects.wtg.service;
+
+/**
+ * Área retangular do mapa em graus (WGS 84), recebida como "minLon,minLat,maxLon,maxLat".
+ * Quando minLon > maxLon, a área atravessa o antimeridiano (longitude ±180).
+ */
+public record BoundingBox(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+
+    /**
+     * Interpreta o parâmetro bbox enviado pelo cliente.
+     * @throws IllegalArgumentException se o valor estiver malformado ou fora dos limites.
+     */
+    public static BoundingBox parse(String bbox) {
+        if (bbox == null || bbox.isBlank()) {
+            throw new IllegalArgumentException("O parâmetro bbox é obrigatório (minLon,minLat,maxLon,maxLat).");
+        }
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("O parâmetro bbox deve ter o formato minLon,minLat,maxLon,maxLat.");
+        }
+        try {
+            return of(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()),
+                    Double.parseDouble(parts[2].trim()), Double.parseDouble(parts[3].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("O parâmetro bbox deve conter apenas números.");
+        }
+    }
+
+    /**
+     * Cria uma área validando os limites.
+     * @throws IllegalArgumentException se algum valor estiver fora dos limites.
+     */
+    public static BoundingBox of(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+        if (minLatitude < -90 || maxLatitude > 90 || minLatitude >= maxLatitude
+                || Math.abs(minLongitude) > 180 || Math.abs(maxLongitude) > 180 || minLongitude == maxLongitude) {
+            throw new IllegalArgumentException("A área informada está fora dos limites válidos.");
+        }
+        return new BoundingBox(minLongitude, minLatitude, maxLongitude, maxLatitude);
+    }
+
+    public boolean crossesAntimeridian() {
+        return minLongitude > maxLongitude;
+    }
+
+    public double widthInDegrees() {
+        return crossesAntimeridian() ? 360.0 - minLongitude + maxLongitude : maxLongitude - minLongitude;
+    }
+
+    public double heightInDegrees() {
+        return maxLatitude - minLatitude;
+    }
+}
@@ -6,10 +6,9 @@ import com.projects.wtg.dto.CommentDto;
 import com.projects.wtg.dto.CreateCommentRequestDto;
 import com.projects.wtg.model.Comment;
 import com.projects.wtg.model.Promotion;
-import com.projects.wtg.model.User;
-import com.projects.wtg.model.UserType;
 import com.projects.wtg.repository.CommentRepository;
 import com.projects.wtg.repository.PromotionRepository;
+import com.projects.wtg.repository.UserIdentity;
 import com.projects.wtg.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
@@ -29,11 +28,13 @@ public class CommentService {
     @Autowired
     private PromotionRepository promotionRepository;
 
+    @Autowired
+    private IdentityResolver identityResolver;
+
     @Transactional
     public CommentDto createComment(CreateCommentRequestDto request) {
-        // Pega o email do usuário logado a partir do contexto de segurança
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        User currentUser = userRepository.findByAccountEmail(userEmail)
+        // Pega o usuário logado a partir do contexto de segurança
+        UserIdentity currentUser = identityResolver.find(SecurityContextHolder.getContext().getAuthentication())
                 .orElseThrow(() -> new RuntimeException("Usuário logado não encontrado."));
 
         // Busca a promoção pelo ID
@@ -42,7 +43,7 @@ public class CommentService {
 
         // Cria a nova entidade de comentário
         Comment newComment = Comment.builder()
-                .user(currentUser)
+                .user(userRepository.getReferenceById(currentUser.userId()))
                 .promotion(promotion)
                 .comment(request.getComment())
                 .build();
@@ -54,9 +55,8 @@ public class CommentService {
 
     @Transactional
     public void deleteComment(Long commentId) {
-        // Pega o email do usuário logado
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        User currentUser = userRepository.findByAccountEmail(userEmail)
+        // Pega o usuário logado
+        UserIdentity currentUser = identityResolver.find(SecurityContextHolder.getContext().getAuthentication())
                 .orElseThrow(() -> new RuntimeException("Usuário logado não encontrado."));
 
         // Busca o comentário a ser deletado
@@ -64,8 +64,8 @@ public class CommentService {
                 .orElseThrow(() -> new RuntimeException("Comentário não encontrado com o ID: " + commentId));
 
         // Verifica se o usuário logado é o autor do comentário OU se é um ADMIN
-        boolean isAdmin = currentUser.getUserType() == UserType.ADMIN;
-        boolean isAuthor = commentToDelete.getUser().getId().equals(currentUser.getId());
+        boolean isAdmin = currentUser.isAdmin();
+        boolean isAuthor = commentToDelete.getUser().getId().equals(currentUser.userId());
 
         if (isAuthor || isAdmin) {
             commentRepository.delete(commentToDelete);
@@ -3,8 +3,10 @@ package com.projects.wtg.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.wtg.dto.LoginResponseDto;
 import com.projects.wtg.dto.UserDto;
+import com.projects.wtg.dto.TokenResponseDto;
 import com.projects.wtg.model.Account;
 import com.projects.wtg.repository.AccountRepository;
+import com.projects.wtg.repository.UserIdentity;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -21,12 +23,14 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
 
     private final AccountRepository accountRepository;
     private final UserService userService; // 1. Injete o UserService
+    private final JwtService jwtService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // 2. Adicione o UserService ao construtor
-    public CustomAuthenticationSuccessHandler(AccountRepository accountRepository, UserService userService) {
+    public CustomAuthenticationSuccessHandler(AccountRepository accountRepository, UserService userService, JwtService jwtService) {
         this.accountRepository = accountRepository;
         this.userService = userService;
+        this.jwtService = jwtService;
     }
 
     @Override
@@ -37,7 +41,7 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
         String email = oidcUser.getEmail();
 
         // --- LÓGICA DE REATIVAÇÃO UNIFICADA ---
-        Account account = accountRepository.findByEmailWithUserAndPlans(email)
+        Account account = accountRepository.findByEmailWithUser(email)
                 .orElseThrow(() -> new IllegalStateException("Usuário SSO logado não encontrado no banco de dados."));
 
         String message;
@@ -53,6 +57,14 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
 
         UserDto userDto = new UserDto(account.getUser());
         LoginResponseDto loginResponse = new LoginResponseDto("ok", message, 200, userDto, null);
+        if (jwtService.isEnabled()) {
+            // O fluxo OAuth2 usa sessão só até aqui; daí em diante o cliente se autentica pelos tokens.
+            TokenResponseDto tokens = jwtService.issueTokens(new UserIdentity(account.getUser().getId(), account.getId(),
+                    account.getEmail(), account.getUser().getUserType(), account.getActive()));
+            loginResponse.setAccessToken(tokens.getAccessToken());
+            loginResponse.setRefreshToken(tokens.getRefreshToken());
+            loginResponse.setExpiresIn(tokens.getExpiresIn());
+        }
 
         response.setStatus(HttpStatus.OK.value());
         response.setContentType("application/json");
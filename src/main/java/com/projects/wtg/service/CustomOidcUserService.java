@@ -15,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class CustomOidcUserService extends OidcUserService {
@@ -24,11 +25,13 @@ public class CustomOidcUserService extends OidcUserService {
     private final UserRepository userRepository;
     private final AccountRepository accountRepository;
     private final PlanRepository planRepository;
+    private final UserWriteBehindBuffer userWriteBehindBuffer;
 
-    public CustomOidcUserService(UserRepository userRepository, AccountRepository accountRepository, PlanRepository planRepository) {
+    public CustomOidcUserService(UserRepository userRepository, AccountRepository accountRepository, PlanRepository planRepository, UserWriteBehindBuffer userWriteBehindBuffer) {
         this.userRepository = userRepository;
         this.accountRepository = accountRepository;
         this.planRepository = planRepository;
+        this.userWriteBehindBuffer = userWriteBehindBuffer;
     }
 
     @Override
@@ -38,15 +41,22 @@ public class CustomOidcUserService extends OidcUserService {
         Map<String, Object> attributes = oidcUser.getAttributes();
         String email = (String) attributes.get("email");
 
-        // Refatorado para usar orElseGet, que é mais limpo
-        User user = accountRepository.findByEmail(email)
-                .map(Account::getUser)
-                .orElseGet(() -> createNewSsoUser(attributes, userRequest.getClientRegistration().getRegistrationId()));
+        Optional<User> existingUser = accountRepository.findByEmail(email).map(Account::getUser);
+        if (existingUser.isPresent()) {
+            // Usuário existente: os dados do SSO e o último login vão para o buffer, e só são gravados se mudaram.
+            User user = existingUser.get();
+            userWriteBehindBuffer.recordSsoAttributes(user, new UserWriteBehindBuffer.SsoAttributes(
+                    (String) attributes.get("given_name"), (String) attributes.get("family_name"),
+                    (String) attributes.get("picture"), (String) attributes.get("sub")));
+            userWriteBehindBuffer.recordLogin(user, null, null);
+            return oidcUser;
+        }
 
+        User user = createNewSsoUser(attributes, userRequest.getClientRegistration().getRegistrationId());
         updateSsoUserData(user, attributes);
 
         userRepository.save(user);
-        logger.info(">>> Dados do usuário OIDC (email: {}) salvos/atualizados com sucesso!", email);
+        logger.info(">>> Dados do usuário OIDC (email: {}) salvos com sucesso!", email);
         return oidcUser;
     }
 
@@ -60,6 +70,7 @@ public class CustomOidcUserService extends OidcUserService {
         account.setUserName((String) attributes.get("email"));
         account.setLoginProvider(provider);
         account.setActive(true); // Define a conta como ativa
+        account.setLastLogin(LocalDateTime.now());
 
         user.setAccount(account);
 
@@ -91,5 +102,6 @@ public class CustomOidcUserService extends OidcUserService {
                 .build();
 
         user.getUserPlans().add(userPlan);
+        user.refreshCurrentPlan(userPlan);
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.projects.wtg.service;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+/**
+ * Verificador compartilhado dos ID tokens do login com Google.
+ *
+ * Uma única instância com transporte HTTP com pool de conexões: as chaves públicas do Google ficam em cache
+ * pelo tempo indicado no Cache-Control da resposta (comportamento do {@link GooglePublicKeysManager}),
+ * e um job as renova em segundo plano antes de expirarem, para que nenhum login espere por esse download.
+ */
+@Component
+public class GoogleTokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleTokenVerifier.class);
+    // Antecedência com que o próprio GooglePublicKeysManager renova as chaves, de forma síncrona, durante um login.
+    private static final long KEYS_MANAGER_REFRESH_SKEW_MILLIS = 300_000;
+
+    private final GooglePublicKeysManager publicKeysManager;
+    private final GoogleIdTokenVerifier verifier;
+    private final long refreshAheadMillis;
+
+    public GoogleTokenVerifier(@Value("${spring.security.oauth2.client.registration.google.client-id}") String googleWebClientId,
+                               @Value("${google.ios.client-id}") String googleIosClientId,
+                               @Value("${google.id-token.certs-url:https://www.googleapis.com/oauth2/v1/certs}") String certsUrl,
+                               @Value("${google.id-token.max-connections:20}") int maxConnections,
+                               @Value("${google.id-token.refresh-ahead-seconds:600}") long refreshAheadSeconds,
+                               @Value("${google.id-token.refresh-check-interval-ms:60000}") long refreshCheckIntervalMillis) {
+        // A renovação em segundo plano precisa acontecer antes de a janela síncrona do GooglePublicKeysManager abrir,
+        // mesmo que a verificação rode só no fim do intervalo; senão os logins voltam a esperar pelo download.
+        if (refreshAheadSeconds * 1000 < KEYS_MANAGER_REFRESH_SKEW_MILLIS + refreshCheckIntervalMillis) {
+            throw new IllegalArgumentException("google.id-token.refresh-ahead-seconds deve ser de pelo menos "
+                    + (KEYS_MANAGER_REFRESH_SKEW_MILLIS + refreshCheckIntervalMillis + 999) / 1000
+                    + " segundos (300s do GooglePublicKeysManager mais o intervalo de verificação).");
+        }
+        HttpTransport transport = new ApacheHttpTransport(HttpClientBuilder.create()
+                .useSystemProperties()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .build());
+        this.publicKeysManager = new GooglePublicKeysManager.Builder(transport, GsonFactory.getDefaultInstance())
+                .setPublicCertsEncodedUrl(certsUrl)
+                .build();
+        this.verifier = new GoogleIdTokenVerifier.Builder(publicKeysManager)
+                .setAudience(List.of(googleWebClientId, googleIosClientId))
+                .build();
+        this.refreshAheadMillis = refreshAheadSeconds * 1000;
+    }
+
+    /**
+     * Verifica a assinatura, o emissor, a audiência e a validade de um ID token do Google.
+     * @return O token verificado, ou null se for inválido.
+     */
+    public GoogleIdToken verify(String idToken) throws GeneralSecurityException, IOException {
+        return verifier.verify(idToken);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadKeysOnStartup() {
+        refreshKeysIfExpiring();
+    }
+
+    /**
+     * Renova as chaves quando faltar menos de refresh-ahead-seconds para expirarem. O padrão (600s) cobre os 300s
+     * em que o GooglePublicKeysManager já renovaria dentro de um login, mais o intervalo entre as verificações.
+     * Roda a cada google.id-token.refresh-check-interval-ms (registrada em ScheduledJobsConfig).
+     * Se a renovação falhar, as chaves atuais continuam em uso e a verificação tenta de novo quando expirarem.
+     * @return true se as chaves foram renovadas.
+     */
+    public boolean refreshKeysIfExpiring() {
+        if (publicKeysManager.getExpirationTimeMilliseconds() - refreshAheadMillis > System.currentTimeMillis()) {
+            return false;
+        }
+        try {
+            publicKeysManager.refresh();
+            logger.debug("Chaves públicas do Google renovadas.");
+            return true;
+        } catch (GeneralSecurityException | IOException e) {
+            logger.warn("Falha ao renovar as chaves públicas do Google: {}", e.getMessage());
+            return false;
+        }
+    }
+}
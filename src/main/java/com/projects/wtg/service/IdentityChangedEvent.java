@@ -0,0 +1,8 @@
+package com.projects.wtg.service;
+
+/**
+ * Evento publicado quando uma conta é desativada, reativada, removida ou muda de tipo,
+ * para que a identidade em cache no {@link IdentityResolver} seja descartada após o commit.
+ */
+public record IdentityChangedEvent(String email) {
+}
@@ -0,0 +1,160 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.repository.UserIdentity;
+import com.projects.wtg.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolve o e-mail do usuário autenticado para a sua {@link UserIdentity}.
+ *
+ * É a consulta mais frequente da aplicação, então o resultado fica em dois níveis de cache:
+ * nos atributos da requisição atual (várias chamadas na mesma requisição fazem uma consulta só)
+ * e num cache compartilhado com TTL curto e tamanho limitado (LRU). As entradas são descartadas
+ * quando um {@link IdentityChangedEvent} é publicado; uma consulta iniciada antes do evento não volta a
+ * guardar o valor antigo (contador de geração). Contas inativas não são resolvidas.
+ *
+ * Com access token JWT ({@link JwtPrincipal}), a identidade do usuário autenticado vem das claims do token,
+ * sem consulta nem cache.
+ */
+@Component
+public class IdentityResolver {
+
+    private static final String REQUEST_ATTRIBUTE = IdentityResolver.class.getName() + ".identities";
+
+    private record CacheEntry(UserIdentity identity, long expiresAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final Map<String, CacheEntry> entries;
+    private long generation;
+
+    public IdentityResolver(UserRepository userRepository,
+                            @Value("${security.identity-cache.max-entries:10000}") int maxEntries,
+                            @Value("${security.identity-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return A identidade do usuário dono do e-mail.
+     * @throws UsernameNotFoundException se não houver usuário para o e-mail.
+     */
+    public UserIdentity resolve(String email) {
+        return find(email).orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado."));
+    }
+
+    /**
+     * @return A identidade do usuário autenticado.
+     * @throws UsernameNotFoundException se não houver usuário para a autenticação.
+     */
+    public UserIdentity resolve(Authentication authentication) {
+        return find(authentication).orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado."));
+    }
+
+    public Optional<UserIdentity> find(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return Optional.empty();
+        }
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal && principal.userId() != null) {
+            return Optional.of(principal.toIdentity());
+        }
+        return find(authentication.getName());
+    }
+
+    public Optional<UserIdentity> find(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        // O e-mail do usuário autenticado por token: a identidade já está nas claims.
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal
+                && principal.userId() != null && email.equals(principal.email())) {
+            return Optional.of(principal.toIdentity());
+        }
+        Map<String, UserIdentity> requestCache = requestCache();
+        if (requestCache != null && requestCache.containsKey(email)) {
+            return Optional.of(requestCache.get(email));
+        }
+
+        UserIdentity identity;
+        long startedGeneration;
+        synchronized (this) {
+            CacheEntry entry = entries.get(email);
+            identity = entry != null && entry.expiresAt() > System.currentTimeMillis() ? entry.identity() : null;
+            startedGeneration = generation;
+        }
+        if (identity == null) {
+            // Resultados vazios não são guardados: a conta pode ser criada ou reativada logo em seguida.
+            Optional<UserIdentity> loaded = userRepository.findIdentityByEmail(email)
+                    .filter(found -> Boolean.TRUE.equals(found.active()));
+            if (loaded.isEmpty()) {
+                return loaded;
+            }
+            identity = loaded.get();
+            synchronized (this) {
+                // Um IdentityChangedEvent durante a consulta pode ter tornado o resultado obsoleto.
+                if (generation == startedGeneration) {
+                    entries.put(email, new CacheEntry(identity, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        }
+
+        if (requestCache != null) {
+            requestCache.put(email, identity);
+        }
+        return Optional.of(identity);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdentityChanged(IdentityChangedEvent event) {
+        evict(event.email());
+    }
+
+    public void evict(String email) {
+        synchronized (this) {
+            generation++;
+            entries.remove(email);
+        }
+        Map<String, UserIdentity> requestCache = requestCache();
+        if (requestCache != null) {
+            requestCache.remove(email);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, UserIdentity> requestCache() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, UserIdentity> cache = (Map<String, UserIdentity>) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cache == null) {
+            cache = new HashMap<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,111 @@
+package com.projects.wtg.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token buckets em memória: cada bucket guarda o seu estado num AtomicReference e é atualizado
+ * por compare-and-set; o lock do mapa só é usado para localizar (ou criar) o bucket da chave.
+ *
+ * A memória é limitada: o mapa é um LRU de até max-keys chaves, e ao criar uma chave nova com o mapa cheio
+ * a chave usada há mais tempo é descartada, em tempo constante. Descartar uma chave só devolve os tokens
+ * dela (falha aberta); chaves diferentes nunca dividem um bucket. Buckets cheios (ociosos) também são
+ * descartados periodicamente, fora do caminho das requisições.
+ */
+@Component
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private record State(double tokens, long updatedAt) {
+    }
+
+    private static final class TokenBucket {
+
+        private final RateLimitPolicy policy;
+        private final AtomicReference<State> state;
+
+        private TokenBucket(RateLimitPolicy policy, long now) {
+            this.policy = policy;
+            this.state = new AtomicReference<>(new State(policy.capacity(), now));
+        }
+
+        private long tryConsume(long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = refill(current, now);
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / policy.tokensPerNano());
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                    return 0;
+                }
+            }
+        }
+
+        private boolean isFull(long now) {
+            return refill(state.get(), now) >= policy.capacity();
+        }
+
+        private double refill(State current, long now) {
+            long elapsed = Math.max(0, now - current.updatedAt());
+            return Math.min(policy.capacity(), current.tokens() + elapsed * policy.tokensPerNano());
+        }
+    }
+
+    private final Map<String, TokenBucket> buckets;
+
+    public InMemoryRateLimitStore(MeterRegistry meterRegistry,
+                                  @Value("${rate-limit.max-keys:100000}") int maxKeys) {
+        // LinkedHashMap em ordem de acesso: a entrada mais antiga é a chave usada há mais tempo.
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxKeys;
+            }
+        };
+        Gauge.builder("rate.limit.keys", buckets, InMemoryRateLimitStore::sizeOf)
+                .description("Chaves de rate limit em memória").register(meterRegistry);
+    }
+
+    @Override
+    public long tryConsume(String key, RateLimitPolicy policy) {
+        long now = System.nanoTime();
+        String bucketKey = policy.name() + ":" + key;
+        TokenBucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.computeIfAbsent(bucketKey, k -> new TokenBucket(policy, now));
+        }
+        long waitNanos = bucket.tryConsume(now);
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+
+    /**
+     * Descarta os buckets cheios: recriá-los depois dá o mesmo resultado.
+     * Roda a cada rate-limit.cleanup-interval-ms (registrada em ScheduledJobsConfig).
+     * @return A quantidade de buckets descartados.
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        synchronized (buckets) {
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+            return before - buckets.size();
+        }
+    }
+
+    public int size() {
+        return sizeOf(buckets);
+    }
+
+    private static int sizeOf(Map<String, TokenBucket> buckets) {
+        synchronized (buckets) {
+            return buckets.size();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.projects.wtg.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Códigos de verificação em memória, cada um com o seu TTL.
+ *
+ * A expiração é feita por uma DelayQueue: uma thread dedicada espera o próximo vencimento e remove
+ * apenas aquele código, sem varrer nada. As leituras também conferem o vencimento, então um código
+ * nunca é aceito depois do TTL, mesmo que a remoção ainda não tenha acontecido.
+ * Os códigos ficam só nesta instância: com várias instâncias atrás de um balanceador, use
+ * verification-codes.store=database.
+ */
+@Component
+@ConditionalOnProperty(name = "verification-codes.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryVerificationCodeStore implements VerificationCodeStore, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryVerificationCodeStore.class);
+    private static final int MAX_CODE_ATTEMPTS = 100;
+
+    private record Key(Purpose purpose, String value) {
+    }
+
+    private record Entry(String code, long expiresAt) {
+    }
+
+    private static final class Expiry implements Delayed {
+
+        private final Key emailKey;
+        private final Entry entry;
+
+        private Expiry(Key emailKey, Entry entry) {
+            this.emailKey = emailKey;
+            this.entry = entry;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(entry.expiresAt() - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(entry.expiresAt(), ((Expiry) other).entry.expiresAt());
+        }
+    }
+
+    private final Map<Key, Entry> codesByEmail = new HashMap<>();
+    private final Map<Key, String> emailsByCode = new HashMap<>();
+    private final DelayQueue<Expiry> expirations = new DelayQueue<>();
+    private final SecureRandom random = new SecureRandom();
+    private Thread expiryThread;
+
+    /**
+     * Inicia a thread de expiração, depois que o bean está construído.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (expiryThread == null) {
+            expiryThread = new Thread(this::expireCodes, "verification-code-expiry");
+            expiryThread.setDaemon(true);
+            expiryThread.start();
+        }
+    }
+
+    @Override
+    public synchronized String issue(Purpose purpose, String email, Duration ttl) {
+        invalidate(purpose, email);
+
+        String code = null;
+        for (int attempt = 0; attempt < MAX_CODE_ATTEMPTS && code == null; attempt++) {
+            String candidate = String.format("%04d", random.nextInt(10000));
+            if (!emailsByCode.containsKey(new Key(purpose, candidate))) {
+                code = candidate;
+            }
+        }
+        if (code == null) {
+            throw new IllegalStateException("Não foi possível gerar um código de verificação. Tente novamente em instantes.");
+        }
+
+        Key emailKey = new Key(purpose, email);
+        Entry entry = new Entry(code, System.nanoTime() + ttl.toNanos());
+        codesByEmail.put(emailKey, entry);
+        emailsByCode.put(new Key(purpose, code), email);
+        expirations.add(new Expiry(emailKey, entry));
+        return code;
+    }
+
+    @Override
+    public synchronized boolean matches(Purpose purpose, String email, String code) {
+        Entry entry = codesByEmail.get(new Key(purpose, email));
+        return entry != null && isValid(entry) && entry.code().equals(code);
+    }
+
+    @Override
+    public synchronized void invalidate(Purpose purpose, String email) {
+        Entry entry = codesByEmail.remove(new Key(purpose, email));
+        if (entry != null) {
+            emailsByCode.remove(new Key(purpose, entry.code()));
+        }
+    }
+
+    public synchronized int size() {
+        return codesByEmail.size();
+    }
+
+    private static boolean isValid(Entry entry) {
+        return entry.expiresAt() - System.nanoTime() > 0;
+    }
+
+    private void expireCodes() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Expiry expiry = expirations.take();
+                synchronized (this) {
+                    // Só remove se o código ainda for o mesmo: um código reemitido tem a sua própria expiração.
+                    if (codesByEmail.get(expiry.emailKey) == expiry.entry) {
+                        invalidate(expiry.emailKey.purpose(), expiry.emailKey.value());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Erro ao expirar código de verificação: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (expiryThread != null) {
+            expiryThread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.projects.wtg.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases no banco (tabela appwtg.job_lease) para que, com várias instâncias, cada job agendado rode
+ * em apenas uma delas.
+ *
+ * O lease é adquirido com um único INSERT ... ON CONFLICT, que só toma a linha se ela estiver livre, vencida
+ * ou já for desta instância. Enquanto o job roda, um heartbeat renova o lease a cada terço do TTL; se a instância
+ * morrer, o lease vence e outra assume na próxima execução. Os horários usam o relógio do banco.
+ * Com jobs.lease.enabled=false (uma única instância), todo lease é concedido sem acessar o banco.
+ */
+@Component
+public class JobLeaseService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseService.class);
+
+    private static final String ACQUIRE = "INSERT INTO appwtg.job_lease (job_name, owner, expires_at, heartbeat_at) " +
+            "VALUES (?, ?, now() + ? * INTERVAL '1 second', now()) " +
+            "ON CONFLICT (job_name) DO UPDATE SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at, heartbeat_at = now() " +
+            "WHERE job_lease.owner = EXCLUDED.owner OR job_lease.expires_at < now()";
+    private static final String RENEW = "UPDATE appwtg.job_lease SET expires_at = now() + ? * INTERVAL '1 second', heartbeat_at = now() " +
+            "WHERE job_name = ? AND owner = ?";
+    private static final String RELEASE = "UPDATE appwtg.job_lease SET expires_at = now() WHERE job_name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final String nodeId;
+    private final ScheduledExecutorService heartbeats;
+
+    public JobLeaseService(JdbcTemplate jdbcTemplate,
+                           @Value("${jobs.lease.enabled:true}") boolean enabled,
+                           @Value("${jobs.lease.ttl-seconds:60}") long ttlSeconds,
+                           @Value("${jobs.node-id:}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Lease adquirido. Deve ser fechado ao fim do job, o que o libera para as outras instâncias.
+     */
+    public final class JobLease implements AutoCloseable {
+
+        private final String jobName;
+        private final ScheduledFuture<?> heartbeat;
+        private volatile boolean held = true;
+
+        private JobLease(String jobName) {
+            this.jobName = jobName;
+            long period = Math.max(1, ttlSeconds * 1000 / 3);
+            this.heartbeat = enabled ? heartbeats.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS) : null;
+        }
+
+        /**
+         * @return false se o lease foi perdido (heartbeat falhou e outra instância pode tê-lo assumido).
+         * Jobs longos devem conferir entre os lotes e parar.
+         */
+        public boolean isHeld() {
+            return held;
+        }
+
+        private void renew() {
+            try {
+                if (jdbcTemplate.update(RENEW, ttlSeconds, jobName, nodeId) == 0) {
+                    lost();
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Falha ao renovar o lease do job {}: {}", jobName, e.getMessage());
+            }
+        }
+
+        private void lost() {
+            if (held) {
+                held = false;
+                heartbeat.cancel(false);
+                logger.warn("Lease do job {} perdido pela instância {}.", jobName, nodeId);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!enabled) {
+                return;
+            }
+            heartbeat.cancel(false);
+            if (held) {
+                held = false;
+                try {
+                    jdbcTemplate.update(RELEASE, jobName, nodeId);
+                } catch (DataAccessException e) {
+                    // O lease vence sozinho após o TTL.
+                    logger.warn("Falha ao liberar o lease do job {}: {}", jobName, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tenta adquirir o lease do job para esta instância.
+     * @return O lease, ou vazio se outra instância o detém.
+     */
+    public Optional<JobLease> tryAcquire(String jobName) {
+        if (enabled && jdbcTemplate.update(ACQUIRE, jobName, nodeId, ttlSeconds) == 0) {
+            logger.debug("Job {} já está em execução em outra instância.", jobName);
+            return Optional.empty();
+        }
+        return Optional.of(new JobLease(jobName));
+    }
+
+    /**
+     * Roda a tarefa se esta instância conseguir o lease do job.
+     * @return false se a execução foi pulada porque outra instância detém o lease.
+     */
+    public boolean runExclusive(String jobName, Runnable task) {
+        Optional<JobLease> lease = tryAcquire(jobName);
+        if (lease.isEmpty()) {
+            return false;
+        }
+        JobLease held = lease.get();
+        try {
+            task.run();
+        } finally {
+            held.close();
+        }
+        return true;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+    }
+}
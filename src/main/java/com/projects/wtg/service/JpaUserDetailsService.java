@@ -1,14 +1,17 @@
 package com.projects.wtg.service;
 
 import com.projects.wtg.model.Account;
+import com.projects.wtg.model.UserType;
 import com.projects.wtg.repository.AccountRepository;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.List;
 
 @Service
 public class JpaUserDetailsService implements UserDetailsService {
@@ -21,7 +24,7 @@ public class JpaUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        Account account = accountRepository.findByEmail(email)
+        Account account = accountRepository.findByEmailWithUser(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado com o e-mail: " + email));
 
         return new User(
@@ -31,7 +34,14 @@ public class JpaUserDetailsService implements UserDetailsService {
                 true, // accountNonExpired
                 true, // credentialsNonExpired
                 true, // accountNonLocked
-                Collections.emptyList()
+                authoritiesFor(account.getUser().getUserType())
         );
     }
+
+    /**
+     * @return A autoridade ROLE_&lt;tipo do usuário&gt; (ex.: ROLE_ADMIN), a mesma no login por sessão e por token.
+     */
+    public static List<GrantedAuthority> authoritiesFor(UserType userType) {
+        return userType != null ? List.of(new SimpleGrantedAuthority("ROLE_" + userType.name())) : List.of();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.model.UserType;
+import com.projects.wtg.repository.UserIdentity;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Usuário autenticado por um access token JWT no modo stateless.
+ * Id, conta e tipo vêm das claims do token, então a identidade do usuário é montada sem consultar o banco
+ * ({@link IdentityResolver#resolve(org.springframework.security.core.Authentication)}).
+ * {@link #getName()} continua sendo o e-mail, como no login por sessão, para que {@code authentication.getName()}
+ * funcione igual nos dois modos.
+ */
+public record JwtPrincipal(Long userId, Long accountId, String email, UserType userType) implements AuthenticatedPrincipal, Serializable {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    /**
+     * @return A identidade do usuário. A conta é considerada ativa: o token só é emitido (e renovado) para contas ativas.
+     */
+    public UserIdentity toIdentity() {
+        return new UserIdentity(userId, accountId, email, userType, true);
+    }
+
+    /**
+     * @return A autoridade ROLE_&lt;tipo do usuário&gt;, a mesma do login por sessão.
+     */
+    public List<GrantedAuthority> authorities() {
+        return JpaUserDetailsService.authoritiesFor(userType);
+    }
+}
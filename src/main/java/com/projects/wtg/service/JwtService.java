@@ -0,0 +1,192 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.dto.TokenResponseDto;
+import com.projects.wtg.model.UserType;
+import com.projects.wtg.repository.UserIdentity;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Emissão e validação dos tokens JWT do modo stateless (security.jwt.enabled).
+ *
+ * Access tokens têm vida curta e são validados a cada requisição; as validações bem-sucedidas ficam num
+ * cache pequeno (LRU) até o token expirar, evitando refazer o parse e a verificação da assinatura.
+ * Refresh tokens têm vida longa, só são aceitos no endpoint de renovação e valem uma única vez: o id (jti) de cada
+ * um fica no {@link RefreshTokenStore} e é revogado quando o token é trocado por um novo par.
+ */
+@Service
+public class JwtService {
+
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
+    private static final String TYPE_CLAIM = "typ";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ACCOUNT_ID_CLAIM = "aid";
+    private static final String USER_TYPE_CLAIM = "role";
+
+    private record CachedPrincipal(JwtPrincipal principal, long expiresAt) {
+    }
+
+    private final RefreshTokenStore refreshTokenStore;
+    private final boolean enabled;
+    private final Key signingKey;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+    private final Map<String, CachedPrincipal> verifiedTokens;
+
+    public JwtService(RefreshTokenStore refreshTokenStore,
+                      @Value("${security.jwt.enabled:false}") boolean enabled,
+                      @Value("${security.jwt.secret:}") String secret,
+                      @Value("${security.jwt.access-token-ttl:15m}") Duration accessTokenTtl,
+                      @Value("${security.jwt.refresh-token-ttl:30d}") Duration refreshTokenTtl,
+                      @Value("${security.jwt.cache-size:10000}") int cacheSize) {
+        this.refreshTokenStore = refreshTokenStore;
+        this.enabled = enabled;
+        if (enabled && (secret == null || secret.isBlank())) {
+            throw new IllegalStateException("security.jwt.secret é obrigatório quando security.jwt.enabled=true.");
+        }
+        // A chave precisa ter pelo menos 256 bits (32 bytes) em base64 para o HS256.
+        this.signingKey = enabled ? Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)) : null;
+        this.accessTokenTtl = accessTokenTtl;
+        this.refreshTokenTtl = refreshTokenTtl;
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String issueAccessToken(UserIdentity identity) {
+        return issue(identity, ACCESS_TOKEN, accessTokenTtl, null);
+    }
+
+    public String issueRefreshToken(UserIdentity identity) {
+        String tokenId = UUID.randomUUID().toString();
+        String token = issue(identity, REFRESH_TOKEN, refreshTokenTtl, tokenId);
+        refreshTokenStore.register(tokenId, identity.userId(), Instant.now().plus(refreshTokenTtl));
+        return token;
+    }
+
+    /**
+     * Emite um par de access e refresh tokens para o usuário.
+     */
+    public TokenResponseDto issueTokens(UserIdentity identity) {
+        return new TokenResponseDto(issueAccessToken(identity), issueRefreshToken(identity), getAccessTokenTtlSeconds());
+    }
+
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtl.toSeconds();
+    }
+
+    /**
+     * Valida um access token, usando o cache de tokens já verificados.
+     * @throws JwtException se o token for inválido, estiver expirado ou não for um access token.
+     */
+    public JwtPrincipal parseAccessToken(String token) {
+        long now = System.currentTimeMillis();
+        synchronized (verifiedTokens) {
+            CachedPrincipal cached = verifiedTokens.get(token);
+            if (cached != null) {
+                if (cached.expiresAt() > now) {
+                    return cached.principal();
+                }
+                verifiedTokens.remove(token);
+            }
+        }
+
+        Claims claims = parse(token, ACCESS_TOKEN);
+        JwtPrincipal principal = toPrincipal(claims);
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(token, new CachedPrincipal(principal, claims.getExpiration().getTime()));
+        }
+        return principal;
+    }
+
+    /**
+     * Valida um refresh token, sem consumi-lo. Não usa o cache, pois é chamado só na renovação.
+     * @throws JwtException se o token for inválido, estiver expirado ou não for um refresh token.
+     */
+    public JwtPrincipal parseRefreshToken(String token) {
+        return toPrincipal(parse(token, REFRESH_TOKEN));
+    }
+
+    /**
+     * Valida um refresh token e o revoga, para que não possa ser usado de novo.
+     * Se ele já tinha sido usado ou revogado, revoga também todos os outros refresh tokens do usuário.
+     * @throws JwtException se o token for inválido, estiver expirado, já tiver sido usado ou não for um refresh token.
+     */
+    public JwtPrincipal consumeRefreshToken(String token) {
+        Claims claims = parse(token, REFRESH_TOKEN);
+        JwtPrincipal principal = toPrincipal(claims);
+        if (claims.getId() == null || !refreshTokenStore.consume(claims.getId())) {
+            if (principal.userId() != null) {
+                refreshTokenStore.revokeAll(principal.userId());
+            }
+            throw new JwtException("Refresh token já utilizado ou revogado.");
+        }
+        return principal;
+    }
+
+    private String issue(UserIdentity identity, String type, Duration ttl, String tokenId) {
+        if (!enabled) {
+            throw new IllegalStateException("O modo de autenticação JWT não está habilitado.");
+        }
+        Date now = new Date();
+        return Jwts.builder()
+                .setId(tokenId)
+                .setSubject(identity.email())
+                .claim(USER_ID_CLAIM, identity.userId())
+                .claim(ACCOUNT_ID_CLAIM, identity.accountId())
+                .claim(USER_TYPE_CLAIM, identity.userType() != null ? identity.userType().name() : null)
+                .claim(TYPE_CLAIM, type)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + ttl.toMillis()))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private Claims parse(String token, String expectedType) {
+        if (!enabled) {
+            throw new JwtException("O modo de autenticação JWT não está habilitado.");
+        }
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        if (!expectedType.equals(claims.get(TYPE_CLAIM, String.class))) {
+            throw new JwtException("Tipo de token inválido.");
+        }
+        return claims;
+    }
+
+    private static JwtPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        Number accountId = claims.get(ACCOUNT_ID_CLAIM, Number.class);
+        String userType = claims.get(USER_TYPE_CLAIM, String.class);
+        return new JwtPrincipal(userId != null ? userId.longValue() : null,
+                accountId != null ? accountId.longValue() : null,
+                claims.getSubject(),
+                userType != null ? UserType.valueOf(userType) : null);
+    }
+}
@@ -0,0 +1,331 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.dto.PromotionDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Cache das promoções próximas exibidas no login, no login com Google e no cadastro.
+ *
+ * As coordenadas do usuário são arredondadas para uma célula de uma grade regular, e a busca é feita
+ * a partir do centro da célula, com o raio aumentado em meia diagonal da célula. Assim, usuários no mesmo
+ * quarteirão compartilham o mesmo conjunto de candidatas, e a distância, o filtro de 5 km e a ordem são
+ * recalculados para as coordenadas de cada usuário, fora do lock. Numa falta, só uma busca por célula vai
+ * ao banco; as demais requisições da mesma célula esperam por ela.
+ * As entradas expiram por TTL, o cache é limitado por tamanho (LRU), e uma entrada é invalidada quando uma
+ * promoção que ela contém, ou que cai dentro do seu raio, é criada, editada, desativada ou removida.
+ * A invalidação só alcança as células afetadas: as do raio em volta da promoção e as que a contêm
+ * (índice reverso por id). Uma busca em andamento numa célula afetada não é guardada nem compartilhada.
+ */
+@Component
+public class NearbyPromotionCache {
+
+    static final double RADIUS_KM = 5.0;
+    // Folga para a diferença entre a distância no esferoide (PostGIS) e a haversine usada aqui.
+    private static final double RADIUS_TOLERANCE = 1.01;
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final Comparator<NearbyPromotions.Candidate> BY_ID = Comparator.comparing(NearbyPromotions.Candidate::id);
+
+    private record CellKey(long row, long col) {
+    }
+
+    private record CacheEntry(List<NearbyPromotions.Candidate> candidates, double latitude, double longitude, Set<Long> promotionIds, long expiresAt) {
+    }
+
+    private record Ranked(NearbyPromotions.Candidate candidate, double distanceInMeters) {
+    }
+
+    /**
+     * Busca em andamento de uma célula. Os campos mutáveis são protegidos pelo monitor do cache.
+     */
+    private static final class Load {
+        private final CompletableFuture<CacheEntry> result = new CompletableFuture<>();
+        // Uma promoção dentro do raio da célula mudou durante a busca.
+        private boolean stale;
+        // Promoções alteradas fora do raio durante a busca: se estiverem no resultado, ele não é guardado.
+        private final Set<Long> changedPromotionIds = new HashSet<>();
+    }
+
+    private final PromotionService promotionService;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final double cellSizeDegrees;
+    private final double candidateRadiusKm;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final Map<CellKey, CacheEntry> entries;
+    private final Map<Long, Set<CellKey>> cellsByPromotion = new HashMap<>();
+    private final Map<CellKey, Load> loading = new HashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter shared;
+    private final Counter invalidations;
+
+    public NearbyPromotionCache(PromotionService promotionService,
+                                MeterRegistry meterRegistry,
+                                @Value("${promotions.nearby-cache.enabled:true}") boolean enabled,
+                                @Value("${promotions.nearby-cache.cell-size-degrees:0.005}") double cellSizeDegrees,
+                                @Value("${promotions.nearby-cache.max-entries:10000}") int maxEntries,
+                                @Value("${promotions.nearby-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.promotionService = promotionService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.cellSizeDegrees = cellSizeDegrees;
+        // Qualquer ponto da célula está a no máximo meia diagonal do centro (um grau de longitude nunca passa de 111,32 km).
+        this.candidateRadiusKm = RADIUS_KM * RADIUS_TOLERANCE + cellSizeDegrees * KM_PER_DEGREE * Math.sqrt(2) / 2;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        // LinkedHashMap em ordem de acesso: a entrada mais antiga é a menos usada recentemente.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CellKey, CacheEntry> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+
+        this.hits = Counter.builder("promotions.nearby.cache.requests").tag("result", "hit")
+                .description("Buscas de promoções próximas atendidas pelo cache").register(meterRegistry);
+        this.misses = Counter.builder("promotions.nearby.cache.requests").tag("result", "miss")
+                .description("Buscas de promoções próximas que foram ao banco").register(meterRegistry);
+        this.shared = Counter.builder("promotions.nearby.cache.requests").tag("result", "shared")
+                .description("Buscas de promoções próximas que esperaram a consulta de outra requisição").register(meterRegistry);
+        this.invalidations = Counter.builder("promotions.nearby.cache.invalidations")
+                .description("Entradas removidas por alteração de promoções").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("promotions.nearby.cache.size", this, NearbyPromotionCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Busca as promoções ativas num raio de 5 km do ponto informado.
+     * @return Os DTOs das promoções, com a distância até o ponto e ordenados por ela.
+     */
+    public List<PromotionDto> findNearby(double latitude, double longitude) {
+        if (!enabled) {
+            return promotionService.findNearbyPromotions(latitude, longitude, RADIUS_KM).promotions();
+        }
+
+        CellKey key = new CellKey(cellIndex(latitude), cellIndex(longitude));
+        CacheEntry cached = null;
+        Load load;
+        boolean loader = false;
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+                cached = entry;
+                load = null;
+            } else {
+                if (entry != null) {
+                    removeEntry(key);
+                }
+                load = loading.get(key);
+                if (load == null) {
+                    load = new Load();
+                    loading.put(key, load);
+                    loader = true;
+                }
+            }
+        }
+
+        if (cached != null) {
+            hits.increment();
+            return forLocation(cached, latitude, longitude);
+        }
+
+        if (!loader) {
+            shared.increment();
+            try {
+                return forLocation(load.result.join(), latitude, longitude);
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        misses.increment();
+        try {
+            CacheEntry entry = load(key);
+            load.result.complete(entry);
+            synchronized (this) {
+                // Se a célula foi invalidada durante a consulta, o resultado pode já estar desatualizado: não guarda.
+                if (!load.stale && Collections.disjoint(load.changedPromotionIds, entry.promotionIds())) {
+                    putEntry(key, entry);
+                }
+            }
+            return forLocation(entry, latitude, longitude);
+        } catch (RuntimeException e) {
+            load.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                loading.remove(key, load);
+            }
+        }
+    }
+
+    private CacheEntry load(CellKey key) {
+        double cellLatitude = cellCenter(key.row());
+        double cellLongitude = cellCenter(key.col());
+        NearbyPromotions result = promotionService.findNearbyPromotions(cellLatitude, cellLongitude, candidateRadiusKm);
+        return new CacheEntry(List.copyOf(result.candidates()), cellLatitude, cellLongitude,
+                Set.copyOf(result.promotionIds()), System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * Filtra as candidatas da célula pelo raio a partir do ponto do usuário e as ordena pela distância até ele.
+     * Os DTOs guardados não são alterados: cada chamada recebe cópias com a sua distância.
+     */
+    private List<PromotionDto> forLocation(CacheEntry entry, double latitude, double longitude) {
+        double radiusInMeters = RADIUS_KM * 1000;
+        return entry.candidates().stream()
+                .map(candidate -> new Ranked(candidate,
+                        PromotionSpatialIndex.distanceInMeters(latitude, longitude, candidate.latitude(), candidate.longitude())))
+                .filter(ranked -> ranked.distanceInMeters() <= radiusInMeters)
+                .sorted(Comparator.comparingDouble(Ranked::distanceInMeters).thenComparing(Ranked::candidate, BY_ID))
+                .map(ranked -> ranked.candidate().promotion().withDistanceInMeters(ranked.distanceInMeters()))
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        if (!enabled || event.promotionId() == null) {
+            return;
+        }
+        invalidate(event);
+    }
+
+    void invalidate(PromotionChangedEvent event) {
+        double reach = candidateRadiusKm * 1000 * RADIUS_TOLERANCE;
+        // As células ao alcance são calculadas fora do lock; null quando a região tem mais células que o cache.
+        List<CellKey> inReach = event.point() != null
+                ? cellsInReach(event.point().getY(), event.point().getX(), reach)
+                : Collections.emptyList();
+
+        synchronized (this) {
+            int before = entries.size();
+            Set<CellKey> containing = cellsByPromotion.get(event.promotionId());
+            if (containing != null) {
+                new ArrayList<>(containing).forEach(this::removeEntry);
+            }
+            if (inReach != null) {
+                inReach.forEach(this::removeEntry);
+            } else {
+                List<CellKey> affected = entries.entrySet().stream()
+                        .filter(e -> withinReach(e.getValue().latitude(), e.getValue().longitude(), event, reach))
+                        .map(Map.Entry::getKey)
+                        .toList();
+                affected.forEach(this::removeEntry);
+            }
+            invalidations.increment(before - entries.size());
+
+            // Buscas em andamento: só as células ao alcance deixam de ser compartilhadas.
+            loading.entrySet().removeIf(e -> {
+                Load load = e.getValue();
+                if (event.point() != null && withinReach(cellCenter(e.getKey().row()), cellCenter(e.getKey().col()), event, reach)) {
+                    load.stale = true;
+                    return true;
+                }
+                load.changedPromotionIds.add(event.promotionId());
+                return false;
+            });
+        }
+    }
+
+    /**
+     * @return As células cujo centro está a até {@code reach} metros do ponto, ou null se forem mais numerosas
+     * que o limite do cache (perto dos polos), caso em que é mais barato percorrer as entradas.
+     */
+    private List<CellKey> cellsInReach(double latitude, double longitude, double reach) {
+        double reachKm = reach / 1000;
+        double latitudeDelta = reachKm / KM_PER_DEGREE;
+        double widestLatitude = Math.min(90, Math.abs(latitude) + latitudeDelta);
+        double longitudeDelta = reachKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(widestLatitude)));
+        long firstRow = cellIndex(latitude - latitudeDelta);
+        long lastRow = cellIndex(latitude + latitudeDelta);
+        long firstCol = cellIndex(longitude - longitudeDelta);
+        long lastCol = cellIndex(longitude + longitudeDelta);
+        if (!Double.isFinite(longitudeDelta) || (lastRow - firstRow + 1) * (lastCol - firstCol + 1) > maxEntries) {
+            return null;
+        }
+
+        List<CellKey> keys = new ArrayList<>();
+        for (long row = firstRow; row <= lastRow; row++) {
+            for (long col = firstCol; col <= lastCol; col++) {
+                // Do outro lado do antimeridiano, a célula tem o índice da longitude equivalente em [-180, 180).
+                double cellLongitude = cellCenter(col);
+                long wrappedCol = cellLongitude >= 180 || cellLongitude < -180
+                        ? cellIndex(((cellLongitude + 180) % 360 + 360) % 360 - 180)
+                        : col;
+                if (PromotionSpatialIndex.distanceInMeters(cellCenter(row), cellCenter(wrappedCol), latitude, longitude) <= reach) {
+                    keys.add(new CellKey(row, wrappedCol));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static boolean withinReach(double latitude, double longitude, PromotionChangedEvent event, double reach) {
+        return event.point() != null
+                && PromotionSpatialIndex.distanceInMeters(latitude, longitude, event.point().getY(), event.point().getX()) <= reach;
+    }
+
+    private void putEntry(CellKey key, CacheEntry entry) {
+        CacheEntry previous = entries.put(key, entry);
+        if (previous != null) {
+            unindex(key, previous);
+        }
+        entry.promotionIds().forEach(id -> cellsByPromotion.computeIfAbsent(id, ignored -> new HashSet<>()).add(key));
+    }
+
+    private void removeEntry(CellKey key) {
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            unindex(key, removed);
+        }
+    }
+
+    private void unindex(CellKey key, CacheEntry entry) {
+        for (Long id : entry.promotionIds()) {
+            Set<CellKey> cells = cellsByPromotion.get(id);
+            if (cells != null && cells.remove(key) && cells.isEmpty()) {
+                cellsByPromotion.remove(id);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    private double cellCenter(long index) {
+        return (index + 0.5) * cellSizeDegrees;
+    }
+}
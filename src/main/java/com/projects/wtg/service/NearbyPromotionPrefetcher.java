@@ -0,0 +1,139 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.dto.PromotionDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Busca antecipada das promoções próximas devolvidas no login, no login com Google e no cadastro.
+ *
+ * A busca começa numa virtual thread logo depois que o usuário é autenticado (ou cadastrado), em paralelo com
+ * a carga da conta, que continua na thread da requisição (onde está o contexto de persistência). Assim, logins
+ * que falham não chegam a consultar o banco. No máximo max-concurrent buscas rodam ao mesmo tempo, para que elas
+ * não tomem todas as conexões do pool; sem vaga, a resposta sai sem as promoções.
+ *
+ * Quem monta a resposta espera o resultado até o orçamento de budget-ms contado desde o início da busca;
+ * se ele estourar, a resposta sai sem as promoções e com nearbyPromotionsOmitted=true. A busca atrasada não
+ * é interrompida (interromper uma virtual thread bloqueada no socket do JDBC fecharia a conexão): ela termina
+ * em segundo plano e aquece o {@link NearbyPromotionCache} para o próximo login.
+ */
+@Component
+public class NearbyPromotionPrefetcher implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearbyPromotionPrefetcher.class);
+
+    private final NearbyPromotionCache nearbyPromotionCache;
+    private final long budgetNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final Counter omitted;
+
+    public NearbyPromotionPrefetcher(NearbyPromotionCache nearbyPromotionCache,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${login.nearby-promotions.budget-ms:300}") long budgetMillis,
+                                     @Value("${login.nearby-promotions.max-concurrent:16}") int maxConcurrent) {
+        this.nearbyPromotionCache = nearbyPromotionCache;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.permits = new Semaphore(maxConcurrent);
+        this.omitted = Counter.builder("login.nearby-promotions.omitted")
+                .description("Respostas de login/cadastro enviadas sem as promoções próximas por estouro do orçamento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Busca em andamento. Sem coordenadas, não há busca e {@link #await()} devolve null.
+     */
+    public final class Prefetch {
+
+        private final Future<List<PromotionDto>> future;
+        private final long deadline;
+        private boolean omittedResult;
+
+        private Prefetch(Future<List<PromotionDto>> future, boolean omittedResult) {
+            this.future = future;
+            this.deadline = System.nanoTime() + budgetNanos;
+            this.omittedResult = omittedResult;
+        }
+
+        /**
+         * Espera o resultado até o fim do orçamento.
+         * @return As promoções próximas, ou null se não havia coordenadas ou o orçamento estourou.
+         */
+        public List<PromotionDto> await() {
+            if (future == null) {
+                return null;
+            }
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                logger.debug("Promoções próximas fora do orçamento; resposta enviada sem elas.");
+            } catch (ExecutionException e) {
+                logger.warn("Falha ao buscar as promoções próximas: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            omittedResult = true;
+            omitted.increment();
+            return null;
+        }
+
+        /**
+         * @return true se havia coordenadas, mas as promoções não entraram na resposta. Null caso contrário,
+         * para que o campo não apareça no JSON.
+         */
+        public Boolean omitted() {
+            return omittedResult ? Boolean.TRUE : null;
+        }
+
+        /**
+         * Descarta o resultado quando a resposta não vai usá-lo. Uma busca que já começou não é interrompida.
+         */
+        public void cancel() {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    public Prefetch start(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return new Prefetch(null, false);
+        }
+        if (!permits.tryAcquire()) {
+            logger.debug("Limite de buscas antecipadas simultâneas atingido; resposta sem as promoções próximas.");
+            omitted.increment();
+            return new Prefetch(null, true);
+        }
+        try {
+            return new Prefetch(executor.submit(() -> {
+                try {
+                    return nearbyPromotionCache.findNearby(latitude, longitude);
+                } finally {
+                    permits.release();
+                }
+            }), false);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
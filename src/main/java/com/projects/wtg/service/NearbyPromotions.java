@@ -0,0 +1,23 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.dto.PromotionDto;
+
+import java.util.List;
+
+/**
+ * Resultado de uma busca de promoções próximas: cada DTO exibido junto com o ID e as coordenadas da promoção
+ * que o originou, na ordem da busca.
+ */
+public record NearbyPromotions(List<Candidate> candidates) {
+
+    public record Candidate(Long id, double latitude, double longitude, PromotionDto promotion) {
+    }
+
+    public List<Long> promotionIds() {
+        return candidates.stream().map(Candidate::id).toList();
+    }
+
+    public List<PromotionDto> promotions() {
+        return candidates.stream().map(Candidate::promotion).toList();
+    }
+}
@@ -0,0 +1,29 @@
+package com.projects.wtg.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+
+/**
+ * Evento do outbox entregue aos assinantes da aplicação ({@code @EventListener OutboxMessage}) pelo {@link OutboxService},
+ * depois do commit da transação que o gravou.
+ *
+ * A entrega é em ordem de commit por agregado (tipo e aggregateId) e pelo menos uma vez: o mesmo evento pode chegar
+ * de novo (por exemplo, se a instância cair antes de marcá-lo como publicado), então os assinantes devem ser
+ * idempotentes. O payload pode ser convertido com {@code objectMapper.treeToValue(message.payload(), ...)} para os
+ * records abaixo.
+ */
+public record OutboxMessage(long id, String type, Long aggregateId, JsonNode payload, Instant createdAt) {
+
+    public static final String PROMOTION_IMAGE_DELETED = "promotion-image.deleted";
+
+    /**
+     * Payload de {@link #PROMOTION_IMAGE_DELETED}; o agregado é a promoção.
+     */
+    public record PromotionImageDeleted(Long imageId, Long promotionId, String s3Key) {
+    }
+
+    public boolean is(String eventType) {
+        return type.equals(eventType);
+    }
+}
@@ -0,0 +1,257 @@
+package com.projects.wtg.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbox transacional (tabela appwtg.outbox_event) dos efeitos colaterais que precisam sobreviver a uma queda
+ * entre o commit e a execução, como apagar do S3 o arquivo de uma imagem removida.
+ *
+ * Escrita: {@link #append} acumula os eventos da transação corrente e os grava num único lote JDBC logo antes
+ * do commit, na mesma conexão; se a transação for desfeita, os eventos somem com ela. Só são gravados eventos que
+ * têm um assinante de {@link OutboxMessage}: os caches em memória (índice espacial, promoções próximas, identidades)
+ * precisam ser atualizados em todas as instâncias e continuam ouvindo os eventos da aplicação diretamente após o commit.
+ *
+ * Ordem: o lote é gravado depois do flush do Hibernate e sob um advisory lock da transação, que só é liberado no
+ * commit. As transações que gravam no outbox fazem o INSERT e o commit uma de cada vez, então os ids (bigserial)
+ * seguem a ordem de commit e nenhum id menor fica visível depois de um maior.
+ *
+ * Publicação: o job outbox-publish lê os eventos pendentes em ordem de id, em lotes de batch-size, e os entrega
+ * como {@link OutboxMessage} aos assinantes da aplicação, fora da transação que os gravou. Só a instância com o lease
+ * do job publica. A entrega é ordenada por agregado (tipo do evento e aggregate_id): se um assinante falhar, o evento
+ * é marcado com o erro e os eventos seguintes do mesmo agregado esperam a próxima execução, que tenta o que falhou
+ * primeiro; os demais agregados seguem. Depois de max-attempts tentativas o evento é descartado (marcado como
+ * publicado, com o último erro) e o agregado volta a andar. Um evento cujo payload não pode ser lido é descartado
+ * na hora. A entrega é pelo menos uma vez.
+ *
+ * Retenção: o job outbox-retention apaga os eventos publicados há mais de retention-days dias.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    static final String PUBLISH_JOB = "outbox-publish";
+    static final String RETENTION_JOB = "outbox-retention";
+
+    // Chave do advisory lock que serializa o INSERT e o commit das transações que gravam no outbox.
+    private static final long WRITE_LOCK_KEY = 7_160_001L;
+    private static final String WRITE_LOCK = "SELECT pg_advisory_xact_lock(?)";
+    private static final String INSERT = "INSERT INTO appwtg.outbox_event (event_type, aggregate_id, payload) VALUES (?, ?, CAST(? AS jsonb))";
+    private static final String SELECT_PENDING = "SELECT id, event_type, aggregate_id, CAST(payload AS text) AS payload, created_at, attempts " +
+            "FROM appwtg.outbox_event WHERE published_at IS NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final String MARK_PUBLISHED = "UPDATE appwtg.outbox_event SET published_at = now() WHERE id = ?";
+    private static final String MARK_FAILED = "UPDATE appwtg.outbox_event SET attempts = attempts + 1, last_error = ?, " +
+            "published_at = CASE WHEN attempts + 1 >= ? THEN now() END WHERE id = ?";
+    private static final String MARK_DISCARDED = "UPDATE appwtg.outbox_event SET attempts = attempts + 1, last_error = ?, " +
+            "published_at = now() WHERE id = ?";
+    private static final String PURGE = "DELETE FROM appwtg.outbox_event WHERE id IN (SELECT id FROM appwtg.outbox_event " +
+            "WHERE published_at < now() - ? * INTERVAL '1 day' LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLeaseService jobLeaseService;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final int retentionDays;
+
+    public OutboxService(JdbcTemplate jdbcTemplate,
+                         EntityManager entityManager,
+                         ObjectMapper objectMapper,
+                         ApplicationEventPublisher eventPublisher,
+                         JobLeaseService jobLeaseService,
+                         MeterRegistry meterRegistry,
+                         @Value("${outbox.batch-size:200}") int batchSize,
+                         @Value("${outbox.max-attempts:10}") int maxAttempts,
+                         @Value("${outbox.retention-days:7}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.jobLeaseService = jobLeaseService;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Eventos gravados pela transação corrente, inseridos num único lote antes do commit.
+     */
+    private final class PendingEvents implements TransactionSynchronization {
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // O flush vem antes do lock: com o lock, a transação só grava o outbox e faz o commit, sem esperar
+            // por locks de linha de outra transação que esteja na fila do mesmo advisory lock.
+            entityManager.flush();
+            jdbcTemplate.queryForList(WRITE_LOCK, WRITE_LOCK_KEY);
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(OutboxService.this);
+        }
+    }
+
+    /**
+     * Grava um evento no outbox como parte da transação corrente.
+     * @throws IllegalStateException se não houver transação ativa.
+     */
+    public void append(String type, Long aggregateId, Object payload) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Eventos do outbox só podem ser gravados dentro de uma transação.");
+        }
+        PendingEvents pending = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEvents();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        try {
+            pending.rows.add(new Object[]{type, aggregateId, objectMapper.writeValueAsString(payload)});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar o evento " + type + " do outbox.", e);
+        }
+    }
+
+    private record PendingMessage(OutboxMessage message, int attempts) {
+    }
+
+    private record AggregateKey(String type, Long aggregateId) {
+    }
+
+    /**
+     * Publica os eventos pendentes, se esta instância conseguir o lease do job.
+     * Um evento que falha fica para a próxima execução e segura os eventos seguintes do mesmo agregado.
+     * Roda a cada outbox.poll-interval-ms (registrado em ScheduledJobsConfig).
+     * @return A quantidade de eventos publicados.
+     */
+    public int publishPending() {
+        Optional<JobLeaseService.JobLease> lease = jobLeaseService.tryAcquire(PUBLISH_JOB);
+        if (lease.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        Set<AggregateKey> blocked = new HashSet<>();
+        long lastId = 0;
+        try (JobLeaseService.JobLease held = lease.get()) {
+            List<Map<String, Object>> rows;
+            do {
+                rows = jdbcTemplate.queryForList(SELECT_PENDING, lastId, batchSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                lastId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+                List<Object[]> published = new ArrayList<>(rows.size());
+                for (PendingMessage pending : rows.stream().map(this::toPendingMessage).flatMap(Optional::stream).toList()) {
+                    OutboxMessage message = pending.message();
+                    AggregateKey aggregate = message.aggregateId() != null ? new AggregateKey(message.type(), message.aggregateId()) : null;
+                    if (aggregate != null && blocked.contains(aggregate)) {
+                        continue;
+                    }
+                    try {
+                        eventPublisher.publishEvent(message);
+                    } catch (RuntimeException e) {
+                        if (!markFailed(pending, e) && aggregate != null) {
+                            blocked.add(aggregate);
+                        }
+                        continue;
+                    }
+                    published.add(new Object[]{message.id()});
+                    meterRegistry.counter("outbox.events.published", "type", message.type()).increment();
+                }
+                if (!published.isEmpty()) {
+                    jdbcTemplate.batchUpdate(MARK_PUBLISHED, published);
+                }
+                total += published.size();
+            } while (rows.size() == batchSize && held.isHeld());
+        }
+        return total;
+    }
+
+    /**
+     * @return true se o evento foi descartado por ter esgotado as tentativas.
+     */
+    private boolean markFailed(PendingMessage pending, RuntimeException e) {
+        OutboxMessage message = pending.message();
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        jdbcTemplate.update(MARK_FAILED, error.length() > 1000 ? error.substring(0, 1000) : error, maxAttempts, message.id());
+        meterRegistry.counter("outbox.events.failed", "type", message.type()).increment();
+        if (pending.attempts() + 1 >= maxAttempts) {
+            logger.error("Evento {} do outbox ({}) descartado após {} tentativas.", message.id(), message.type(), maxAttempts, e);
+            return true;
+        }
+        logger.warn("Falha ao publicar o evento {} do outbox ({}), nova tentativa na próxima execução: {}",
+                message.id(), message.type(), e.getMessage());
+        return false;
+    }
+
+    /**
+     * @return O evento da linha, ou vazio se o payload não puder ser lido; nesse caso o evento é descartado,
+     * já que nenhuma nova tentativa vai conseguir lê-lo.
+     */
+    private Optional<PendingMessage> toPendingMessage(Map<String, Object> row) {
+        try {
+            OutboxMessage message = new OutboxMessage(
+                    ((Number) row.get("id")).longValue(),
+                    (String) row.get("event_type"),
+                    row.get("aggregate_id") != null ? ((Number) row.get("aggregate_id")).longValue() : null,
+                    objectMapper.readTree((String) row.get("payload")),
+                    ((Timestamp) row.get("created_at")).toInstant());
+            return Optional.of(new PendingMessage(message, ((Number) row.get("attempts")).intValue()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            Object id = row.get("id");
+            String error = "Payload inválido: " + e.getClass().getSimpleName() + ": " + e.getMessage();
+            jdbcTemplate.update(MARK_DISCARDED, error.length() > 1000 ? error.substring(0, 1000) : error, id);
+            meterRegistry.counter("outbox.events.failed", "type", String.valueOf(row.get("event_type"))).increment();
+            logger.error("Evento {} do outbox ({}) descartado: payload inválido.", id, row.get("event_type"), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Apaga, em lotes, os eventos publicados há mais de outbox.retention-days dias.
+     * Roda a cada outbox.retention-interval-ms (registrado em ScheduledJobsConfig).
+     * @return A quantidade de eventos apagados.
+     */
+    public int purgePublished() {
+        AtomicInteger purged = new AtomicInteger();
+        jobLeaseService.runExclusive(RETENTION_JOB, () -> {
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(PURGE, retentionDays, batchSize);
+                purged.addAndGet(deleted);
+            } while (deleted == batchSize);
+        });
+        if (purged.get() > 0) {
+            logger.info("Retenção do outbox: {} eventos publicados apagados.", purged.get());
+        }
+        return purged.get();
+    }
+}
@@ -0,0 +1,160 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.config.ScheduledJobRunner;
+import com.projects.wtg.repository.UserPlanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispara as transições de planos (término dos ativos e início dos prontos para ativar) no horário exato,
+ * em vez de esperar a execução horária do {@link PromotionSchedulerService}.
+ *
+ * Uma DelayQueue guarda os próximos instantes de transição, agrupados em intervalos de resolution-seconds.
+ * Só a próxima janela (window-minutes) é carregada do banco, e a carga é refeita a cada reload-interval-ms;
+ * planos criados ou alterados nesse meio tempo entram na fila pelo {@link UserPlanChangedEvent}.
+ * Quando um instante vence, uma thread dedicada dispara o job sob demanda {@value #JOB_NAME} (registrado em
+ * ScheduledJobsConfig), que roda as atualizações em lote do agendador pelo {@link ScheduledJobRunner}, com timeout,
+ * sem sobreposição e com as métricas dos jobs, e processa tudo o que já venceu. A execução horária continua como
+ * rede de segurança.
+ */
+@Component
+public class PlanTransitionTimer implements DisposableBean {
+
+    public static final String JOB_NAME = "plan-transition-deadline";
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanTransitionTimer.class);
+
+    private record Deadline(long epochMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(epochMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(epochMillis, ((Deadline) other).epochMillis);
+        }
+    }
+
+    private final ScheduledJobRunner jobRunner;
+    private final UserPlanRepository userPlanRepository;
+    private final boolean enabled;
+    private final Duration window;
+    private final long resolutionMillis;
+
+    private final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+    private final Thread timerThread;
+
+    public PlanTransitionTimer(ScheduledJobRunner jobRunner,
+                               UserPlanRepository userPlanRepository,
+                               @Value("${plans.timer.enabled:true}") boolean enabled,
+                               @Value("${plans.timer.window-minutes:60}") long windowMinutes,
+                               @Value("${plans.timer.resolution-seconds:15}") long resolutionSeconds) {
+        this.jobRunner = jobRunner;
+        this.userPlanRepository = userPlanRepository;
+        this.enabled = enabled;
+        this.window = Duration.ofMinutes(windowMinutes);
+        this.resolutionMillis = Math.max(1, resolutionSeconds) * 1000;
+        this.timerThread = new Thread(this::fireDeadlines, "plan-transition-timer");
+        this.timerThread.setDaemon(true);
+    }
+
+    /**
+     * Na inicialização, processa o que venceu enquanto a aplicação estava parada e carrega a primeira janela.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        timerThread.start();
+        schedule(System.currentTimeMillis());
+        loadWindow();
+    }
+
+    /**
+     * Carrega os instantes de transição da próxima janela. Roda a cada plans.timer.reload-interval-ms
+     * (registrada em ScheduledJobsConfig), intervalo menor que a janela, para que as janelas se sobreponham.
+     * @return A quantidade de instantes novos na fila.
+     */
+    public int loadWindow() {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDateTime from = LocalDateTime.now();
+        LocalDateTime to = from.plus(window);
+        int before = scheduled.size();
+        userPlanRepository.findActiveFinishTimesBetween(from, to).forEach(this::schedule);
+        userPlanRepository.findReadyStartTimesBetween(from, to).forEach(this::schedule);
+        int added = scheduled.size() - before;
+        logger.debug("Janela de transições de planos carregada: {} novos instantes até {}.", added, to);
+        return Math.max(0, added);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserPlanChanged(UserPlanChangedEvent event) {
+        LocalDateTime at = event.nextTransitionAt();
+        if (!enabled || at == null || at.isAfter(LocalDateTime.now().plus(window))) {
+            // Fora da janela: entra na fila por uma das próximas cargas.
+            return;
+        }
+        schedule(at);
+    }
+
+    public int size() {
+        return scheduled.size();
+    }
+
+    private void schedule(LocalDateTime at) {
+        schedule(at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private void schedule(long epochMillis) {
+        // Arredonda para cima: a transição nunca roda antes do instante, e planos próximos compartilham um disparo.
+        long bucket = Math.floorDiv(epochMillis + resolutionMillis - 1, resolutionMillis) * resolutionMillis;
+        if (scheduled.add(bucket)) {
+            deadlines.add(new Deadline(bucket));
+        }
+    }
+
+    private void fireDeadlines() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Deadline deadline = deadlines.take();
+                scheduled.remove(deadline.epochMillis());
+                // Instantes vencidos juntos (por exemplo após uma pausa da JVM) são atendidos por uma única execução.
+                Deadline next;
+                while ((next = deadlines.poll()) != null) {
+                    scheduled.remove(next.epochMillis());
+                }
+                jobRunner.trigger(JOB_NAME);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Erro ao processar transições de planos: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        timerThread.interrupt();
+    }
+}
@@ -0,0 +1,21 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.model.Promotion;
+import com.projects.wtg.model.PromotionType;
+import org.locationtech.jts.geom.Point;
+
+/**
+ * Evento publicado sempre que uma promoção é criada, alterada ou removida.
+ * Os valores são capturados no momento da publicação para que os ouvintes
+ * (executados após o commit) não precisem tocar na entidade.
+ */
+public record PromotionChangedEvent(Long promotionId, Point point, PromotionType promotionType, Boolean active, boolean removed) {
+
+    public static PromotionChangedEvent of(Promotion promotion) {
+        return new PromotionChangedEvent(promotion.getId(), promotion.getPoint(), promotion.getPromotionType(), promotion.getActive(), false);
+    }
+
+    public static PromotionChangedEvent removed(Promotion promotion) {
+        return new PromotionChangedEvent(promotion.getId(), promotion.getPoint(), promotion.getPromotionType(), promotion.getActive(), true);
+    }
+}
@@ -0,0 +1,59 @@
+package com.projects.wtg.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco da paginação por keyset das buscas de promoções.
+ * Guarda a chave de ordenação da última promoção da página: (distância, id) nas buscas
+ * geográficas ou (updatedAt, id) nas demais. Para o cliente é apenas uma string base64.
+ */
+public record PromotionCursor(Double distance, LocalDateTime updatedAt, Long id) {
+
+    private static final String DISTANCE_PREFIX = "d";
+    private static final String UPDATED_AT_PREFIX = "u";
+    private static final String SEPARATOR = "|";
+
+    public static PromotionCursor afterDistance(double distance, Long id) {
+        return new PromotionCursor(distance, null, id);
+    }
+
+    public static PromotionCursor afterUpdatedAt(LocalDateTime updatedAt, Long id) {
+        return new PromotionCursor(null, updatedAt, id);
+    }
+
+    public boolean isDistanceCursor() {
+        return distance != null;
+    }
+
+    public String encode() {
+        String raw = isDistanceCursor()
+                ? DISTANCE_PREFIX + SEPARATOR + distance + SEPARATOR + id
+                : UPDATED_AT_PREFIX + SEPARATOR + updatedAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor recebido do cliente.
+     * @throws IllegalArgumentException se o cursor estiver malformado.
+     */
+    public static PromotionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Cursor de paginação inválido.");
+            }
+            Long id = Long.valueOf(parts[2]);
+            return switch (parts[0]) {
+                case DISTANCE_PREFIX -> afterDistance(Double.parseDouble(parts[1]), id);
+                case UPDATED_AT_PREFIX -> afterUpdatedAt(LocalDateTime.parse(parts[1]), id);
+                default -> throw new IllegalArgumentException("Cursor de paginação inválido.");
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido.");
+        }
+    }
+}
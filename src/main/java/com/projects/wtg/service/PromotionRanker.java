@@ -0,0 +1,20 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.repository.PromotionCandidate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estratégia de pontuação do ranking de relevância das buscas de promoções.
+ * Para trocar o ranking, basta registrar outro bean que implemente esta interface: o padrão
+ * ({@link WeightedPromotionRanker}) só é criado quando nenhum outro existe.
+ */
+public interface PromotionRanker {
+
+    /**
+     * Calcula a relevância de uma promoção; quanto maior, mais acima ela aparece.
+     * @param candidate Os dados da promoção candidata.
+     * @param now O instante da busca, o mesmo para todas as candidatas.
+     */
+    double score(PromotionCandidate candidate, LocalDateTime now);
+}
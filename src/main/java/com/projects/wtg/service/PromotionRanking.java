@@ -0,0 +1,54 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.repository.PromotionCandidate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Etapa de ranking das buscas de promoções: pontua as candidatas com o {@link PromotionRanker} configurado
+ * e mantém só as k melhores num heap limitado, sem ordenar (nem guardar) o conjunto inteiro.
+ * Custo O(n log k) em tempo e O(k) em memória, o que mantém buscas com raios grandes baratas.
+ */
+@Component
+public class PromotionRanking {
+
+    private record Scored(PromotionCandidate candidate, double score) {
+    }
+
+    // Maior pontuação primeiro; no empate, a mais próxima e depois o menor id, para um resultado estável.
+    private static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble(Scored::score).reversed()
+            .thenComparing(scored -> scored.candidate().distanceInMeters(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(scored -> scored.candidate().id());
+
+    private final PromotionRanker ranker;
+
+    public PromotionRanking(PromotionRanker ranker) {
+        this.ranker = ranker;
+    }
+
+    /**
+     * Seleciona as {@code limit} candidatas mais relevantes.
+     * @return As candidatas escolhidas, da mais para a menos relevante.
+     */
+    public List<PromotionCandidate> top(Stream<PromotionCandidate> candidates, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        // Heap invertido: o topo é sempre a pior entre as k mantidas, descartada quando chega uma melhor.
+        PriorityQueue<Scored> heap = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        candidates.forEach(candidate -> {
+            heap.offer(new Scored(candidate, ranker.score(candidate, now)));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        });
+        List<Scored> best = new ArrayList<>(heap);
+        best.sort(BEST_FIRST);
+        return best.stream().map(Scored::candidate).collect(Collectors.toList());
+    }
+}
@@ -1,142 +1,178 @@
 package com.projects.wtg.service;
 
-import com.projects.wtg.model.*;
+import com.projects.wtg.model.PlanStatus;
+import com.projects.wtg.repository.PromotionRepository;
+import com.projects.wtg.repository.PromotionStatusChange;
 import com.projects.wtg.repository.UserPlanRepository;
+import com.projects.wtg.repository.UserPlanTransition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+/**
+ * Gerenciamento horário dos planos de usuário: expira os planos ativos vencidos (desativando as promoções dos donos)
+ * e ativa o plano pronto mais antigo de cada usuário sem plano ativo.
+ *
+ * O trabalho é feito com UPDATEs em SQL nativo, em lotes de até chunk-size planos. Cada lote roda na sua própria
+ * transação curta, então uma virada de mês com milhares de planos vencidos não segura uma transação enorme,
+ * e os eventos de alteração das promoções são entregues a cada lote confirmado.
+ *
+ * As transições são disparadas no horário exato pelo {@link PlanTransitionTimer}; a execução horária
+ * continua como rede de segurança.
+ *
+ * Com várias instâncias, cada partição dos planos ({@code user_id % partitions}) é protegida por um lease
+ * ({@link JobLeaseService}): só uma instância processa cada partição por vez. Com plans.scheduler.partitions > 1,
+ * as instâncias dividem as partições entre si, começando cada uma por uma partição diferente, e uma instância
+ * sozinha processa todas.
+ */
 @Service
 public class PromotionSchedulerService {
 
     private static final Logger logger = LoggerFactory.getLogger(PromotionSchedulerService.class);
 
     private final UserPlanRepository userPlanRepository;
-
-    public PromotionSchedulerService(UserPlanRepository userPlanRepository) {
+    private final PromotionRepository promotionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLeaseService jobLeaseService;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final int partitions;
+    private final ReentrantLock transitionLock = new ReentrantLock();
+
+    public PromotionSchedulerService(UserPlanRepository userPlanRepository,
+                                     PromotionRepository promotionRepository,
+                                     ApplicationEventPublisher eventPublisher,
+                                     PlatformTransactionManager transactionManager,
+                                     JobLeaseService jobLeaseService,
+                                     @Value("${plans.scheduler.chunk-size:500}") int chunkSize,
+                                     @Value("${plans.scheduler.partitions:1}") int partitions) {
         this.userPlanRepository = userPlanRepository;
+        this.promotionRepository = promotionRepository;
+        this.eventPublisher = eventPublisher;
+        this.jobLeaseService = jobLeaseService;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.partitions = Math.max(1, partitions);
     }
 
-    @Scheduled(cron = "0 0 * * * *")
-    @Transactional
-    public void manageUserPlans() {
+    /**
+     * Execução horária (plans.scheduler.cron, registrada em ScheduledJobsConfig).
+     * @return A quantidade de planos expirados e ativados.
+     */
+    public int manageUserPlans() {
         logger.info("Iniciando tarefa de gerenciamento de planos de usuário...");
-        LocalDateTime now = LocalDateTime.now();
-
-        expireActivePlans(now);
-        activateReadyPlans(now);
-
-        logger.info("Gerenciamento de planos de usuário concluído.");
+        return transitionDuePlans(LocalDateTime.now());
     }
 
-    private void expireActivePlans(LocalDateTime now) {
-        List<UserPlan> expiredPlans = userPlanRepository.findExpiredActivePlans(now);
-        if (expiredPlans.isEmpty()) {
-            return;
-        }
-
-        logger.info("Encontrados {} planos expirados para desativar.", expiredPlans.size());
-
-        for (UserPlan userPlan : expiredPlans) {
-            userPlan.setPlanStatus(PlanStatus.INACTIVE);
-
-            if (userPlan.getUser().getPromotions() != null) {
-                userPlan.getUser().getPromotions().forEach(promo -> {
-                    promo.setActive(false);
-                    promo.setAllowUserActivePromotion(false);
-                });
+    /**
+     * Expira e ativa todos os planos cujo instante de transição já chegou, nas partições cujo lease esta
+     * instância conseguir. Execuções do timer e da tarefa horária na mesma instância não se sobrepõem.
+     * @return A quantidade de planos expirados e ativados.
+     */
+    public int transitionDuePlans(LocalDateTime now) {
+        transitionLock.lock();
+        int total = 0;
+        try {
+            int offset = Math.floorMod(jobLeaseService.getNodeId().hashCode(), partitions);
+            for (int i = 0; i < partitions; i++) {
+                int partition = (offset + i) % partitions;
+                Optional<JobLeaseService.JobLease> lease = jobLeaseService.tryAcquire(jobName(partition));
+                if (lease.isEmpty()) {
+                    continue;
+                }
+                try (JobLeaseService.JobLease held = lease.get()) {
+                    int expired = expireActivePlans(now, partition, held);
+                    int activated = activateReadyPlans(now, partition, held);
+                    total += expired + activated;
+                    if (expired > 0 || activated > 0) {
+                        logger.info("Gerenciamento de planos de usuário concluído (partição {}/{}): {} planos expirados, {} planos ativados.",
+                                partition, partitions, expired, activated);
+                    }
+                }
             }
+        } finally {
+            transitionLock.unlock();
         }
-        userPlanRepository.saveAll(expiredPlans);
+        return total;
     }
 
-    private void activateReadyPlans(LocalDateTime now) {
-        List<UserPlan> plansReadyForCheck = userPlanRepository.findReadyToActivatePlans(now);
-        if (plansReadyForCheck.isEmpty()) {
-            return;
-        }
-
-        logger.info("Encontrados {} planos prontos para verificação.", plansReadyForCheck.size());
-
-        Map<User, List<UserPlan>> plansByUser = plansReadyForCheck.stream()
-                .collect(Collectors.groupingBy(UserPlan::getUser));
-
-        List<UserPlan> plansToSave = new ArrayList<>();
-
-        for (Map.Entry<User, List<UserPlan>> entry : plansByUser.entrySet()) {
-            User user = entry.getKey();
-            List<UserPlan> readyPlans = entry.getValue();
-
-            boolean hasActivePlan = user.getUserPlans().stream()
-                    .anyMatch(p -> p.getPlanStatus() == PlanStatus.ACTIVE);
-
-            if (hasActivePlan) {
-                continue;
-            }
-
-            Optional<UserPlan> planToProcessOpt = readyPlans.stream()
-                    .min(Comparator.comparing(UserPlan::getStartedAt));
-
-            if (planToProcessOpt.isPresent()) {
-                UserPlan planToProcess = planToProcessOpt.get();
-
-                // --- CORREÇÃO: Adicionada a verificação do finishAt ---
-                // Se o plano já tem uma data de término e essa data já passou, ele é inativado.
-                if (planToProcess.getFinishAt() != null && planToProcess.getFinishAt().isBefore(now)) {
-                    planToProcess.setPlanStatus(PlanStatus.INACTIVE);
-                    logger.info("Plano ID {} para o usuário ID {} foi inativado pois sua data de término já passou.", planToProcess.getPlan().getId(), user.getId());
-                } else {
-                    // Caso contrário, o plano é ativado.
-                    planToProcess.setPlanStatus(PlanStatus.ACTIVE);
-
-                    if (planToProcess.getStartedAt() == null || planToProcess.getStartedAt().isBefore(now)) {
-                        planToProcess.setStartedAt(now);
-                    }
-
-                    setFinishAtByPlanType(planToProcess, planToProcess.getStartedAt());
+    private String jobName(int partition) {
+        return partitions == 1 ? "user-plan-transitions" : "user-plan-transitions-" + partition + "-of-" + partitions;
+    }
 
-                    if (user.getPromotions() != null) {
-                        user.getPromotions().forEach(promo -> promo.setAllowUserActivePromotion(true));
-                    }
-                    logger.info("Plano ID {} ativado para o usuário ID: {}", planToProcess.getPlan().getId(), user.getId());
+    /**
+     * @return A quantidade de planos expirados.
+     */
+    int expireActivePlans(LocalDateTime now, int partition, JobLeaseService.JobLease lease) {
+        int total = 0;
+        int processed;
+        do {
+            processed = chunkTransaction.execute(status -> {
+                List<UserPlanTransition> expiredPlans = userPlanRepository.expireActivePlans(now, chunkSize, partitions, partition);
+                if (expiredPlans.isEmpty()) {
+                    return 0;
                 }
-                plansToSave.add(planToProcess);
-            }
-        }
+                publishPlanChanges(expiredPlans);
+                Set<Long> userIds = expiredPlans.stream().map(UserPlanTransition::userId).collect(Collectors.toSet());
+                List<PromotionStatusChange> promotions = promotionRepository.deactivatePromotionsOfUsers(userIds, now);
+                promotions.forEach(promotion -> eventPublisher.publishEvent(new PromotionChangedEvent(
+                        promotion.id(), promotion.point(), promotion.promotionType(), promotion.active(), false)));
+
+                logger.info("Lote de expiração: {} planos inativados, {} promoções desativadas.", expiredPlans.size(), promotions.size());
+                return expiredPlans.size();
+            });
+            total += processed;
+        } while (processed == chunkSize && lease.isHeld());
+        return total;
+    }
 
-        if (!plansToSave.isEmpty()) {
-            userPlanRepository.saveAll(plansToSave);
-        }
+    /**
+     * Cada lote tira os planos processados do status pronto para ativar, então o laço termina quando
+     * não houver mais usuário sem plano ativo com plano pronto.
+     * @return A quantidade de planos ativados.
+     */
+    int activateReadyPlans(LocalDateTime now, int partition, JobLeaseService.JobLease lease) {
+        int total = 0;
+        int processed;
+        do {
+            int[] counts = chunkTransaction.execute(status -> {
+                List<UserPlanTransition> plans = userPlanRepository.activateReadyPlans(now, chunkSize, partitions, partition);
+                if (plans.isEmpty()) {
+                    return new int[]{0, 0};
+                }
+                publishPlanChanges(plans);
+                Set<Long> activatedUserIds = plans.stream()
+                        .filter(plan -> plan.status() == PlanStatus.ACTIVE)
+                        .map(UserPlanTransition::userId)
+                        .collect(Collectors.toSet());
+                int promotions = promotionRepository.allowPromotionsOfUsers(activatedUserIds, now);
+
+                logger.info("Lote de ativação: {} planos ativados, {} inativados por término já vencido, {} promoções liberadas.",
+                        activatedUserIds.size(), plans.size() - activatedUserIds.size(), promotions);
+                return new int[]{plans.size(), activatedUserIds.size()};
+            });
+            processed = counts[0];
+            total += counts[1];
+        } while (processed == chunkSize && lease.isHeld());
+        return total;
     }
 
-    private void setFinishAtByPlanType(UserPlan userPlan, LocalDateTime startDate) {
-        if (startDate == null) {
-            userPlan.setFinishAt(null);
-            return;
-        }
-        switch (userPlan.getPlan().getType()) {
-            case FREE:
-                userPlan.setFinishAt(startDate.plusHours(24));
-                break;
-            case MONTHLY:
-                userPlan.setFinishAt(startDate.plusDays(30));
-                break;
-            case PARTNER:
-                userPlan.setFinishAt(startDate.plusYears(1));
-                break;
-            default:
-                userPlan.setFinishAt(null);
-                break;
-        }
+    /**
+     * Os UPDATEs em lote não trazem as datas dos planos: os eventos informam só o novo status.
+     */
+    private void publishPlanChanges(List<UserPlanTransition> transitions) {
+        transitions.forEach(plan -> eventPublisher.publishEvent(
+                new UserPlanChangedEvent(plan.userId(), plan.planId(), plan.status(), null, null)));
     }
-}
\ No newline at end of file
+}
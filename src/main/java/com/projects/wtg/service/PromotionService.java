@@ -9,6 +9,8 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -20,6 +22,7 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PromotionService {
@@ -31,10 +34,29 @@ public class PromotionService {
     private final PlanRepository planRepository;
     private final S3Service s3Service;
     private final PromotionImageRepository promotionImageRepository;
+    private final PromotionSpatialIndex promotionSpatialIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PromotionRanking promotionRanking;
+    private final IdentityResolver identityResolver;
+    private final OutboxService outboxService;
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    private static final int MAX_NEAREST = 200;
+    private static final int DEFAULT_RANKED_RESULTS = 50;
+    private static final int RANKING_FETCH_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_VIEWPORT_LIMIT = 200;
+    private static final int MAX_VIEWPORT_LIMIT = 500;
+    private static final int MAX_ZOOM = 22;
+    private static final int CLUSTER_CELL_PIXELS = 64;
+    private static final int MAX_CLUSTER_CELLS = 10_000;
+    // Limite de IDs por IN-list ao carregar endereço e imagens.
+    private static final int ASSOCIATION_FETCH_BATCH = 500;
 
     // --- CORREÇÃO APLICADA AQUI ---
     // O construtor foi atualizado para receber TODAS as dependências necessárias.
-    public PromotionService(PromotionRepository promotionRepository, AccountRepository accountRepository, UserPlanRepository userPlanRepository, UserRepository userRepository, PlanRepository planRepository, S3Service s3Service, PromotionImageRepository promotionImageRepository) {
+    public PromotionService(PromotionRepository promotionRepository, AccountRepository accountRepository, UserPlanRepository userPlanRepository, UserRepository userRepository, PlanRepository planRepository, S3Service s3Service, PromotionImageRepository promotionImageRepository, PromotionSpatialIndex promotionSpatialIndex, ApplicationEventPublisher eventPublisher, PromotionRanking promotionRanking, IdentityResolver identityResolver, OutboxService outboxService) {
         this.promotionRepository = promotionRepository;
         this.accountRepository = accountRepository;
         this.userPlanRepository = userPlanRepository;
@@ -42,11 +64,16 @@ public class PromotionService {
         this.planRepository = planRepository;
         this.s3Service = s3Service; // Injeção adicionada
         this.promotionImageRepository = promotionImageRepository; // Injeção adicionada
+        this.promotionSpatialIndex = promotionSpatialIndex;
+        this.eventPublisher = eventPublisher;
+        this.promotionRanking = promotionRanking;
+        this.identityResolver = identityResolver;
+        this.outboxService = outboxService;
     }
 
     @Transactional
     public User createPromotion(CreatePromotionRequestDto dto, String userEmail) {
-        Account account = accountRepository.findByEmailWithUserAndPlans(userEmail)
+        Account account = accountRepository.findByEmailWithUser(userEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("Utilizador não encontrado."));
         User user = account.getUser();
 
@@ -57,7 +84,10 @@ public class PromotionService {
         Promotion promotion = buildPromotionFromDto(dto);
         handlePromotionActivation(user, promotion, dto.getActive(), dto.getPlanId());
         user.addPromotion(promotion);
-        return userRepository.save(user);
+        Promotion created = promotionRepository.save(promotion);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(PromotionChangedEvent.of(created));
+        return savedUser;
     }
 
     @Transactional
@@ -84,6 +114,7 @@ public class PromotionService {
         }
 
         Promotion updatedPromotion = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(PromotionChangedEvent.of(updatedPromotion));
         PlanDto updatedPlanDto = userPlanRepository.findTopByUserOrderByCreatedAtDesc(user).map(PlanDto::new).orElse(null);
 
         return PromotionEditResponseDto.builder()
@@ -95,29 +126,285 @@ public class PromotionService {
 
     @Transactional(readOnly = true)
     public List<Promotion> findWithFilters(PromotionType promotionType, Double latitude, Double longitude, Double radius) {
-        if (latitude != null || longitude != null || radius != null) {
+        return findWithFilters(promotionType, latitude, longitude, radius, null);
+    }
+
+    /**
+     * Busca promoções ativas por tipo e/ou localização.
+     * Com localização, o resultado vem ordenado da mais próxima para a mais distante e cada promoção
+     * traz a distância até o ponto informado. Se {@code nearest} for informado sem raio, retorna as
+     * k promoções mais próximas sem limite de distância.
+     */
+    @Transactional(readOnly = true)
+    public List<Promotion> findWithFilters(PromotionType promotionType, Double latitude, Double longitude, Double radius, Integer nearest) {
+        return findWithFilters(promotionType, latitude, longitude, radius, nearest, null);
+    }
+
+    /**
+     * Mesma busca, com a ordenação escolhida. Com {@link PromotionSort#RELEVANCE}, as candidatas são pontuadas
+     * pelo {@link PromotionRanking} (distância, destaque, recência, plano do dono e comentários) e só as
+     * {@code nearest} (padrão {@value #DEFAULT_RANKED_RESULTS}) mais relevantes são carregadas.
+     */
+    @Transactional(readOnly = true)
+    public List<Promotion> findWithFilters(PromotionType promotionType, Double latitude, Double longitude, Double radius, Integer nearest, PromotionSort sort) {
+        validateFilters(latitude, longitude, radius, nearest);
+
+        boolean hasGeoFilter = latitude != null && longitude != null;
+        if (sort == PromotionSort.RELEVANCE) {
+            return findMostRelevant(promotionType, latitude, longitude, radius, nearest != null ? nearest : DEFAULT_RANKED_RESULTS);
+        }
+        if (!hasGeoFilter) {
+            Specification<Promotion> spec = PromotionSpecifications.createSpecification(promotionType);
+            return withAddressAndImages(promotionRepository.findAll(spec, Sort.by(Sort.Direction.DESC, "updatedAt")));
+        }
+
+        Double radiusInMeters = radius != null ? radius * 1000 : null;
+
+        if (promotionSpatialIndex.isReady()) {
+            // O índice em memória já resolve raio, tipo e ordenação; só as promoções encontradas são carregadas.
+            List<PromotionSpatialIndex.Hit> hits = radiusInMeters != null
+                    ? promotionSpatialIndex.findWithinRadius(latitude, longitude, radiusInMeters, promotionType)
+                    : promotionSpatialIndex.findNearest(latitude, longitude, nearest, promotionType);
+            if (nearest != null && hits.size() > nearest) {
+                hits = hits.subList(0, nearest);
+            }
+            return loadInHitOrder(hits);
+        }
+
+        Point userLocation = geometryFactory.createPoint(new Coordinate(longitude, latitude));
+        return withAddressAndImages(promotionRepository.findNearby(userLocation, radiusInMeters, promotionType, nearest));
+    }
+
+    private List<Promotion> findMostRelevant(PromotionType promotionType, Double latitude, Double longitude, Double radius, int limit) {
+        Point userLocation = latitude != null ? geometryFactory.createPoint(new Coordinate(longitude, latitude)) : null;
+        Double radiusInMeters = radius != null ? radius * 1000 : null;
+        List<PromotionCandidate> best;
+        try (Stream<PromotionCandidate> candidates = promotionRepository.streamRankingCandidates(userLocation, radiusInMeters, promotionType, RANKING_FETCH_SIZE)) {
+            best = promotionRanking.top(candidates, limit);
+        }
+        return loadInOrder(best.stream().map(PromotionCandidate::id).collect(Collectors.toList()),
+                best.stream().map(PromotionCandidate::distanceInMeters).collect(Collectors.toList()));
+    }
+
+    /**
+     * Valida a combinação dos filtros de localização de {@link #findWithFilters(PromotionType, Double, Double, Double, Integer)}.
+     * @throws IllegalArgumentException se a combinação for inválida.
+     */
+    static void validateFilters(Double latitude, Double longitude, Double radius, Integer nearest) {
+        if (nearest != null) {
+            if (latitude == null || longitude == null) {
+                throw new IllegalArgumentException("Para buscar as promoções mais próximas, os campos latitude e longitude são obrigatórios.");
+            }
+            if (nearest < 1 || nearest > MAX_NEAREST) {
+                throw new IllegalArgumentException("O parâmetro nearest deve estar entre 1 e " + MAX_NEAREST + ".");
+            }
+        } else if (latitude != null || longitude != null || radius != null) {
             if (latitude == null || longitude == null || radius == null) {
                 throw new IllegalArgumentException("Para filtrar por localização, os campos latitude, longitude e radius são obrigatórios.");
             }
         }
+    }
 
-        boolean hasGeoFilter = latitude != null && longitude != null && radius != null;
-        List<Long> idsInRadius = null;
+    /**
+     * Mesma busca de {@link #findWithFilters(PromotionType, Double, Double, Double, Integer, PromotionSort)}, já convertida em DTOs
+     * dentro da transação, com um número fixo de queries independentemente da quantidade de resultados.
+     */
+    @Transactional(readOnly = true)
+    public List<PromotionDto> findPromotionDtos(PromotionType promotionType, Double latitude, Double longitude, Double radius, Integer nearest, PromotionSort sort) {
+        return toDtos(findWithFilters(promotionType, latitude, longitude, radius, nearest, sort));
+    }
 
+    /**
+     * Promoções ativas próximas a um ponto, de todos os tipos, já convertidas em DTOs.
+     * Usado pelo {@link NearbyPromotionCache}, que precisa dos IDs para invalidar as entradas e das coordenadas
+     * para recalcular a distância até cada usuário.
+     * @param radius Raio da busca em quilômetros.
+     */
+    @Transactional(readOnly = true)
+    public NearbyPromotions findNearbyPromotions(double latitude, double longitude, double radius) {
+        List<Promotion> promotions = findWithFilters(null, latitude, longitude, radius, null);
+        return new NearbyPromotions(promotions.stream()
+                .map(promotion -> new NearbyPromotions.Candidate(promotion.getId(), promotion.getPoint().getY(),
+                        promotion.getPoint().getX(), new PromotionDto(promotion)))
+                .toList());
+    }
+
+    /**
+     * Busca paginada por cursor (keyset). Com localização, a página segue a ordem de distância;
+     * sem localização, as promoções mais recentemente atualizadas vêm primeiro.
+     * Apenas uma página de promoções (e de suas imagens) é carregada por chamada.
+     */
+    @Transactional(readOnly = true)
+    public PromotionPageDto searchPage(PromotionType promotionType, Double latitude, Double longitude, Double radius, Integer size, String cursor) {
+        if ((latitude == null) != (longitude == null) || (radius != null && latitude == null)) {
+            throw new IllegalArgumentException("Para filtrar por localização, os campos latitude e longitude são obrigatórios.");
+        }
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("O parâmetro size deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+
+        boolean hasGeoFilter = latitude != null;
+        PromotionCursor after = cursor != null && !cursor.isBlank() ? PromotionCursor.decode(cursor) : null;
+        if (after != null && after.isDistanceCursor() != hasGeoFilter) {
+            throw new IllegalArgumentException("O cursor informado não pertence a esta busca.");
+        }
+
+        // Busca um item a mais para saber se existe uma próxima página.
+        List<Promotion> promotions;
         if (hasGeoFilter) {
-            GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
-            Point userLocation = geometryFactory.createPoint(new Coordinate(longitude, latitude));
-            double radiusInMeters = radius * 1000;
+            Point location = geometryFactory.createPoint(new Coordinate(longitude, latitude));
+            promotions = promotionRepository.findNearbyPage(location, radius != null ? radius * 1000 : null, promotionType,
+                    after != null ? after.distance() : null, after != null ? after.id() : null, pageSize + 1);
+        } else {
+            promotions = promotionRepository.findLatestPage(promotionType,
+                    after != null ? after.updatedAt() : null, after != null ? after.id() : null, pageSize + 1);
+        }
+
+        String nextCursor = null;
+        if (promotions.size() > pageSize) {
+            promotions = promotions.subList(0, pageSize);
+            Promotion last = promotions.get(pageSize - 1);
+            nextCursor = (hasGeoFilter
+                    ? PromotionCursor.afterDistance(last.getDistance(), last.getId())
+                    : PromotionCursor.afterUpdatedAt(last.getUpdatedAt(), last.getId())).encode();
+        }
+
+        return new PromotionPageDto(toDtos(withAddressAndImages(promotions)), nextCursor);
+    }
 
-            idsInRadius = promotionRepository.findIdsWithinRadius(userLocation, radiusInMeters);
+    /**
+     * Busca as promoções ativas dentro da área retangular visível no mapa.
+     * @param limit Quantidade máxima de promoções (padrão {@value #DEFAULT_VIEWPORT_LIMIT}, máximo {@value #MAX_VIEWPORT_LIMIT}).
+     * @return As promoções da área, destaques primeiro e depois as mais recentes.
+     */
+    @Transactional(readOnly = true)
+    public List<PromotionDto> findInViewport(Double minLatitude, Double minLongitude, Double maxLatitude, Double maxLongitude,
+                                             PromotionType promotionType, Integer limit) {
+        if (minLatitude == null || minLongitude == null || maxLatitude == null || maxLongitude == null) {
+            throw new IllegalArgumentException("Os campos minLat, minLon, maxLat e maxLon são obrigatórios.");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_VIEWPORT_LIMIT)) {
+            throw new IllegalArgumentException("O parâmetro limit deve estar entre 1 e " + MAX_VIEWPORT_LIMIT + ".");
+        }
+        BoundingBox boundingBox = BoundingBox.of(minLongitude, minLatitude, maxLongitude, maxLatitude);
+        List<Promotion> promotions = promotionRepository.findInBoundingBox(boundingBox, promotionType,
+                limit != null ? limit : DEFAULT_VIEWPORT_LIMIT);
+        return toDtos(withAddressAndImages(promotions));
+    }
 
-            if (idsInRadius.isEmpty()) {
-                return Collections.emptyList();
+    /**
+     * Agrupa as promoções ativas da área visível do mapa em clusters, para que o cliente não precise
+     * baixar todas as promoções da região em zooms baixos.
+     * A grade tem células de ~{@value #CLUSTER_CELL_PIXELS} px de lado no zoom informado (tiles de 256 px).
+     * @param bbox Área visível no formato "minLon,minLat,maxLon,maxLat".
+     * @param zoom Nível de zoom do mapa (0 a 22).
+     * @param promotionType Tipo da promoção, ou null para todos.
+     * @return Os clusters, do maior para o menor.
+     */
+    @Transactional(readOnly = true)
+    public List<PromotionClusterDto> findClusters(String bbox, Integer zoom, PromotionType promotionType) {
+        BoundingBox boundingBox = BoundingBox.parse(bbox);
+        if (zoom == null || zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("O parâmetro zoom deve estar entre 0 e " + MAX_ZOOM + ".");
+        }
+        double cellSizeDegrees = 360.0 * CLUSTER_CELL_PIXELS / (256.0 * Math.pow(2, zoom));
+        double cellsInView = Math.ceil(boundingBox.widthInDegrees() / cellSizeDegrees) * Math.ceil(boundingBox.heightInDegrees() / cellSizeDegrees);
+        if (cellsInView > MAX_CLUSTER_CELLS) {
+            throw new IllegalArgumentException("A área informada é grande demais para o zoom solicitado.");
+        }
+
+        // Uma linha por (célula, tipo): junta as linhas de cada célula num único cluster. As células em -180 e 180
+        // (ST_SnapToGrid arredonda para os dois lados do antimeridiano) são a mesma coluna da grade.
+        Map<List<Double>, List<PromotionClusterCell>> byCell = new LinkedHashMap<>();
+        for (PromotionClusterCell cell : promotionRepository.findClusterCells(boundingBox, cellSizeDegrees, promotionType)) {
+            double cellLongitude = cell.cellLongitude() <= -180 ? cell.cellLongitude() + 360 : cell.cellLongitude();
+            byCell.computeIfAbsent(List.of(cellLongitude, cell.cellLatitude()), key -> new ArrayList<>()).add(cell);
+        }
+
+        Comparator<PromotionClusterCell> relevance = Comparator.comparing(PromotionClusterCell::highlight)
+                .thenComparing(PromotionClusterCell::updatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+        List<PromotionClusterDto> clusters = new ArrayList<>(byCell.size());
+        for (List<PromotionClusterCell> cells : byCell.values()) {
+            long count = 0;
+            double sumLatitude = 0;
+            // Média circular da longitude, ponderada pela quantidade: correta também dos dois lados do antimeridiano.
+            double sumSinLongitude = 0;
+            double sumCosLongitude = 0;
+            Map<PromotionType, Long> types = new EnumMap<>(PromotionType.class);
+            for (PromotionClusterCell cell : cells) {
+                count += cell.count();
+                sumLatitude += cell.latitude() * cell.count();
+                sumSinLongitude += Math.sin(Math.toRadians(cell.longitude())) * cell.count();
+                sumCosLongitude += Math.cos(Math.toRadians(cell.longitude())) * cell.count();
+                if (cell.promotionType() != null) {
+                    types.merge(cell.promotionType(), cell.count(), Long::sum);
+                }
             }
+            Long representativeId = cells.stream().max(relevance).map(PromotionClusterCell::representativeId).orElse(null);
+            double longitude = Math.toDegrees(Math.atan2(sumSinLongitude, sumCosLongitude));
+            clusters.add(new PromotionClusterDto(count, sumLatitude / count, longitude, types, representativeId));
+        }
+        clusters.sort(Comparator.comparingLong(PromotionClusterDto::getCount).reversed());
+        return clusters;
+    }
+
+    /**
+     * Inicializa endereço e imagens das promoções já carregadas, com uma query adicional a cada
+     * {@value #ASSOCIATION_FETCH_BATCH} promoções.
+     */
+    private List<Promotion> withAddressAndImages(List<Promotion> promotions) {
+        findWithAddressAndImages(promotions.stream().map(Promotion::getId).collect(Collectors.toList()));
+        return promotions;
+    }
+
+    /**
+     * Carrega as promoções com endereço e imagens em lotes, para que a IN-list nunca passe de
+     * {@value #ASSOCIATION_FETCH_BATCH} IDs.
+     * @return As promoções encontradas, sem ordem definida.
+     */
+    private List<Promotion> findWithAddressAndImages(List<Long> ids) {
+        List<Promotion> found = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ASSOCIATION_FETCH_BATCH) {
+            found.addAll(promotionRepository.findWithAddressAndImagesByIdIn(ids.subList(from, Math.min(ids.size(), from + ASSOCIATION_FETCH_BATCH))));
         }
+        return found;
+    }
 
-        Specification<Promotion> spec = PromotionSpecifications.createSpecification(promotionType, idsInRadius);
-        return promotionRepository.findAll(spec);
+    private List<PromotionDto> toDtos(List<Promotion> promotions) {
+        return promotions.stream()
+                .map(PromotionDto::new)
+                .collect(Collectors.toList());
+    }
+
+    private List<Promotion> loadInHitOrder(List<PromotionSpatialIndex.Hit> hits) {
+        // O índice é atualizado depois do commit: uma promoção desativada nesse intervalo ainda pode aparecer nele.
+        return loadInOrder(hits.stream().map(PromotionSpatialIndex.Hit::id).collect(Collectors.toList()),
+                hits.stream().map(PromotionSpatialIndex.Hit::distanceInMeters).collect(Collectors.toList()))
+                .stream()
+                .filter(promotion -> Boolean.TRUE.equals(promotion.getActive()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Carrega as promoções (com endereço e imagens) na ordem dos IDs informados, preenchendo as distâncias.
+     */
+    private List<Promotion> loadInOrder(List<Long> ids, List<Double> distances) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Promotion> byId = findWithAddressAndImages(ids)
+                .stream()
+                .collect(Collectors.toMap(Promotion::getId, p -> p));
+        List<Promotion> ordered = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Promotion promotion = byId.get(ids.get(i));
+            if (promotion != null) {
+                promotion.setDistance(distances.get(i));
+                ordered.add(promotion);
+            }
+        }
+        return ordered;
     }
 
     private String handlePromotionActivation(User user, Promotion promotion, Boolean active, Long planId) {
@@ -129,9 +416,8 @@ public class PromotionService {
         }
 
         if (planId != null) {
-            boolean planAlreadyExists = user.getUserPlans().stream()
-                    .anyMatch(up -> up.getPlan().getId().equals(planId) &&
-                            (up.getPlanStatus() == PlanStatus.ACTIVE || up.getPlanStatus() == PlanStatus.READYTOACTIVE));
+            boolean planAlreadyExists = userPlanRepository.existsByUserAndPlan_IdAndPlanStatusIn(
+                    user, planId, List.of(PlanStatus.ACTIVE, PlanStatus.READYTOACTIVE));
 
             if (planAlreadyExists) {
                 return "Promoção atualizada com sucesso. O plano não foi alterado pois o usuário já possui este plano ativo ou agendado.";
@@ -156,6 +442,8 @@ public class PromotionService {
                 setFinishAtByPlanType(futurePlan, futurePlan.getStartedAt());
                 futurePlan.setPlanStatus(PlanStatus.READYTOACTIVE);
                 user.getUserPlans().add(futurePlan);
+                user.refreshCurrentPlan(futurePlan);
+                eventPublisher.publishEvent(UserPlanChangedEvent.of(futurePlan));
 
             } else {
                 createNewUserPlan(user, planToAssign, LocalDateTime.now());
@@ -171,6 +459,8 @@ public class PromotionService {
                 planToActivate.setPlanStatus(PlanStatus.ACTIVE);
                 planToActivate.setStartedAt(now);
                 setFinishAtByPlanType(planToActivate, now);
+                user.refreshCurrentPlan(planToActivate);
+                eventPublisher.publishEvent(UserPlanChangedEvent.of(planToActivate));
                 if (user.getPromotions() != null) {
                     user.getPromotions().forEach(p -> p.setAllowUserActivePromotion(true));
                 }
@@ -199,27 +489,13 @@ public class PromotionService {
                 .build();
         setFinishAtByPlanType(newUserPlan, now);
         user.getUserPlans().add(newUserPlan);
+        user.refreshCurrentPlan(newUserPlan);
+        eventPublisher.publishEvent(UserPlanChangedEvent.of(newUserPlan));
         return newUserPlan;
     }
 
     private void setFinishAtByPlanType(UserPlan userPlan, LocalDateTime startDate) {
-        if (startDate == null) {
-            userPlan.setFinishAt(null);
-            return;
-        }
-        switch (userPlan.getPlan().getType()) {
-            case FREE:
-                userPlan.setFinishAt(startDate.plusHours(24));
-                break;
-            case MONTHLY:
-                userPlan.setFinishAt(startDate.plusDays(30));
-                break;
-            case PARTNER:
-                userPlan.setFinishAt(startDate.plusYears(1));
-                break;
-            default:
-                break;
-        }
+        userPlan.setFinishAt(startDate != null ? userPlan.getPlan().getType().finishAt(startDate) : null);
     }
 
     private Promotion buildPromotionFromDto(CreatePromotionRequestDto dto) {
@@ -264,10 +540,9 @@ public class PromotionService {
 
     @Transactional
     public List<PromotionImageDto> uploadImages(Long promotionId, List<MultipartFile> files, String userEmail) throws IOException {
-        User user = userRepository.findByAccountEmail(userEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado."));
+        UserIdentity user = identityResolver.resolve(userEmail);
 
-        Promotion promotion = promotionRepository.findByIdAndUser(promotionId, user)
+        Promotion promotion = promotionRepository.findByIdAndUserId(promotionId, user.userId())
                 .orElseThrow(() -> new EntityNotFoundException("Promoção não encontrada ou não pertence a este usuário."));
 
         if (promotion.getImages().size() + files.size() > 6) {
@@ -313,20 +588,22 @@ public class PromotionService {
 
     @Transactional
     public void deleteImage(Long imageId, String userEmail) {
-        User user = userRepository.findByAccountEmail(userEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado."));
+        UserIdentity user = identityResolver.resolve(userEmail);
 
         PromotionImage image = promotionImageRepository.findById(imageId)
                 .orElseThrow(() -> new EntityNotFoundException("Imagem não encontrada."));
 
-        boolean isOwner = image.getPromotion().getUser().getId().equals(user.getId());
-        boolean isAdmin = user.getUserType() == UserType.ADMIN;
+        boolean isOwner = image.getPromotion().getUser().getId().equals(user.userId());
+        boolean isAdmin = user.isAdmin();
 
         if (!isOwner && !isAdmin) {
             throw new AccessDeniedException("Você não tem permissão para excluir esta imagem.");
         }
 
-        s3Service.deleteFile(image.getS3Key());
         promotionImageRepository.delete(image);
+        // O arquivo no S3 é apagado pelo assinante do outbox, só depois do commit.
+        outboxService.append(OutboxMessage.PROMOTION_IMAGE_DELETED, image.getPromotion().getId(),
+                new OutboxMessage.PromotionImageDeleted(image.getId(), image.getPromotion().getId(), image.getS3Key()));
+        eventPublisher.publishEvent(PromotionChangedEvent.of(image.getPromotion()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,238 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.repository.PromotionLocationView;
+import com.projects.wtg.repository.PromotionRepository;
+import org.locationtech.jts.geom.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Índice espacial em memória das promoções, organizado como uma grade regular de células (lat/lon).
+ * Guarda apenas id, localização, tipo e status de cada promoção, permitindo responder buscas
+ * por raio e tipo sem ir ao PostGIS; somente as linhas encontradas são carregadas do banco.
+ *
+ * O índice é opcional (promotions.spatial-index.enabled) e é construído na inicialização.
+ * Depois disso, é mantido atualizado pelos {@link PromotionChangedEvent} publicados pelos serviços.
+ */
+@Component
+public class PromotionSpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionSpatialIndex.class);
+
+    static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180.0;
+    private static final Comparator<Hit> HIT_ORDER = Comparator.comparingDouble(Hit::distanceInMeters).thenComparing(Hit::id);
+
+    public record Entry(Long id, double latitude, double longitude, PromotionType promotionType, Boolean active) {
+    }
+
+    public record Hit(Long id, double distanceInMeters) {
+    }
+
+    private final PromotionRepository promotionRepository;
+    private final boolean enabled;
+    private final double cellSizeDegrees;
+    private final long columns;
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Long, Set<Long>> cells = new HashMap<>();
+    private volatile boolean ready;
+
+    public PromotionSpatialIndex(PromotionRepository promotionRepository,
+                                 @Value("${promotions.spatial-index.enabled:false}") boolean enabled,
+                                 @Value("${promotions.spatial-index.cell-size-degrees:0.01}") double cellSizeDegrees) {
+        this.promotionRepository = promotionRepository;
+        this.enabled = enabled;
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.columns = (long) Math.ceil(360.0 / cellSizeDegrees);
+    }
+
+    /**
+     * Indica se o índice está habilitado e já foi construído, podendo responder às buscas.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Reconstrói o índice inteiro a partir do banco de dados.
+     */
+    public synchronized void rebuild() {
+        List<PromotionLocationView> locations = promotionRepository.findAllLocations();
+        entries.clear();
+        cells.clear();
+        for (PromotionLocationView location : locations) {
+            put(new Entry(location.getId(), location.getPoint().getY(), location.getPoint().getX(),
+                    location.getPromotionType(), location.getActive()));
+        }
+        ready = true;
+        logger.info("Índice espacial de promoções construído com {} entradas.", entries.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        if (!enabled || event.promotionId() == null) {
+            return;
+        }
+        if (event.removed() || event.point() == null) {
+            remove(event.promotionId());
+        } else {
+            upsert(event.promotionId(), event.point(), event.promotionType(), event.active());
+        }
+    }
+
+    public synchronized void upsert(Long id, Point point, PromotionType promotionType, Boolean active) {
+        remove(id);
+        put(new Entry(id, point.getY(), point.getX(), promotionType, active));
+    }
+
+    public synchronized void remove(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            Set<Long> cell = cells.get(cellKey(previous.latitude(), previous.longitude()));
+            if (cell != null) {
+                cell.remove(id);
+                if (cell.isEmpty()) {
+                    cells.remove(cellKey(previous.latitude(), previous.longitude()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca as promoções ativas dentro de um raio, opcionalmente filtrando pelo tipo.
+     * @param latitude Latitude do centro da busca.
+     * @param longitude Longitude do centro da busca.
+     * @param radiusInMeters Raio da busca em metros.
+     * @param promotionType Tipo da promoção, ou null para todos.
+     * @return As promoções encontradas com suas distâncias, da mais próxima para a mais distante.
+     */
+    public synchronized List<Hit> findWithinRadius(double latitude, double longitude, double radiusInMeters, PromotionType promotionType) {
+        double latDelta = radiusInMeters / METERS_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double lonDelta = cosLat < 1e-6 ? 180.0 : Math.min(180.0, radiusInMeters / (METERS_PER_DEGREE * cosLat));
+
+        long minRow = cellIndex(Math.max(-90.0, latitude - latDelta));
+        long maxRow = cellIndex(Math.min(90.0, latitude + latDelta));
+        long minCol = cellIndex(longitude - lonDelta);
+        long maxCol = cellIndex(longitude + lonDelta);
+
+        List<Hit> result = new ArrayList<>();
+        long cellsInRange = (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (maxCol - minCol + 1 >= columns || cellsInRange > cells.size()) {
+            // Raio muito grande em relação à ocupação da grade: é mais barato varrer as entradas.
+            for (Entry entry : entries.values()) {
+                collectIfMatches(entry, latitude, longitude, radiusInMeters, promotionType, result);
+            }
+        } else {
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long col = minCol; col <= maxCol; col++) {
+                    Set<Long> cell = cells.get(cellKey(row, normalizeColumn(col)));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Long id : cell) {
+                        collectIfMatches(entries.get(id), latitude, longitude, radiusInMeters, promotionType, result);
+                    }
+                }
+            }
+        }
+        result.sort(HIT_ORDER);
+        return result;
+    }
+
+    /**
+     * Busca as k promoções ativas mais próximas de um ponto, sem limite de raio.
+     * @return As promoções encontradas com suas distâncias, da mais próxima para a mais distante.
+     */
+    public synchronized List<Hit> findNearest(double latitude, double longitude, int limit, PromotionType promotionType) {
+        // Heap de tamanho limitado: o topo é sempre o pior candidato entre os k mantidos.
+        PriorityQueue<Hit> heap = new PriorityQueue<>(limit + 1, HIT_ORDER.reversed());
+        for (Entry entry : entries.values()) {
+            if (!matches(entry, promotionType)) {
+                continue;
+            }
+            heap.offer(new Hit(entry.id(), distanceInMeters(latitude, longitude, entry.latitude(), entry.longitude())));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Hit> result = new ArrayList<>(heap);
+        result.sort(HIT_ORDER);
+        return result;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void collectIfMatches(Entry entry, double latitude, double longitude, double radiusInMeters, PromotionType promotionType, List<Hit> result) {
+        if (!matches(entry, promotionType)) {
+            return;
+        }
+        double distance = distanceInMeters(latitude, longitude, entry.latitude(), entry.longitude());
+        if (distance <= radiusInMeters) {
+            result.add(new Hit(entry.id(), distance));
+        }
+    }
+
+    private static boolean matches(Entry entry, PromotionType promotionType) {
+        return Boolean.TRUE.equals(entry.active()) && (promotionType == null || promotionType == entry.promotionType());
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.id(), entry);
+        cells.computeIfAbsent(cellKey(entry.latitude(), entry.longitude()), key -> new HashSet<>()).add(entry.id());
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    private long normalizeColumn(long col) {
+        long offset = cellIndex(-180.0);
+        return Math.floorMod(col - offset, columns) + offset;
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey(cellIndex(latitude), normalizeColumn(cellIndex(longitude)));
+    }
+
+    private static long cellKey(long row, long col) {
+        return (row << 32) ^ (col & 0xffffffffL);
+    }
+
+    /**
+     * Distância de grande círculo (haversine) em metros.
+     */
+    public static double distanceInMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
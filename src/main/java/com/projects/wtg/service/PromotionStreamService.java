@@ -0,0 +1,136 @@
+package com.projects.wtg.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.projects.wtg.dto.PromotionDto;
+import com.projects.wtg.model.Promotion;
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.repository.PromotionRepository;
+import com.projects.wtg.repository.UserIdentity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Escrita de resultados grandes de promoções em NDJSON (um PromotionDto JSON por linha).
+ *
+ * As promoções são lidas de um cursor JDBC com fetch size, em lotes: para cada lote, endereço e imagens
+ * são carregados com uma única query, os DTOs são escritos e o contexto de persistência é limpo.
+ * Assim o uso de memória fica constante, independentemente do tamanho do resultado.
+ */
+@Service
+public class PromotionStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionStreamService.class);
+    private static final byte[] NEW_LINE = {'\n'};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final PromotionRepository promotionRepository;
+    private final IdentityResolver identityResolver;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter writer;
+    private final int chunkSize;
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    public PromotionStreamService(PromotionRepository promotionRepository,
+                                  IdentityResolver identityResolver,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${promotions.stream.chunk-size:500}") int chunkSize) {
+        this.promotionRepository = promotionRepository;
+        this.identityResolver = identityResolver;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writer = objectMapper.writerFor(PromotionDto.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Versão em streaming da busca por filtros. Os parâmetros são validados imediatamente,
+     * para que erros sejam respondidos com 400 antes de o streaming começar.
+     */
+    public StreamingResponseBody streamWithFilters(PromotionType promotionType, Double latitude, Double longitude, Double radius, Integer nearest) {
+        PromotionService.validateFilters(latitude, longitude, radius, nearest);
+
+        if (latitude == null || longitude == null) {
+            return output -> write(output, () -> promotionRepository.streamActive(promotionType, chunkSize));
+        }
+        Double radiusInMeters = radius != null ? radius * 1000 : null;
+        return output -> write(output, () -> promotionRepository.streamNearby(
+                geometryFactory.createPoint(new Coordinate(longitude, latitude)), radiusInMeters, promotionType, nearest, chunkSize));
+    }
+
+    /**
+     * Exporta todas as promoções, ativas ou não. Disponível apenas para administradores.
+     * @throws AccessDeniedException se o usuário não for administrador.
+     */
+    public StreamingResponseBody exportAll(String userEmail) {
+        UserIdentity user = identityResolver.resolve(userEmail);
+        if (!user.isAdmin()) {
+            throw new AccessDeniedException("Apenas administradores podem exportar as promoções.");
+        }
+
+        logger.info("Exportação de promoções iniciada por {}.", userEmail);
+        return output -> write(output, () -> promotionRepository.streamAll(chunkSize));
+    }
+
+    private void write(OutputStream output, Supplier<Stream<Promotion>> source) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Promotion> promotions = source.get()) {
+                    List<Promotion> chunk = new ArrayList<>(chunkSize);
+                    Iterator<Promotion> iterator = promotions.iterator();
+                    while (iterator.hasNext()) {
+                        chunk.add(iterator.next());
+                        if (chunk.size() == chunkSize) {
+                            writeChunk(output, chunk);
+                        }
+                    }
+                    writeChunk(output, chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeChunk(OutputStream output, List<Promotion> chunk) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // Uma query para endereço e imagens do lote inteiro, em vez de duas por promoção.
+        promotionRepository.findWithAddressAndImagesByIdIn(chunk.stream().map(Promotion::getId).collect(Collectors.toList()));
+        for (Promotion promotion : chunk) {
+            output.write(writer.writeValueAsBytes(new PromotionDto(promotion)));
+            output.write(NEW_LINE);
+        }
+        output.flush();
+        chunk.clear();
+        // Desanexa as entidades já escritas: o contexto de persistência não cresce com o resultado.
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,33 @@
+package com.projects.wtg.service;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * Política de um token bucket: até {@code capacity} requisições em rajada, repostas
+ * à taxa de {@code capacity} por {@code period}.
+ */
+public record RateLimitPolicy(String name, int capacity, Duration period) {
+
+    public RateLimitPolicy {
+        if (capacity <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Política de rate limit inválida: " + name);
+        }
+    }
+
+    /**
+     * Lê uma política no formato "quantidade/período", por exemplo "5/1m" ou "10/1h".
+     */
+    public static RateLimitPolicy parse(String name, String value) {
+        String[] parts = value.trim().split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Política de rate limit inválida para " + name + ": '" + value + "'. Use o formato quantidade/período, ex.: 5/1m.");
+        }
+        return new RateLimitPolicy(name, Integer.parseInt(parts[0].trim()), DurationStyle.detectAndParse(parts[1].trim()));
+    }
+
+    double tokensPerNano() {
+        return (double) capacity / period.toNanos();
+    }
+}
@@ -0,0 +1,15 @@
+package com.projects.wtg.service;
+
+/**
+ * Armazenamento dos token buckets do rate limit. A implementação atual é em memória
+ * ({@link InMemoryRateLimitStore}); com várias instâncias da aplicação, uma implementação
+ * compartilhada (por exemplo, no Redis) pode substituí-la sem mudar o filtro.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Tenta consumir um token do bucket da chave.
+     * @return 0 se a requisição foi permitida, ou o tempo em milissegundos até o próximo token.
+     */
+    long tryConsume(String key, RateLimitPolicy policy);
+}
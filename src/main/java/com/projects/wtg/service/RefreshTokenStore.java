@@ -0,0 +1,64 @@
+package com.projects.wtg.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ids (jti) dos refresh tokens emitidos, na tabela appwtg.refresh_token.
+ *
+ * Cada refresh token só pode ser usado uma vez: a renovação o revoga com um único UPDATE condicional e emite
+ * um novo. Se um token já revogado for apresentado de novo (indício de que foi copiado), todos os refresh
+ * tokens do usuário são revogados e ele precisa fazer login outra vez.
+ */
+@Component
+public class RefreshTokenStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+    private static final String INSERT = "INSERT INTO appwtg.refresh_token (token_id, user_id, expires_at) VALUES (?, ?, ?)";
+    private static final String CONSUME = "UPDATE appwtg.refresh_token SET revoked_at = now() " +
+            "WHERE token_id = ? AND revoked_at IS NULL AND expires_at > now()";
+    private static final String REVOKE_ALL = "UPDATE appwtg.refresh_token SET revoked_at = now() WHERE user_id = ? AND revoked_at IS NULL";
+    private static final String PURGE = "DELETE FROM appwtg.refresh_token WHERE expires_at < now()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseService jobLeaseService;
+
+    public RefreshTokenStore(JdbcTemplate jdbcTemplate, JobLeaseService jobLeaseService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    public void register(String tokenId, Long userId, Instant expiresAt) {
+        jdbcTemplate.update(INSERT, tokenId, userId, Timestamp.from(expiresAt));
+    }
+
+    /**
+     * Revoga o token, se ele ainda for válido.
+     * @return false se o token não existe, já foi usado ou revogado, ou expirou.
+     */
+    public boolean consume(String tokenId) {
+        return jdbcTemplate.update(CONSUME, tokenId) == 1;
+    }
+
+    public void revokeAll(Long userId) {
+        int revoked = jdbcTemplate.update(REVOKE_ALL, userId);
+        logger.warn("Refresh token reutilizado ou revogado para o usuário {}: {} tokens ativos revogados.", userId, revoked);
+    }
+
+    /**
+     * Apaga os tokens expirados. Roda a cada security.jwt.refresh-token-cleanup-interval-ms (registrada em ScheduledJobsConfig).
+     * @return A quantidade de tokens apagados.
+     */
+    public int purgeExpired() {
+        AtomicInteger purged = new AtomicInteger();
+        jobLeaseService.runExclusive("refresh-token-cleanup", () -> purged.set(jdbcTemplate.update(PURGE)));
+        return purged.get();
+    }
+}
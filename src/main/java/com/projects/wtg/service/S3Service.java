@@ -1,6 +1,9 @@
 package com.projects.wtg.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
@@ -21,13 +24,15 @@ public class S3Service {
 
     private final S3Client s3Client;
     private final S3Presigner s3Presigner;
+    private final ObjectMapper objectMapper;
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
-    public S3Service(S3Client s3Client, S3Presigner s3Presigner) {
+    public S3Service(S3Client s3Client, S3Presigner s3Presigner, ObjectMapper objectMapper) {
         this.s3Client = s3Client;
         this.s3Presigner = s3Presigner;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -77,4 +82,14 @@ public class S3Service {
 
         s3Client.deleteObject(deleteObjectRequest);
     }
+
+    /**
+     * Apaga do bucket o arquivo de uma imagem excluída, depois do commit da exclusão (evento do outbox).
+     * A exclusão no S3 é idempotente, então uma entrega repetida não causa erro.
+     */
+    @EventListener(condition = "#message.is('" + OutboxMessage.PROMOTION_IMAGE_DELETED + "')")
+    public void onPromotionImageDeleted(OutboxMessage message) throws JsonProcessingException {
+        OutboxMessage.PromotionImageDeleted image = objectMapper.treeToValue(message.payload(), OutboxMessage.PromotionImageDeleted.class);
+        deleteFile(image.s3Key());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.model.PlanStatus;
+import com.projects.wtg.model.UserPlan;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado quando um plano de usuário é criado, agendado, ativado ou expirado, para que o
+ * {@link PlanTransitionTimer} programe a próxima transição dele (término ou início). Deve ser publicado com o
+ * usuário já salvo, para que o ID dele esteja preenchido.
+ */
+public record UserPlanChangedEvent(Long userId, Long planId, PlanStatus status, LocalDateTime startedAt, LocalDateTime finishAt) {
+
+    public static UserPlanChangedEvent of(UserPlan userPlan) {
+        return new UserPlanChangedEvent(userPlan.getUser().getId(), userPlan.getPlan().getId(),
+                userPlan.getPlanStatus(), userPlan.getStartedAt(), userPlan.getFinishAt());
+    }
+
+    /**
+     * @return O instante da próxima transição do plano, ou null se ele não tiver uma.
+     */
+    public LocalDateTime nextTransitionAt() {
+        if (status == PlanStatus.ACTIVE) {
+            return finishAt;
+        }
+        if (status == PlanStatus.READYTOACTIVE) {
+            return startedAt;
+        }
+        return null;
+    }
+}
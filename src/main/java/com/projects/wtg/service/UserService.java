@@ -18,8 +18,8 @@ import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.PrecisionModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -27,9 +27,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.Random;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
@@ -43,17 +43,26 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final PlanRepository planRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VerificationCodeStore verificationCodeStore;
+    private final UserWriteBehindBuffer userWriteBehindBuffer;
     private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
 
+    private static final Duration REGISTRATION_CODE_TTL = Duration.ofSeconds(90);
+    private static final Duration PASSWORD_RESET_CODE_TTL = Duration.ofMinutes(10);
+
     private static final Pattern STRONG_PASSWORD_PATTERN =
             Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&])[A-Za-z\\d@$!%*?&]{8,}$");
 
-    public UserService(UserRepository userRepository, AccountRepository accountRepository, @Lazy PasswordEncoder passwordEncoder, PlanRepository planRepository, EmailService emailService) {
+    public UserService(UserRepository userRepository, AccountRepository accountRepository, @Lazy PasswordEncoder passwordEncoder, PlanRepository planRepository, EmailService emailService, ApplicationEventPublisher eventPublisher, VerificationCodeStore verificationCodeStore, UserWriteBehindBuffer userWriteBehindBuffer) {
         this.userRepository = userRepository;
         this.accountRepository = accountRepository;
         this.passwordEncoder = passwordEncoder;
         this.planRepository = planRepository;
         this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
+        this.verificationCodeStore = verificationCodeStore;
+        this.userWriteBehindBuffer = userWriteBehindBuffer;
     }
 
     @Transactional
@@ -64,9 +73,6 @@ public class UserService {
             }
         });
 
-        String token = String.format("%04d", new Random().nextInt(10000));
-        LocalDateTime expiration = LocalDateTime.now().plusMinutes(1).plusSeconds(30);
-
         Account account = accountRepository.findByEmail(email).orElse(new Account());
         account.setEmail(email);
 
@@ -74,9 +80,8 @@ public class UserService {
             account.setUserName(email.split("@")[0]);
         }
 
-        account.setRegistrationToken(token);
-        account.setRegistrationTokenExpiration(expiration);
         accountRepository.save(account);
+        String token = verificationCodeStore.issue(VerificationCodeStore.Purpose.REGISTRATION, email, REGISTRATION_CODE_TTL);
 
         try {
             emailService.sendRegistrationTokenEmail(email, token);
@@ -91,30 +96,14 @@ public class UserService {
         Account account = accountRepository.findByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException("Conta não encontrada para o e-mail: " + email));
 
-        if (account.getRegistrationToken() == null || !account.getRegistrationToken().equals(token)) {
-            throw new IllegalArgumentException("Token inválido.");
-        }
-
-        if (account.getRegistrationTokenExpiration().isBefore(LocalDateTime.now())) {
-            throw new IllegalArgumentException("Token expirado.");
+        // Códigos vencidos deixam de existir no store, então inválido e expirado têm a mesma resposta.
+        if (!verificationCodeStore.matches(VerificationCodeStore.Purpose.REGISTRATION, email, token)) {
+            throw new IllegalArgumentException("Token inválido ou expirado.");
         }
 
         account.setEmailVerified(true);
-        account.setRegistrationToken(null);
-        account.setRegistrationTokenExpiration(null);
         accountRepository.save(account);
-    }
-
-    @Transactional
-    @Scheduled(fixedRate = 90000)
-    public void tokenCleanupScheduler() {
-        accountRepository.findAll().forEach(account -> {
-            if (account.getRegistrationToken() != null && account.getRegistrationTokenExpiration().isBefore(LocalDateTime.now())) {
-                account.setRegistrationToken(null);
-                account.setRegistrationTokenExpiration(null);
-                accountRepository.save(account);
-            }
-        });
+        verificationCodeStore.invalidate(VerificationCodeStore.Purpose.REGISTRATION, email);
     }
 
 
@@ -130,33 +119,30 @@ public class UserService {
 
     @Transactional
     public void generatePasswordResetToken(String email) {
-        Account account = accountRepository.findByEmail(email)
+        accountRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Conta não encontrada para o e-mail: " + email));
 
-        String token = String.format("%04d", new Random().nextInt(10000));
-        account.setToken(token);
-        account.setRegistrationTokenExpiration(LocalDateTime.now().plusMinutes(10));
-        accountRepository.save(account);
+        String token = verificationCodeStore.issue(VerificationCodeStore.Purpose.PASSWORD_RESET, email, PASSWORD_RESET_CODE_TTL);
 
         emailService.sendPasswordResetTokenEmail(email, token);
     }
 
     @Transactional
-    public void resetPassword(String token, String newPassword) {
-        Account account = accountRepository.findByToken(token)
-                .orElseThrow(() -> new IllegalArgumentException("Token de redefinição de senha inválido ou expirado."));
-
-        if (account.getRegistrationTokenExpiration() == null || account.getRegistrationTokenExpiration().isBefore(LocalDateTime.now())) {
-            throw new IllegalArgumentException("Token expirado. Por favor, solicite um novo.");
+    public void resetPassword(String email, String token, String newPassword) {
+        // O código só vale para o e-mail ao qual foi enviado.
+        if (email == null || !verificationCodeStore.matches(VerificationCodeStore.Purpose.PASSWORD_RESET, email, token)) {
+            throw new IllegalArgumentException("Token de redefinição de senha inválido ou expirado.");
         }
+        Account account = accountRepository.findByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("Token de redefinição de senha inválido ou expirado."));
 
         if (!isPasswordStrong(newPassword)) {
             throw new IllegalArgumentException("A nova senha não atende aos critérios de segurança.");
         }
 
         account.setPassword(passwordEncoder.encode(newPassword));
-        account.setToken(null);
         accountRepository.save(account);
+        verificationCodeStore.invalidate(VerificationCodeStore.Purpose.PASSWORD_RESET, email);
     }
 
 
@@ -231,14 +217,21 @@ public class UserService {
             newUserPlan.setPlanStatus(PlanStatus.READYTOACTIVE);
         }
         user.getUserPlans().add(newUserPlan);
+        user.refreshCurrentPlan(newUserPlan);
 
+        Promotion promotion = null;
         if (userRegistrationDto.getPromotion() != null) {
-            Promotion promotion = buildPromotionFromDto(userRegistrationDto.getPromotion());
+            promotion = buildPromotionFromDto(userRegistrationDto.getPromotion());
             promotion.setAllowUserActivePromotion(true);
             user.addPromotion(promotion);
         }
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(UserPlanChangedEvent.of(newUserPlan));
+        if (promotion != null) {
+            eventPublisher.publishEvent(PromotionChangedEvent.of(promotion));
+        }
+        return savedUser;
     }
 
     private Promotion buildPromotionFromDto(PromotionDataDto dto) {
@@ -265,11 +258,12 @@ public class UserService {
 
     @Transactional
     public User deactivateUserByEmail(String email) {
-        Account account = accountRepository.findByEmailWithUserAndPlans(email)
+        Account account = accountRepository.findByEmailWithUser(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Conta não encontrada para o e-mail: " + email));
 
         account.setActive(false);
         accountRepository.save(account);
+        eventPublisher.publishEvent(new IdentityChangedEvent(email));
 
         return account.getUser();
     }
@@ -279,13 +273,17 @@ public class UserService {
         Account account = accountRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Conta não encontrada para o e-mail: " + email));
 
-        userRepository.delete(account.getUser());
+        User user = account.getUser();
+        user.getPromotions().forEach(p -> eventPublisher.publishEvent(PromotionChangedEvent.removed(p)));
+        userRepository.delete(user);
+        eventPublisher.publishEvent(new IdentityChangedEvent(email));
     }
 
     @Transactional
     public Account reactivateAccount(Account account) {
         if (account != null && !account.getActive()) {
             account.setActive(true);
+            eventPublisher.publishEvent(new IdentityChangedEvent(account.getEmail()));
             return accountRepository.save(account);
         }
         return account;
@@ -299,40 +297,22 @@ public class UserService {
     }
 
     private void setFinishAtByPlanType(UserPlan userPlan, LocalDateTime now) {
-        if (now == null) {
-            userPlan.setFinishAt(null);
-            return;
-        }
-        switch (userPlan.getPlan().getType()) {
-            case FREE:
-                userPlan.setFinishAt(now.plusHours(24));
-                break;
-            case MONTHLY:
-                userPlan.setFinishAt(now.plusDays(30));
-                break;
-            case PARTNER:
-                userPlan.setFinishAt(now.plusYears(1));
-                break;
-            default:
-                break;
-        }
+        userPlan.setFinishAt(now != null ? userPlan.getPlan().getType().finishAt(now) : null);
     }
 
     @Transactional(readOnly = true)
     public User findUserByEmail(String email) {
-        return accountRepository.findByEmailWithUserAndPlans(email)
+        return accountRepository.findByEmailWithUser(email)
                 .map(Account::getUser)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado com o e-mail: " + email));
     }
 
-    @Transactional
-    public void updateUserLocation(String email, Double latitude, Double longitude) {
-        if (latitude != null && longitude != null) {
-            User user = findUserByEmail(email);
-            Point userPoint = geometryFactory.createPoint(new Coordinate(longitude, latitude));
-            user.setPoint(userPoint);
-            userRepository.save(user);
-        }
+    /**
+     * Registra o login do usuário (último login e localização) no buffer de escrita adiada,
+     * sem bloquear a resposta do login com um UPDATE.
+     */
+    public void recordLogin(User user, Double latitude, Double longitude) {
+        userWriteBehindBuffer.recordLogin(user, latitude, longitude);
     }
 
     @Transactional
@@ -354,17 +334,20 @@ public class UserService {
             account.setUserName(email);
             account.setLoginProvider("google");
             account.setActive(true);
+            account.setLastLogin(LocalDateTime.now());
             user.setAccount(account);
+            if (latitude != null && longitude != null) {
+                user.setPoint(geometryFactory.createPoint(new Coordinate(longitude, latitude)));
+            }
 
             assignFreePlanToUser(user);
 
             userRepository.save(user);
+            user.getUserPlans().forEach(userPlan -> eventPublisher.publishEvent(UserPlanChangedEvent.of(userPlan)));
+            return account;
         }
 
-        if (latitude != null && longitude != null) {
-            updateUserLocation(account.getEmail(), latitude, longitude);
-        }
-
+        recordLogin(account.getUser(), latitude, longitude);
         return account;
     }
 
@@ -380,6 +363,7 @@ public class UserService {
             userPlan.setStartedAt(now);
             setFinishAtByPlanType(userPlan, now);
             user.getUserPlans().add(userPlan);
+            user.refreshCurrentPlan(userPlan);
         });
     }
 }
\ No newline at end of file
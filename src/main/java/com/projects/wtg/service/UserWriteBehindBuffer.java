@@ -0,0 +1,261 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.model.Account;
+import com.projects.wtg.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.locationtech.jts.geom.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escrita adiada (write-behind) das atualizações feitas a cada login: localização, último login e
+ * dados do provedor SSO.
+ *
+ * As alterações ficam num buffer por usuário, onde a mais recente substitui a anterior, e são gravadas em
+ * lotes JDBC a cada flush-interval-ms, ou antes disso quando o buffer chega a batch-size usuários.
+ * Alterações que não mudam nada (mesma localização, último login recente, mesmos dados do SSO) são descartadas
+ * sem ir ao banco. O buffer é gravado também no desligamento da aplicação.
+ *
+ * Como a gravação é adiada, uma leitura feita logo após o login pode ainda ver os valores anteriores.
+ */
+@Component
+public class UserWriteBehindBuffer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserWriteBehindBuffer.class);
+
+    private static final String UPDATE_LOCATION = "UPDATE appwtg.\"user\" SET point = ST_SetSRID(ST_MakePoint(?, ?), 4326)::geography, updated_at = ? WHERE id = ?";
+    private static final String UPDATE_SSO_USER = "UPDATE appwtg.\"user\" SET first_name = ?, full_name = ?, picture_url = ?, updated_at = ? WHERE id = ?";
+    private static final String UPDATE_SSO_ACCOUNT = "UPDATE appwtg.account SET login_sub = ? WHERE id = ?";
+    private static final String UPDATE_LAST_LOGIN = "UPDATE appwtg.account SET last_login = ? WHERE id = ?";
+
+    /** Dados do usuário vindos do provedor SSO. */
+    public record SsoAttributes(String firstName, String fullName, String pictureUrl, String loginSub) {
+    }
+
+    /** Alterações pendentes de um usuário. Campos nulos não foram alterados. */
+    record PendingUpdate(Long accountId, Double latitude, Double longitude, LocalDateTime lastLogin, SsoAttributes sso) {
+
+        PendingUpdate mergedWith(PendingUpdate newer) {
+            boolean newerLocation = newer.latitude() != null;
+            return new PendingUpdate(
+                    newer.accountId() != null ? newer.accountId() : accountId,
+                    newerLocation ? newer.latitude() : latitude,
+                    newerLocation ? newer.longitude() : longitude,
+                    newer.lastLogin() != null ? newer.lastLogin() : lastLogin,
+                    newer.sso() != null ? newer.sso() : sso);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final double minDistanceMeters;
+    private final Duration lastLoginResolution;
+
+    private final Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ExecutorService flushExecutor;
+
+    private final Counter recorded;
+    private final Counter skipped;
+    private final Counter written;
+
+    public UserWriteBehindBuffer(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${user-updates.batch-size:500}") int batchSize,
+                                 @Value("${user-updates.min-distance-meters:10}") double minDistanceMeters,
+                                 @Value("${user-updates.last-login-resolution-seconds:60}") long lastLoginResolutionSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.minDistanceMeters = minDistanceMeters;
+        this.lastLoginResolution = Duration.ofSeconds(lastLoginResolutionSeconds);
+        this.flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.recorded = Counter.builder("user.write-behind.updates").tag("result", "buffered")
+                .description("Atualizações de login colocadas no buffer").register(meterRegistry);
+        this.skipped = Counter.builder("user.write-behind.updates").tag("result", "skipped")
+                .description("Atualizações de login descartadas por não mudarem nada").register(meterRegistry);
+        this.written = Counter.builder("user.write-behind.rows")
+                .description("Usuários gravados pelos flushes").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("user.write-behind.pending", this, UserWriteBehindBuffer::size).register(meterRegistry);
+    }
+
+    /**
+     * Registra um login: o último login da conta e, se informada, a nova localização do usuário.
+     * @param user O usuário já carregado, usado para comparar com os valores atuais.
+     */
+    public void recordLogin(User user, Double latitude, Double longitude) {
+        Account account = user.getAccount();
+        LocalDateTime now = LocalDateTime.now();
+
+        boolean locationChanged = latitude != null && longitude != null && locationChanged(user.getPoint(), latitude, longitude);
+        boolean lastLoginStale = account != null
+                && (account.getLastLogin() == null || account.getLastLogin().isBefore(now.minus(lastLoginResolution)));
+
+        if (!locationChanged && !lastLoginStale) {
+            skipped.increment();
+            return;
+        }
+        record(user.getId(), new PendingUpdate(account != null ? account.getId() : null,
+                locationChanged ? latitude : null, locationChanged ? longitude : null,
+                lastLoginStale ? now : null, null));
+    }
+
+    /**
+     * Registra os dados recebidos do provedor SSO, se forem diferentes dos atuais.
+     * @param user O usuário já carregado, usado para comparar com os valores atuais.
+     */
+    public void recordSsoAttributes(User user, SsoAttributes attributes) {
+        Account account = user.getAccount();
+        boolean changed = !Objects.equals(user.getFirstName(), attributes.firstName())
+                || !Objects.equals(user.getFullName(), attributes.fullName())
+                || !Objects.equals(user.getPictureUrl(), attributes.pictureUrl())
+                || (account != null && !Objects.equals(account.getLoginSub(), attributes.loginSub()));
+        if (!changed) {
+            skipped.increment();
+            return;
+        }
+        record(user.getId(), new PendingUpdate(account != null ? account.getId() : null, null, null, null, attributes));
+    }
+
+    private void record(Long userId, PendingUpdate update) {
+        pending.merge(userId, update, PendingUpdate::mergedWith);
+        recorded.increment();
+        if (pending.size() >= batchSize) {
+            try {
+                flushExecutor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Desligando: o destroy() grava o que restou.
+            }
+        }
+    }
+
+    private boolean locationChanged(Point current, double latitude, double longitude) {
+        return current == null
+                || PromotionSpatialIndex.distanceInMeters(current.getY(), current.getX(), latitude, longitude) >= minDistanceMeters;
+    }
+
+    /**
+     * Grava o buffer em lotes. Roda a cada user-updates.flush-interval-ms (registrada em ScheduledJobsConfig).
+     * Se já houver um flush em andamento, não faz nada: o próximo pega o que ficou.
+     * @return A quantidade de usuários gravados.
+     */
+    public int flush() {
+        if (!flushLock.tryLock()) {
+            return 0;
+        }
+        try {
+            return drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int drain() {
+        int total = 0;
+        while (!pending.isEmpty()) {
+            Map<Long, PendingUpdate> batch = new HashMap<>();
+            for (Long userId : pending.keySet()) {
+                PendingUpdate update = pending.remove(userId);
+                if (update != null) {
+                    batch.put(userId, update);
+                }
+                if (batch.size() == batchSize) {
+                    break;
+                }
+            }
+            try {
+                write(batch);
+                written.increment(batch.size());
+                total += batch.size();
+            } catch (RuntimeException e) {
+                logger.error("Falha ao gravar {} atualizações de usuários; serão tentadas no próximo flush: {}", batch.size(), e.getMessage());
+                // Devolve ao buffer sem sobrescrever alterações mais novas que chegaram nesse meio tempo.
+                batch.forEach((userId, update) -> pending.merge(userId, update, (newer, failed) -> failed.mergedWith(newer)));
+                return total;
+            }
+        }
+        return total;
+    }
+
+    private void write(Map<Long, PendingUpdate> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> locations = new ArrayList<>();
+        List<Object[]> ssoUsers = new ArrayList<>();
+        List<Object[]> ssoAccounts = new ArrayList<>();
+        List<Object[]> lastLogins = new ArrayList<>();
+
+        batch.forEach((userId, update) -> {
+            if (update.latitude() != null) {
+                locations.add(new Object[]{update.longitude(), update.latitude(), now, userId});
+            }
+            if (update.sso() != null) {
+                SsoAttributes sso = update.sso();
+                ssoUsers.add(new Object[]{sso.firstName(), sso.fullName(), sso.pictureUrl(), now, userId});
+                if (update.accountId() != null) {
+                    ssoAccounts.add(new Object[]{sso.loginSub(), update.accountId()});
+                }
+            }
+            if (update.lastLogin() != null && update.accountId() != null) {
+                lastLogins.add(new Object[]{Timestamp.valueOf(update.lastLogin()), update.accountId()});
+            }
+        });
+
+        batchUpdate(UPDATE_LOCATION, locations, Types.DOUBLE, Types.DOUBLE, Types.TIMESTAMP, Types.BIGINT);
+        batchUpdate(UPDATE_SSO_USER, ssoUsers, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.BIGINT);
+        batchUpdate(UPDATE_SSO_ACCOUNT, ssoAccounts, Types.VARCHAR, Types.BIGINT);
+        batchUpdate(UPDATE_LAST_LOGIN, lastLogins, Types.TIMESTAMP, Types.BIGINT);
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows, int... types) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows, types);
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    @Override
+    public void destroy() {
+        flushExecutor.shutdown();
+        flushLock.lock();
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.projects.wtg.service;
+
+import java.time.Duration;
+
+/**
+ * Armazenamento dos códigos de verificação enviados por e-mail (cadastro e redefinição de senha).
+ *
+ * A implementação padrão é em memória ({@link InMemoryVerificationCodeStore}). Com várias instâncias
+ * da aplicação, use verification-codes.store=database ({@link AccountVerificationCodeStore}),
+ * que guarda os códigos nas colunas da conta: um código emitido em memória numa instância não é
+ * conhecido pelas outras.
+ *
+ * Os códigos têm 4 dígitos, então só são aceitos junto com o e-mail ao qual foram enviados: nunca há
+ * busca apenas pelo código, que seria um chute contra todos os códigos válidos.
+ */
+public interface VerificationCodeStore {
+
+    enum Purpose {
+        REGISTRATION, PASSWORD_RESET
+    }
+
+    /**
+     * Gera um código novo para o e-mail, substituindo o anterior da mesma finalidade.
+     * O código é único entre os códigos válidos da finalidade.
+     * @return O código gerado.
+     */
+    String issue(Purpose purpose, String email, Duration ttl);
+
+    /**
+     * @return true se o código é o código válido (não expirado) do e-mail.
+     */
+    boolean matches(Purpose purpose, String email, String code);
+
+    /**
+     * Descarta o código do e-mail, depois de usado.
+     */
+    void invalidate(Purpose purpose, String email);
+}
@@ -0,0 +1,81 @@
+package com.projects.wtg.service;
+
+import com.projects.wtg.model.PlanType;
+import com.projects.wtg.repository.PromotionCandidate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Ranking padrão: soma ponderada de sinais normalizados entre 0 e 1.
+ * - distância: decaimento exponencial com meia-vida configurável (1 no ponto da busca, 0,5 na meia-vida);
+ * - destaque: 1 para promoções com highlight;
+ * - recência: decaimento exponencial pela idade de updatedAt;
+ * - plano do dono: parceiros primeiro, depois planos pagos, e por último o gratuito;
+ * - comentários: log da quantidade, saturando em ~100 comentários.
+ * Registrado com os pesos de promotions.ranking.* pelo PromotionRankingConfig, a menos que exista outro {@link PromotionRanker}.
+ */
+public class WeightedPromotionRanker implements PromotionRanker {
+
+    private static final double LN_2 = Math.log(2);
+    private static final double COMMENTS_SATURATION = Math.log1p(100);
+
+    private final double distanceWeight;
+    private final double distanceHalfLifeMeters;
+    private final double highlightWeight;
+    private final double recencyWeight;
+    private final double recencyHalfLifeHours;
+    private final double planWeight;
+    private final double commentsWeight;
+
+    public WeightedPromotionRanker(double distanceWeight,
+                                   double distanceHalfLifeMeters,
+                                   double highlightWeight,
+                                   double recencyWeight,
+                                   double recencyHalfLifeHours,
+                                   double planWeight,
+                                   double commentsWeight) {
+        this.distanceWeight = distanceWeight;
+        this.distanceHalfLifeMeters = distanceHalfLifeMeters;
+        this.highlightWeight = highlightWeight;
+        this.recencyWeight = recencyWeight;
+        this.recencyHalfLifeHours = recencyHalfLifeHours;
+        this.planWeight = planWeight;
+        this.commentsWeight = commentsWeight;
+    }
+
+    @Override
+    public double score(PromotionCandidate candidate, LocalDateTime now) {
+        double score = 0;
+        if (candidate.distanceInMeters() != null) {
+            score += distanceWeight * decay(candidate.distanceInMeters(), distanceHalfLifeMeters);
+        }
+        if (candidate.highlight()) {
+            score += highlightWeight;
+        }
+        if (candidate.updatedAt() != null) {
+            double ageHours = Math.max(0, Duration.between(candidate.updatedAt(), now).toMinutes() / 60.0);
+            score += recencyWeight * decay(ageHours, recencyHalfLifeHours);
+        }
+        score += planWeight * planBoost(candidate.ownerPlanType());
+        score += commentsWeight * Math.min(1.0, Math.log1p(candidate.commentCount()) / COMMENTS_SATURATION);
+        return score;
+    }
+
+    private static double decay(double value, double halfLife) {
+        return Math.exp(-LN_2 * value / halfLife);
+    }
+
+    private static double planBoost(PlanType planType) {
+        if (planType == null) {
+            return 0;
+        }
+        return switch (planType) {
+            case PARTNER -> 1.0;
+            case ANUAL -> 0.7;
+            case MONTHLY -> 0.6;
+            case WEEKLY -> 0.4;
+            case FREE -> 0.1;
+        };
+    }
+}
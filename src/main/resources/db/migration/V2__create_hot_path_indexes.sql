@@ -0,0 +1,67 @@
+-- flyway:executeInTransaction=false
+-- Índices das consultas mais frequentes da aplicação.
+-- O esquema inicial (init-scripts/init.sql) corresponde à versão 1 (baseline) e não tinha índices além das PKs.
+-- CONCURRENTLY para não bloquear escritas nas tabelas já populadas; por isso a migração roda fora de transação.
+-- Se um índice falhar no meio da criação, ele fica INVALID: remova-o (DROP INDEX CONCURRENTLY) antes de repetir.
+
+-- ==================================================
+-- PROMOÇÕES
+-- ==================================================
+-- Buscas por raio e KNN (ST_DWithin / <->): todas filtram active = true.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_promotion_point_active
+    ON appwtg.promotion USING GIST (point)
+    WHERE active = true;
+
+-- Buscas por área do mapa (viewport e clusters) usam o ponto convertido para geometry com o operador &&.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_promotion_point_geometry_active
+    ON appwtg.promotion USING GIST ((CAST(point AS geometry)))
+    WHERE active = true;
+
+-- Listagem sem localização e sua paginação por keyset (updated_at DESC, id DESC).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_promotion_updated_at_active
+    ON appwtg.promotion (updated_at DESC, id DESC)
+    WHERE active = true;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_promotion_user_id
+    ON appwtg.promotion (user_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_promotion_image_promotion_id
+    ON appwtg.promotion_image (promotion_id, upload_order);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_comments_promotion_id
+    ON appwtg.comments (promotion_id);
+
+-- ==================================================
+-- USUÁRIOS E CONTAS
+-- ==================================================
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_point
+    ON appwtg."user" USING GIST (point);
+
+-- Login e todas as buscas por e-mail. Falha se já houver e-mails duplicados, que precisam ser resolvidos antes.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_account_email
+    ON appwtg.account (email);
+
+-- Confirmação de cadastro e redefinição de senha.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_account_token
+    ON appwtg.account (token)
+    WHERE token IS NOT NULL;
+
+-- ==================================================
+-- PLANOS
+-- ==================================================
+-- Agendador: planos ativos vencidos (status = active AND finish_at <= now).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_plan_active_finish_at
+    ON appwtg.user_plan (finish_at)
+    WHERE status = 'active';
+
+-- Agendador: planos prontos para ativar (status = readytoactive AND started_at <= now).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_plan_ready_started_at
+    ON appwtg.user_plan (started_at)
+    WHERE status = 'readytoactive';
+
+-- Plano atual e último plano de um usuário.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_plan_user_status
+    ON appwtg.user_plan (user_id, status);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_plan_user_created_at
+    ON appwtg.user_plan (user_id, created_at DESC);
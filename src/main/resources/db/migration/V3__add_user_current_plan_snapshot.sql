@@ -0,0 +1,24 @@
+-- Snapshot do plano atual do usuário (User.currentPlan), para que login, perfil e ranking
+-- leiam o plano vigente sem carregar o histórico de user_plan.
+
+ALTER TABLE appwtg."user"
+    ADD COLUMN IF NOT EXISTS current_plan_id bigint REFERENCES appwtg.plan (id),
+    ADD COLUMN IF NOT EXISTS current_plan_type appwtg.plan_type,
+    ADD COLUMN IF NOT EXISTS current_plan_status appwtg.plan_status,
+    ADD COLUMN IF NOT EXISTS current_plan_started_at timestamp with time zone,
+    ADD COLUMN IF NOT EXISTS current_plan_finish_at timestamp with time zone;
+
+-- Preenchimento inicial: o plano ativo do usuário ou, sem plano ativo, o mais recente.
+UPDATE appwtg."user" u
+SET current_plan_id         = s.plan_id,
+    current_plan_type       = s.type,
+    current_plan_status     = s.status,
+    current_plan_started_at = s.started_at,
+    current_plan_finish_at  = s.finish_at
+FROM (
+    SELECT DISTINCT ON (up.user_id) up.user_id, up.plan_id, pl.type, up.status, up.started_at, up.finish_at
+    FROM appwtg.user_plan up
+    JOIN appwtg.plan pl ON pl.id = up.plan_id
+    ORDER BY up.user_id, (up.status = 'active') DESC, up.created_at DESC NULLS LAST
+) s
+WHERE u.id = s.user_id;
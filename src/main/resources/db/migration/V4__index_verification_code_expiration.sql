@@ -0,0 +1,5 @@
+-- Limpeza dos códigos de verificação vencidos (verification-codes.store=database):
+-- o UPDATE só percorre as contas que têm código pendente.
+CREATE INDEX IF NOT EXISTS idx_account_verification_code_expiration
+    ON appwtg.account (registration_token_expiration)
+    WHERE registration_token IS NOT NULL OR token IS NOT NULL;
@@ -0,0 +1,8 @@
+-- Leases dos jobs agendados (JobLeaseService): com várias instâncias, só o dono do lease roda o job.
+-- O lease expira se o dono parar de renová-lo (heartbeat), e outra instância assume.
+CREATE TABLE IF NOT EXISTS appwtg.job_lease (
+    job_name     varchar(100) PRIMARY KEY,
+    owner        varchar(200)             NOT NULL,
+    expires_at   timestamp with time zone NOT NULL,
+    heartbeat_at timestamp with time zone NOT NULL
+);
@@ -0,0 +1,21 @@
+-- Outbox dos efeitos colaterais (OutboxService): gravado na mesma transação da alteração, com os ids na ordem
+-- de commit, e publicado depois para os assinantes da aplicação, em ordem de id por agregado (event_type, aggregate_id).
+CREATE TABLE IF NOT EXISTS appwtg.outbox_event (
+    id           bigserial PRIMARY KEY,
+    event_type   varchar(100)             NOT NULL,
+    aggregate_id bigint,
+    payload      jsonb                    NOT NULL,
+    created_at   timestamp with time zone NOT NULL DEFAULT now(),
+    published_at timestamp with time zone,
+    attempts     integer                  NOT NULL DEFAULT 0,
+    last_error   varchar(1000)
+);
+
+-- O poller só percorre os eventos pendentes; a retenção, os já publicados.
+CREATE INDEX IF NOT EXISTS idx_outbox_event_pending
+    ON appwtg.outbox_event (id)
+    WHERE published_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_event_published_at
+    ON appwtg.outbox_event (published_at)
+    WHERE published_at IS NOT NULL;
@@ -0,0 +1,14 @@
+-- Refresh tokens emitidos no modo stateless (RefreshTokenStore): cada um é revogado ao ser usado.
+CREATE TABLE IF NOT EXISTS appwtg.refresh_token (
+    token_id   varchar(36) PRIMARY KEY,
+    user_id    bigint                   NOT NULL REFERENCES appwtg."user" (id) ON DELETE CASCADE,
+    expires_at timestamp with time zone NOT NULL,
+    revoked_at timestamp with time zone
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_token_user_active
+    ON appwtg.refresh_token (user_id)
+    WHERE revoked_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expires_at
+    ON appwtg.refresh_token (expires_at);
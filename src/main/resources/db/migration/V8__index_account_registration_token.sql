@@ -0,0 +1,6 @@
+-- flyway:executeInTransaction=false
+-- Busca da conta pelo código de confirmação de cadastro (verification-codes.store=database).
+-- CONCURRENTLY para não bloquear as escritas na tabela account durante a criação.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_account_registration_token
+    ON appwtg.account (registration_token)
+    WHERE registration_token IS NOT NULL;
@@ -0,0 +1,70 @@
+package com.projects.wtg;
+
+import com.projects.wtg.config.BoundedPasswordEncoder;
+import com.projects.wtg.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void encodeAndMatches_shouldDelegateToBcryptAndRecordTimings() throws Exception {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry, 2, 4, 5000);
+
+        String hash = encoder.encode("Senha@123");
+
+        assertTrue(encoder.matches("Senha@123", hash));
+        assertFalse(encoder.matches("errada", hash));
+        assertEquals(1, meterRegistry.get("security.password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("security.password.hashing").tag("operation", "matches").timer().count());
+        encoder.destroy();
+    }
+
+    @Test
+    void encode_shouldRejectWhenThreadsAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        };
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, meterRegistry, 1, 1, 5000);
+
+        // Uma em execução e uma na fila: a terceira é recusada imediatamente.
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("security.password.queue.size").gauge().value() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("c"));
+        assertEquals(1.0, meterRegistry.get("security.password.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+        encoder.destroy();
+    }
+}
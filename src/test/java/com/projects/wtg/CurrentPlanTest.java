@@ -0,0 +1,44 @@
+package com.projects.wtg;
+
+import com.projects.wtg.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CurrentPlanTest {
+
+    private final Plan free = Plan.builder().id(1L).planName("Free").type(PlanType.FREE).build();
+    private final Plan monthly = Plan.builder().id(2L).planName("Mensal").type(PlanType.MONTHLY).build();
+
+    private UserPlan userPlan(Plan plan, PlanStatus status) {
+        return UserPlan.builder().plan(plan).planStatus(status).startedAt(LocalDateTime.now()).build();
+    }
+
+    @Test
+    void refreshCurrentPlan_shouldKeepTheActivePlanWhenAnotherIsScheduled() {
+        User user = new User();
+        user.refreshCurrentPlan(userPlan(free, PlanStatus.ACTIVE));
+
+        user.refreshCurrentPlan(userPlan(monthly, PlanStatus.READYTOACTIVE));
+
+        assertEquals(PlanType.FREE, user.getCurrentPlan().getType());
+        assertEquals(PlanStatus.ACTIVE, user.getCurrentPlan().getStatus());
+    }
+
+    @Test
+    void refreshCurrentPlan_shouldFollowExpirationAndActivation() {
+        User user = new User();
+        UserPlan current = userPlan(free, PlanStatus.ACTIVE);
+        user.refreshCurrentPlan(current);
+
+        current.setPlanStatus(PlanStatus.INACTIVE);
+        user.refreshCurrentPlan(current);
+        assertEquals(PlanStatus.INACTIVE, user.getCurrentPlan().getStatus());
+
+        user.refreshCurrentPlan(userPlan(monthly, PlanStatus.ACTIVE));
+        assertEquals(PlanType.MONTHLY, user.getCurrentPlan().getType());
+        assertEquals(PlanStatus.ACTIVE, user.getCurrentPlan().getStatus());
+    }
+}
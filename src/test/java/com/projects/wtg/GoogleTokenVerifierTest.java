@@ -0,0 +1,78 @@
+package com.projects.wtg;
+
+import com.projects.wtg.service.GoogleTokenVerifier;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GoogleTokenVerifierTest {
+
+    private HttpServer certsServer;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String cacheControl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Substituto local do endpoint de certificados do Google.
+        certsServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        certsServer.createContext("/oauth2/v1/certs", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        certsServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        certsServer.stop(0);
+    }
+
+    private GoogleTokenVerifier verifier(long refreshAheadSeconds) {
+        String certsUrl = "http://localhost:" + certsServer.getAddress().getPort() + "/oauth2/v1/certs";
+        return new GoogleTokenVerifier("web-client", "ios-client", certsUrl, 4, refreshAheadSeconds, 60_000);
+    }
+
+    @Test
+    void refreshKeysIfExpiring_shouldHonourCacheControlMaxAge() {
+        cacheControl = "public, max-age=3600";
+        GoogleTokenVerifier verifier = verifier(600);
+
+        verifier.refreshKeysIfExpiring();
+        verifier.refreshKeysIfExpiring();
+        verifier.refreshKeysIfExpiring();
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void refreshKeysIfExpiring_shouldRefreshAheadOfExpiration() {
+        // Chaves válidas por 60s, renovação com 600s de antecedência: toda verificação renova.
+        cacheControl = "public, max-age=60";
+        GoogleTokenVerifier verifier = verifier(600);
+
+        verifier.refreshKeysIfExpiring();
+        verifier.refreshKeysIfExpiring();
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void constructor_shouldRejectRefreshAheadInsideTheKeysManagerWindow() {
+        // 300s de antecedência não bastam com verificação a cada 60s: o mínimo é 360s.
+        assertThrows(IllegalArgumentException.class, () -> verifier(300));
+        assertThrows(IllegalArgumentException.class, () -> verifier(359));
+    }
+}
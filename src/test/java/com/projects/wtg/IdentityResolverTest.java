@@ -0,0 +1,111 @@
+package com.projects.wtg;
+
+import com.projects.wtg.model.UserType;
+import com.projects.wtg.repository.UserIdentity;
+import com.projects.wtg.repository.UserRepository;
+import com.projects.wtg.service.IdentityChangedEvent;
+import com.projects.wtg.service.IdentityResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class IdentityResolverTest {
+
+    private static final UserIdentity IDENTITY = new UserIdentity(7L, 3L, "user@wtg.com", UserType.USUARIO, true);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void resolve_shouldQueryOnceWhileTheEntryIsFresh() {
+        IdentityResolver resolver = new IdentityResolver(userRepository, 10, 30);
+        when(userRepository.findIdentityByEmail("user@wtg.com")).thenReturn(Optional.of(IDENTITY));
+
+        assertEquals(IDENTITY, resolver.resolve("user@wtg.com"));
+        assertEquals(IDENTITY, resolver.resolve("user@wtg.com"));
+
+        verify(userRepository, times(1)).findIdentityByEmail("user@wtg.com");
+    }
+
+    @Test
+    void resolve_shouldReuseTheRequestCacheEvenWithoutSharedCache() {
+        IdentityResolver resolver = new IdentityResolver(userRepository, 10, 0);
+        when(userRepository.findIdentityByEmail("user@wtg.com")).thenReturn(Optional.of(IDENTITY));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        resolver.resolve("user@wtg.com");
+        resolver.resolve("user@wtg.com");
+        verify(userRepository, times(1)).findIdentityByEmail("user@wtg.com");
+
+        // Nova requisição, entrada compartilhada expirada (TTL 0): consulta de novo.
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        resolver.resolve("user@wtg.com");
+        verify(userRepository, times(2)).findIdentityByEmail("user@wtg.com");
+    }
+
+    @Test
+    void onIdentityChanged_shouldEvictTheEntry() {
+        IdentityResolver resolver = new IdentityResolver(userRepository, 10, 30);
+        when(userRepository.findIdentityByEmail("user@wtg.com")).thenReturn(Optional.of(IDENTITY));
+
+        resolver.resolve("user@wtg.com");
+        resolver.onIdentityChanged(new IdentityChangedEvent("user@wtg.com"));
+        assertEquals(0, resolver.size());
+
+        resolver.resolve("user@wtg.com");
+        verify(userRepository, times(2)).findIdentityByEmail("user@wtg.com");
+    }
+
+    @Test
+    void find_shouldIgnoreInactiveAccounts() {
+        IdentityResolver resolver = new IdentityResolver(userRepository, 10, 30);
+        when(userRepository.findIdentityByEmail("user@wtg.com"))
+                .thenReturn(Optional.of(new UserIdentity(7L, 3L, "user@wtg.com", UserType.USUARIO, false)));
+
+        assertTrue(resolver.find("user@wtg.com").isEmpty());
+        assertEquals(0, resolver.size());
+    }
+
+    @Test
+    void find_shouldNotCacheALookupThatRacedWithAnIdentityChange() {
+        IdentityResolver resolver = new IdentityResolver(userRepository, 10, 30);
+        // A conta muda enquanto a consulta está em andamento.
+        when(userRepository.findIdentityByEmail("user@wtg.com")).thenAnswer(invocation -> {
+            resolver.onIdentityChanged(new IdentityChangedEvent("user@wtg.com"));
+            return Optional.of(IDENTITY);
+        });
+
+        assertEquals(IDENTITY, resolver.resolve("user@wtg.com"));
+        assertEquals(0, resolver.size());
+    }
+
+    @Test
+    void resolve_shouldNotCacheUnknownEmails() {
+        IdentityResolver resolver = new IdentityResolver(userRepository, 10, 30);
+        when(userRepository.findIdentityByEmail("novo@wtg.com")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> resolver.resolve("novo@wtg.com"));
+        assertEquals(0, resolver.size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.projects.wtg;
+
+import com.projects.wtg.service.InMemoryVerificationCodeStore;
+import com.projects.wtg.service.VerificationCodeStore.Purpose;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryVerificationCodeStoreTest {
+
+    private final InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore();
+
+    @BeforeEach
+    void setUp() {
+        store.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    void issue_shouldReplaceThePreviousCodeOfTheSamePurpose() {
+        String first = store.issue(Purpose.REGISTRATION, "a@wtg.com", Duration.ofMinutes(1));
+        String second = store.issue(Purpose.REGISTRATION, "a@wtg.com", Duration.ofMinutes(1));
+
+        assertTrue(store.matches(Purpose.REGISTRATION, "a@wtg.com", second));
+        if (!first.equals(second)) {
+            assertFalse(store.matches(Purpose.REGISTRATION, "a@wtg.com", first));
+        }
+        assertFalse(store.matches(Purpose.PASSWORD_RESET, "a@wtg.com", second));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void matches_shouldOnlyAcceptTheCodeForItsOwnEmailUntilInvalidated() {
+        String code = store.issue(Purpose.PASSWORD_RESET, "a@wtg.com", Duration.ofMinutes(10));
+        String other = store.issue(Purpose.PASSWORD_RESET, "b@wtg.com", Duration.ofMinutes(10));
+
+        assertNotEquals(code, other);
+        assertTrue(store.matches(Purpose.PASSWORD_RESET, "a@wtg.com", code));
+        assertFalse(store.matches(Purpose.PASSWORD_RESET, "b@wtg.com", code));
+
+        store.invalidate(Purpose.PASSWORD_RESET, "a@wtg.com");
+        assertFalse(store.matches(Purpose.PASSWORD_RESET, "a@wtg.com", code));
+        assertTrue(store.matches(Purpose.PASSWORD_RESET, "b@wtg.com", other));
+    }
+
+    @Test
+    void expiredCodes_shouldBeRejectedAndRemoved() throws InterruptedException {
+        String code = store.issue(Purpose.REGISTRATION, "a@wtg.com", Duration.ofMillis(50));
+
+        Thread.sleep(100);
+        assertFalse(store.matches(Purpose.REGISTRATION, "a@wtg.com", code));
+
+        for (int i = 0; i < 50 && store.size() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.projects.wtg;
+
+import com.projects.wtg.service.JobLeaseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class JobLeaseServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private JobLeaseService jobLeaseService;
+
+    @BeforeEach
+    void setUp() {
+        jobLeaseService = new JobLeaseService(jdbcTemplate, true, 3, "node-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobLeaseService.destroy();
+    }
+
+    @Test
+    void runExclusive_shouldSkipWhenAnotherNodeHoldsTheLease() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO appwtg.job_lease"), eq("job"), eq("node-1"), eq(3L))).thenReturn(0);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertFalse(jobLeaseService.runExclusive("job", () -> ran.set(true)));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void runExclusive_shouldRunAndReleaseTheLease() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO appwtg.job_lease"), eq("job"), eq("node-1"), eq(3L))).thenReturn(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertTrue(jobLeaseService.runExclusive("job", () -> ran.set(true)));
+        assertTrue(ran.get());
+        verify(jdbcTemplate).update(startsWith("UPDATE appwtg.job_lease SET expires_at = now() WHERE"), eq("job"), eq("node-1"));
+    }
+
+    @Test
+    void lease_shouldBeMarkedLostWhenTheHeartbeatFindsAnotherOwner() throws InterruptedException {
+        when(jdbcTemplate.update(startsWith("INSERT INTO appwtg.job_lease"), eq("job"), eq("node-1"), eq(3L))).thenReturn(1);
+        when(jdbcTemplate.update(startsWith("UPDATE appwtg.job_lease SET expires_at = now() +"), anyLong(), anyString(), anyString())).thenReturn(0);
+
+        JobLeaseService.JobLease lease = jobLeaseService.tryAcquire("job").orElseThrow();
+
+        verify(jdbcTemplate, timeout(3000)).update(startsWith("UPDATE appwtg.job_lease SET expires_at = now() +"), eq(3L), eq("job"), eq("node-1"));
+        for (int i = 0; i < 50 && lease.isHeld(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(lease.isHeld());
+        lease.close();
+    }
+}
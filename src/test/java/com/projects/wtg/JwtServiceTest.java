@@ -0,0 +1,106 @@
+package com.projects.wtg;
+
+import com.projects.wtg.config.JwtAuthenticationFilter;
+import com.projects.wtg.model.UserType;
+import com.projects.wtg.repository.UserIdentity;
+import com.projects.wtg.service.JwtPrincipal;
+import com.projects.wtg.service.JwtService;
+import com.projects.wtg.service.RefreshTokenStore;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JwtServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("chave-de-teste-com-pelo-menos-32-bytes".getBytes());
+
+    private static final UserIdentity USER = new UserIdentity(42L, 7L, "user@wtg.com", UserType.USUARIO, true);
+
+    private final RefreshTokenStore refreshTokenStore = mock(RefreshTokenStore.class);
+    private final JwtService jwtService = new JwtService(refreshTokenStore, true, SECRET, Duration.ofMinutes(15), Duration.ofDays(30), 100);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void filter_shouldLetRequestsWithAnExpiredTokenReachTheAuthorizationRules() throws Exception {
+        JwtService expiring = new JwtService(refreshTokenStore, true, SECRET, Duration.ofSeconds(-1), Duration.ofDays(30), 100);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/refresh");
+        request.addHeader("Authorization", "Bearer " + expiring.issueAccessToken(USER));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        new JwtAuthenticationFilter(jwtService).doFilter(request, response, chain);
+
+        // A requisição segue sem autenticação: o /refresh é público e os endpoints protegidos respondem 401 pelo entry point.
+        assertNotNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void parseAccessToken_shouldReturnIdentityAndAuthoritiesFromClaims() {
+        String token = jwtService.issueAccessToken(USER);
+
+        JwtPrincipal principal = jwtService.parseAccessToken(token);
+
+        assertEquals(USER, principal.toIdentity());
+        assertEquals("user@wtg.com", principal.getName());
+        assertEquals("ROLE_USUARIO", principal.authorities().get(0).getAuthority());
+        // Segunda validação vem do cache.
+        assertSame(principal, jwtService.parseAccessToken(token));
+    }
+
+    @Test
+    void parse_shouldRejectTokensOfTheWrongType() {
+        String access = jwtService.issueAccessToken(USER);
+        String refresh = jwtService.issueRefreshToken(USER);
+
+        assertThrows(JwtException.class, () -> jwtService.parseRefreshToken(access));
+        assertThrows(JwtException.class, () -> jwtService.parseAccessToken(refresh));
+    }
+
+    @Test
+    void parseAccessToken_shouldRejectExpiredAndForeignTokens() {
+        JwtService expiring = new JwtService(refreshTokenStore, true, SECRET, Duration.ofSeconds(-1), Duration.ofDays(30), 100);
+        String expired = expiring.issueAccessToken(USER);
+        assertThrows(JwtException.class, () -> jwtService.parseAccessToken(expired));
+
+        String otherSecret = Base64.getEncoder().encodeToString("outra-chave-de-teste-com-mais-de-32-bytes".getBytes());
+        String foreign = new JwtService(refreshTokenStore, true, otherSecret, Duration.ofMinutes(15), Duration.ofDays(30), 100)
+                .issueAccessToken(USER);
+        assertThrows(JwtException.class, () -> jwtService.parseAccessToken(foreign));
+    }
+
+    @Test
+    void consumeRefreshToken_shouldRevokeAllTokensOfTheUserWhenTheTokenWasAlreadyUsed() {
+        String refresh = jwtService.issueRefreshToken(USER);
+        verify(refreshTokenStore).register(anyString(), anyLong(), any());
+        when(refreshTokenStore.consume(anyString())).thenReturn(true, false);
+
+        assertEquals(42L, jwtService.consumeRefreshToken(refresh).userId());
+        assertThrows(JwtException.class, () -> jwtService.consumeRefreshToken(refresh));
+        verify(refreshTokenStore).revokeAll(42L);
+    }
+}
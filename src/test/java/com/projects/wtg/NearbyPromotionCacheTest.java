@@ -0,0 +1,218 @@
+package com.projects.wtg;
+
+import com.projects.wtg.dto.PromotionDto;
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.service.NearbyPromotionCache;
+import com.projects.wtg.service.NearbyPromotions;
+import com.projects.wtg.service.PromotionChangedEvent;
+import com.projects.wtg.service.PromotionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class NearbyPromotionCacheTest {
+
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private PromotionService promotionService;
+
+    private NearbyPromotionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NearbyPromotionCache(promotionService, meterRegistry, true, 0.005, 2, 60);
+        lenient().when(promotionService.findNearbyPromotions(anyDouble(), anyDouble(), anyDouble()))
+                .thenAnswer(invocation -> new NearbyPromotions(List.of(
+                        candidate(10L, (double) invocation.getArgument(0) + 0.001, invocation.getArgument(1)))));
+    }
+
+    private NearbyPromotions.Candidate candidate(Long id, double latitude, double longitude) {
+        PromotionDto dto = new PromotionDto();
+        dto.setTitle("promo " + id);
+        return new NearbyPromotions.Candidate(id, latitude, longitude, dto);
+    }
+
+    private Point point(double latitude, double longitude) {
+        return geometryFactory.createPoint(new Coordinate(longitude, latitude));
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("promotions.nearby.cache.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    void findNearby_shouldShareResultsInsideTheSameCell() {
+        cache.findNearby(-8.04761, -34.87701);
+        cache.findNearby(-8.04799, -34.87799);
+
+        verify(promotionService, times(1)).findNearbyPromotions(anyDouble(), anyDouble(), anyDouble());
+        assertEquals(1.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    @Test
+    void findNearby_shouldComputeDistanceAndOrderForEachCaller() {
+        // Candidatas a oeste e a leste dentro da mesma célula; a mais próxima muda conforme o usuário.
+        when(promotionService.findNearbyPromotions(anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(new NearbyPromotions(List.of(candidate(1L, -8.0475, -34.8800), candidate(2L, -8.0475, -34.8751),
+                        candidate(3L, -8.0475, -34.8000))));
+
+        List<PromotionDto> west = cache.findNearby(-8.0475, -34.8799);
+        List<PromotionDto> east = cache.findNearby(-8.0475, -34.8752);
+
+        verify(promotionService, times(1)).findNearbyPromotions(anyDouble(), anyDouble(), anyDouble());
+        assertEquals(List.of("promo 1", "promo 2"), west.stream().map(PromotionDto::getTitle).toList());
+        assertEquals(List.of("promo 2", "promo 1"), east.stream().map(PromotionDto::getTitle).toList());
+        assertEquals(11.0, east.get(0).getDistanceInMeters(), 1.0);
+        // A promoção a ~8,5 km fica de fora, e o DTO em cache não é alterado.
+        assertEquals(11.0, west.get(0).getDistanceInMeters(), 1.0);
+    }
+
+    @Test
+    void findNearby_shouldLoadAMissingCellOnlyOnceForConcurrentCallers() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(promotionService.findNearbyPromotions(anyDouble(), anyDouble(), anyDouble())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new NearbyPromotions(List.of(candidate(10L, -8.0476, -34.8770)));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<PromotionDto>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.findNearby(-8.0476, -34.8770)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.findNearby(-8.0477, -34.8771)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<List<PromotionDto>> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(promotionService, times(1)).findNearbyPromotions(anyDouble(), anyDouble(), anyDouble());
+        assertEquals(1.0, requests("miss"));
+        // Quem esperou a busca de outra requisição não conta como acerto.
+        assertEquals(3.0, requests("shared"));
+        assertEquals(0.0, requests("hit"));
+    }
+
+    @Test
+    void findNearby_shouldNotReuseExpiredEntries() {
+        cache = new NearbyPromotionCache(promotionService, meterRegistry, true, 0.005, 2, 0);
+
+        cache.findNearby(-8.0476, -34.8770);
+        cache.findNearby(-8.0476, -34.8770);
+
+        verify(promotionService, times(2)).findNearbyPromotions(anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void findNearby_shouldEvictTheLeastRecentlyUsedCell() {
+        cache.findNearby(-8.0476, -34.8770);
+        cache.findNearby(-23.55, -46.63);
+        cache.findNearby(-8.0476, -34.8770);
+        cache.findNearby(-3.73, -38.52);
+
+        assertEquals(2, cache.size());
+        cache.findNearby(-8.0476, -34.8770);
+        assertEquals(2.0, requests("hit"));
+    }
+
+    @Test
+    void onPromotionChanged_shouldInvalidateOnlyAffectedCells() {
+        cache.findNearby(-8.0476, -34.8770);
+        cache.findNearby(-23.55, -46.63);
+
+        // Promoção nova a ~1 km de Recife: só a célula de Recife é descartada.
+        cache.onPromotionChanged(new PromotionChangedEvent(99L, point(-8.0566, -34.8770), PromotionType.PARTY, true, false));
+        assertEquals(1, cache.size());
+
+        // Promoção já presente no resultado, movida para longe: a célula que a continha é descartada.
+        cache.onPromotionChanged(new PromotionChangedEvent(10L, point(10.0, 10.0), PromotionType.PARTY, false, false));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onPromotionChanged_shouldKeepLoadsOfUnaffectedCellsAndDropLoadsInReach() throws Exception {
+        cache = new NearbyPromotionCache(promotionService, meterRegistry, true, 0.005, 10000, 60);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(promotionService.findNearbyPromotions(anyDouble(), anyDouble(), anyDouble())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new NearbyPromotions(List.of(candidate(10L, -8.0476, -34.8770)));
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<PromotionDto>> result = executor.submit(() -> cache.findNearby(-8.0476, -34.8770));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // Alteração em São Paulo durante a busca em Recife: a busca continua valendo.
+            cache.onPromotionChanged(new PromotionChangedEvent(99L, point(-23.55, -46.63), PromotionType.PARTY, true, false));
+            release.countDown();
+            assertEquals(1, result.get(5, TimeUnit.SECONDS).size());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, cache.size());
+
+        // A célula é encontrada pelo raio em volta da promoção, sem percorrer as demais entradas.
+        cache.onPromotionChanged(new PromotionChangedEvent(99L, point(-8.0566, -34.8770), PromotionType.PARTY, true, false));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onPromotionChanged_shouldNotCacheALoadOfACellInReach() throws Exception {
+        cache = new NearbyPromotionCache(promotionService, meterRegistry, true, 0.005, 10000, 60);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(promotionService.findNearbyPromotions(anyDouble(), anyDouble(), anyDouble())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new NearbyPromotions(List.of(candidate(10L, -8.0476, -34.8770)));
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<PromotionDto>> result = executor.submit(() -> cache.findNearby(-8.0476, -34.8770));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            cache.onPromotionChanged(new PromotionChangedEvent(99L, point(-8.0566, -34.8770), PromotionType.PARTY, true, false));
+            release.countDown();
+            result.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.projects.wtg;
+
+import com.projects.wtg.dto.PromotionDto;
+import com.projects.wtg.service.NearbyPromotionCache;
+import com.projects.wtg.service.NearbyPromotionPrefetcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class NearbyPromotionPrefetcherTest {
+
+    @Mock
+    private NearbyPromotionCache nearbyPromotionCache;
+
+    private NearbyPromotionPrefetcher prefetcher;
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.destroy();
+    }
+
+    @Test
+    void await_shouldReturnPromotionsFinishedWithinTheBudget() {
+        prefetcher = new NearbyPromotionPrefetcher(nearbyPromotionCache, new SimpleMeterRegistry(), 1000, 16);
+        List<PromotionDto> promotions = List.of(new PromotionDto());
+        when(nearbyPromotionCache.findNearby(-8.0476, -34.8770)).thenReturn(promotions);
+
+        NearbyPromotionPrefetcher.Prefetch nearby = prefetcher.start(-8.0476, -34.8770);
+
+        assertEquals(promotions, nearby.await());
+        assertNull(nearby.omitted());
+    }
+
+    @Test
+    void await_shouldOmitPromotionsWhenTheBudgetIsExceeded() {
+        prefetcher = new NearbyPromotionPrefetcher(nearbyPromotionCache, new SimpleMeterRegistry(), 20, 16);
+        when(nearbyPromotionCache.findNearby(-8.0476, -34.8770)).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            return List.of(new PromotionDto());
+        });
+
+        NearbyPromotionPrefetcher.Prefetch nearby = prefetcher.start(-8.0476, -34.8770);
+        long startedAt = System.nanoTime();
+
+        assertNull(nearby.await());
+        assertTrue(nearby.omitted());
+        assertTrue(System.nanoTime() - startedAt < 500_000_000L);
+    }
+
+    @Test
+    void start_withoutCoordinates_shouldNotSearch() {
+        prefetcher = new NearbyPromotionPrefetcher(nearbyPromotionCache, new SimpleMeterRegistry(), 1000, 16);
+
+        NearbyPromotionPrefetcher.Prefetch nearby = prefetcher.start(null, null);
+
+        assertNull(nearby.await());
+        assertNull(nearby.omitted());
+        verifyNoInteractions(nearbyPromotionCache);
+    }
+
+    @Test
+    void start_shouldNotSearchWhenAllPermitsAreTaken() throws InterruptedException {
+        prefetcher = new NearbyPromotionPrefetcher(nearbyPromotionCache, new SimpleMeterRegistry(), 20, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(nearbyPromotionCache.findNearby(-8.0476, -34.8770)).thenAnswer(invocation -> {
+            release.await();
+            return List.of(new PromotionDto());
+        });
+
+        NearbyPromotionPrefetcher.Prefetch first = prefetcher.start(-8.0476, -34.8770);
+        NearbyPromotionPrefetcher.Prefetch second = prefetcher.start(-8.0476, -34.8770);
+
+        assertNull(second.await());
+        assertTrue(second.omitted());
+        release.countDown();
+        first.await();
+        verify(nearbyPromotionCache, times(1)).findNearby(-8.0476, -34.8770);
+    }
+}
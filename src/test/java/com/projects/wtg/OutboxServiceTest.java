@@ -0,0 +1,166 @@
+package com.projects.wtg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.wtg.service.JobLeaseService;
+import com.projects.wtg.service.OutboxMessage;
+import com.projects.wtg.service.OutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        // Leases desabilitados: uma única instância.
+        JobLeaseService jobLeaseService = new JobLeaseService(jdbcTemplate, false, 60, "node-1");
+        outboxService = new OutboxService(jdbcTemplate, entityManager, objectMapper, eventPublisher, jobLeaseService, meterRegistry, 2, 3, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    private Map<String, Object> row(long id, long promotionId, int attempts) {
+        return Map.of("id", id, "event_type", OutboxMessage.PROMOTION_IMAGE_DELETED, "aggregate_id", promotionId,
+                "payload", "{\"imageId\":" + id + ",\"promotionId\":" + promotionId + ",\"s3Key\":\"images/" + id + ".jpg\"}",
+                "created_at", Timestamp.from(Instant.now()), "attempts", attempts);
+    }
+
+    private void failOn(long... ids) {
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof OutboxMessage message && Arrays.stream(ids).anyMatch(id -> id == message.id())) {
+                throw new IllegalStateException("assinante fora do ar");
+            }
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void append_shouldWriteTheEventsOfATransactionInOneBatchUnderTheWriteLockBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        outboxService.append(OutboxMessage.PROMOTION_IMAGE_DELETED, 7L, new OutboxMessage.PromotionImageDeleted(1L, 7L, "images/1.jpg"));
+        outboxService.append(OutboxMessage.PROMOTION_IMAGE_DELETED, 8L, new OutboxMessage.PromotionImageDeleted(2L, 8L, "images/2.jpg"));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(List.class));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Flush do Hibernate, advisory lock e só então o INSERT.
+        InOrder order = inOrder(entityManager, jdbcTemplate);
+        order.verify(entityManager).flush();
+        order.verify(jdbcTemplate).queryForList(contains("pg_advisory_xact_lock"), any(Object[].class));
+        order.verify(jdbcTemplate).batchUpdate(contains("INSERT INTO appwtg.outbox_event"), argThat((List<Object[]> rows) ->
+                rows.size() == 2 && rows.get(0)[0].equals(OutboxMessage.PROMOTION_IMAGE_DELETED) && rows.get(1)[1].equals(8L)));
+    }
+
+    @Test
+    void append_shouldRequireATransaction() {
+        assertThrows(IllegalStateException.class, () -> outboxService.append(OutboxMessage.PROMOTION_IMAGE_DELETED, 1L, Map.of()));
+    }
+
+    @Test
+    void publishPending_shouldHoldTheNextEventsOfAFailedAggregateButNotTheOthers() {
+        when(jdbcTemplate.queryForList(contains("published_at IS NULL"), eq(0L), eq(2)))
+                .thenReturn(List.of(row(1, 7, 0), row(2, 7, 0)));
+        when(jdbcTemplate.queryForList(contains("published_at IS NULL"), eq(2L), eq(2)))
+                .thenReturn(List.of(row(3, 8, 0)));
+        failOn(1);
+
+        int published = outboxService.publishPending();
+
+        // O evento 2 espera o 1 (mesma promoção); o 3, de outra promoção, é entregue no lote seguinte.
+        assertEquals(1, published);
+        ArgumentCaptor<Object> delivered = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(delivered.capture());
+        assertEquals(List.of(1L, 3L), delivered.getAllValues().stream().map(message -> ((OutboxMessage) message).id()).toList());
+        verify(jdbcTemplate).batchUpdate(contains("SET published_at = now()"), argThat((List<Object[]> rows) ->
+                rows.size() == 1 && rows.get(0)[0].equals(3L)));
+        verify(jdbcTemplate).update(contains("attempts = attempts + 1"), eq("IllegalStateException: assinante fora do ar"), eq(3), eq(1L));
+        assertEquals(1.0, meterRegistry.get("outbox.events.failed").tag("type", OutboxMessage.PROMOTION_IMAGE_DELETED).counter().count());
+    }
+
+    @Test
+    void publishPending_shouldLetTheAggregateMoveOnOnceAFailedEventIsDiscarded() {
+        when(jdbcTemplate.queryForList(contains("published_at IS NULL"), eq(0L), eq(2)))
+                .thenReturn(List.of(row(1, 7, 2), row(2, 7, 0)));
+        failOn(1);
+
+        int published = outboxService.publishPending();
+
+        // Terceira tentativa do evento 1 (max-attempts=3): ele é descartado e o 2 é entregue.
+        assertEquals(1, published);
+        ArgumentCaptor<Object> delivered = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(delivered.capture());
+        assertEquals("images/2.jpg", ((OutboxMessage) delivered.getAllValues().get(1)).payload().get("s3Key").asText());
+        verify(jdbcTemplate).batchUpdate(contains("SET published_at = now()"), argThat((List<Object[]> rows) ->
+                rows.size() == 1 && rows.get(0)[0].equals(2L)));
+        verify(jdbcTemplate).update(contains("attempts = attempts + 1"), eq("IllegalStateException: assinante fora do ar"), eq(3), eq(1L));
+    }
+
+    @Test
+    void publishPending_shouldDiscardAnEventWithAnUnreadablePayload() {
+        Map<String, Object> malformed = Map.of("id", 1L, "event_type", OutboxMessage.PROMOTION_IMAGE_DELETED, "aggregate_id", 7L,
+                "payload", "{", "created_at", Timestamp.from(Instant.now()), "attempts", 0);
+        when(jdbcTemplate.queryForList(contains("published_at IS NULL"), eq(0L), eq(2)))
+                .thenReturn(List.of(malformed, row(2, 7, 0)));
+
+        int published = outboxService.publishPending();
+
+        // Um payload ilegível não segura os eventos seguintes da promoção.
+        assertEquals(1, published);
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+        verify(jdbcTemplate).update(contains("published_at = now() WHERE id = ?"), contains("Payload inválido"), eq(1L));
+    }
+}
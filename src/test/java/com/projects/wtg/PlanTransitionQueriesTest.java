@@ -0,0 +1,198 @@
+package com.projects.wtg;
+
+import com.projects.wtg.model.PlanType;
+import com.projects.wtg.service.PromotionSchedulerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Executa as transições de plano do {@link PromotionSchedulerService} no PostgreSQL: os CTEs de expiração e
+ * ativação (DISTINCT ON), o snapshot current_plan_* do usuário e a desativação e liberação das promoções.
+ * Lotes de um plano, para percorrer o laço de chunks.
+ * Requer Docker para subir um PostGIS; sem Docker, o teste é ignorado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "jobs.lease.enabled=false",
+        "plans.timer.enabled=false",
+        "plans.scheduler.chunk-size=1",
+        "SPRING_SECURITY_PASSWORD=test",
+        "GOOGLE_CLIENT_SECRET=test",
+        "GOOGLE_CLIENT_APP_PASSWORF=test",
+        "S3_KEY_ACCESS=test",
+        "S3_KEY_SECRET=test"
+})
+class PlanTransitionQueriesTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgis = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:16-3.4").asCompatibleSubstituteFor("postgres"));
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgis.getJdbcUrl() + "&stringtype=unspecified");
+        registry.add("spring.datasource.username", postgis::getUsername);
+        registry.add("spring.datasource.password", postgis::getPassword);
+    }
+
+    // No futuro, para que a execução horária real não encontre nada vencido durante o teste.
+    private final LocalDateTime now = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private PromotionSchedulerService schedulerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // O Hibernate cria o status como varchar; em produção ele é o enum appwtg.plan_status (usado nos CASTs dos CTEs).
+        jdbcTemplate.execute("DO $$ BEGIN CREATE TYPE appwtg.plan_status AS ENUM ('active', 'paused', 'inactive', 'readytoactive'); " +
+                "EXCEPTION WHEN duplicate_object THEN NULL; END $$");
+        jdbcTemplate.execute("ALTER TABLE appwtg.user_plan ALTER COLUMN status TYPE appwtg.plan_status USING CAST(status AS appwtg.plan_status)");
+        jdbcTemplate.execute("ALTER TABLE appwtg.\"user\" ALTER COLUMN current_plan_status TYPE appwtg.plan_status " +
+                "USING CAST(current_plan_status AS appwtg.plan_status)");
+
+        jdbcTemplate.update("DELETE FROM appwtg.promotion");
+        jdbcTemplate.update("DELETE FROM appwtg.user_plan");
+        jdbcTemplate.update("DELETE FROM appwtg.\"user\"");
+        jdbcTemplate.update("DELETE FROM appwtg.plan");
+    }
+
+    private long createPlan(String type) {
+        return jdbcTemplate.queryForObject("INSERT INTO appwtg.plan (plan_name, value, type) VALUES (?, 10, ?) RETURNING id",
+                Long.class, type, type);
+    }
+
+    private long createUser() {
+        return jdbcTemplate.queryForObject("INSERT INTO appwtg.\"user\" (created_at, updated_at) VALUES (now(), now()) RETURNING id", Long.class);
+    }
+
+    private void createUserPlan(long userId, long planId, String status, LocalDateTime startedAt, LocalDateTime finishAt) {
+        jdbcTemplate.update("INSERT INTO appwtg.user_plan (user_id, plan_id, status, started_at, finish_at, created_at, updated_at, payment_made) " +
+                        "VALUES (?, ?, CAST(? AS appwtg.plan_status), ?, ?, now(), now(), true)",
+                userId, planId, status, timestamp(startedAt), timestamp(finishAt));
+    }
+
+    private void setSnapshot(long userId, long planId, String type, String status) {
+        jdbcTemplate.update("UPDATE appwtg.\"user\" SET current_plan_id = ?, current_plan_type = ?, " +
+                "current_plan_status = CAST(? AS appwtg.plan_status) WHERE id = ?", planId, type, status, userId);
+    }
+
+    private long createPromotion(long userId, boolean active, boolean allowed) {
+        return jdbcTemplate.queryForObject("INSERT INTO appwtg.promotion (title, free, highlight, active, allow_user_active_promotion, " +
+                        "promotion_type, point, user_id, created_at, updated_at) " +
+                        "VALUES ('Promoção', false, false, ?, ?, 'party', ST_GeogFromText('POINT(-34.877 -8.0476)'), ?, now(), now()) RETURNING id",
+                Long.class, active, allowed, userId);
+    }
+
+    private String planStatus(long userId, long planId) {
+        return jdbcTemplate.queryForObject("SELECT CAST(status AS text) FROM appwtg.user_plan WHERE user_id = ? AND plan_id = ?",
+                String.class, userId, planId);
+    }
+
+    private Map<String, Object> snapshot(long userId) {
+        return jdbcTemplate.queryForMap("SELECT current_plan_id, current_plan_type, CAST(current_plan_status AS text) AS current_plan_status, " +
+                "current_plan_started_at, current_plan_finish_at FROM appwtg.\"user\" WHERE id = ?", userId);
+    }
+
+    private Map<String, Object> promotion(long id) {
+        return jdbcTemplate.queryForMap("SELECT active, allow_user_active_promotion FROM appwtg.promotion WHERE id = ?", id);
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    @Test
+    void transitionDuePlans_shouldExpireActivateAndUpdateSnapshotsAndPromotions() {
+        long free = createPlan("free");
+        long monthly = createPlan("monthly");
+        long weekly = createPlan("weekly");
+
+        // Plano ativo vencido: é inativado e as promoções do dono são desativadas.
+        long expiring = createUser();
+        createUserPlan(expiring, monthly, "active", now.minusDays(30), now.minusHours(1));
+        setSnapshot(expiring, monthly, "monthly", "active");
+        long expiringPromotion = createPromotion(expiring, true, true);
+        long expiringInactivePromotion = createPromotion(expiring, false, true);
+
+        // Dois planos prontos: só o mais antigo (DISTINCT ON) é ativado, com o término do tipo, e as promoções são liberadas.
+        long activating = createUser();
+        createUserPlan(activating, free, "readytoactive", now.minusHours(2), null);
+        createUserPlan(activating, monthly, "readytoactive", now.minusHours(1), null);
+        long activatingPromotion = createPromotion(activating, true, false);
+
+        // Plano pronto cujo término já passou: é inativado e as promoções continuam bloqueadas.
+        long finished = createUser();
+        createUserPlan(finished, free, "readytoactive", now.minusDays(3), now.minusDays(2));
+        long finishedPromotion = createPromotion(finished, true, false);
+
+        // Plano semanal: o término vem do mesmo PlanType.finishAt usado pelos serviços.
+        long weeklyUser = createUser();
+        createUserPlan(weeklyUser, weekly, "readytoactive", now.minusHours(1), null);
+
+        // Plano ativo em vigor: o plano pronto espera.
+        long waiting = createUser();
+        createUserPlan(waiting, monthly, "active", now.minusDays(1), now.plusDays(29));
+        createUserPlan(waiting, free, "readytoactive", now.minusHours(1), null);
+        setSnapshot(waiting, monthly, "monthly", "active");
+
+        int transitions = schedulerService.transitionDuePlans(now);
+
+        // Um plano expirado e dois ativados (o inativado por término vencido não conta como ativação).
+        assertEquals(3, transitions);
+
+        assertEquals("inactive", planStatus(expiring, monthly));
+        assertEquals(monthly, ((Number) snapshot(expiring).get("current_plan_id")).longValue());
+        assertEquals("inactive", snapshot(expiring).get("current_plan_status"));
+        assertEquals(Map.of("active", false, "allow_user_active_promotion", false), promotion(expiringPromotion));
+        assertEquals(Map.of("active", false, "allow_user_active_promotion", false), promotion(expiringInactivePromotion));
+
+        assertEquals("active", planStatus(activating, free));
+        assertEquals("readytoactive", planStatus(activating, monthly));
+        Map<String, Object> activated = snapshot(activating);
+        assertEquals(free, ((Number) activated.get("current_plan_id")).longValue());
+        assertEquals("free", activated.get("current_plan_type"));
+        assertEquals("active", activated.get("current_plan_status"));
+        assertEquals(timestamp(now), activated.get("current_plan_started_at"));
+        assertEquals(timestamp(now.plusHours(24)), activated.get("current_plan_finish_at"));
+        assertTrue((Boolean) promotion(activatingPromotion).get("allow_user_active_promotion"));
+
+        assertEquals("active", planStatus(weeklyUser, weekly));
+        assertEquals(timestamp(PlanType.WEEKLY.finishAt(now)), snapshot(weeklyUser).get("current_plan_finish_at"));
+
+        assertEquals("inactive", planStatus(finished, free));
+        assertEquals("inactive", snapshot(finished).get("current_plan_status"));
+        assertEquals(timestamp(now.minusDays(2)), snapshot(finished).get("current_plan_finish_at"));
+        assertFalse((Boolean) promotion(finishedPromotion).get("allow_user_active_promotion"));
+
+        assertEquals("active", planStatus(waiting, monthly));
+        assertEquals("readytoactive", planStatus(waiting, free));
+        assertEquals("active", snapshot(waiting).get("current_plan_status"));
+
+        // Uma segunda execução não encontra mais nada a fazer.
+        assertEquals(0, schedulerService.transitionDuePlans(now));
+    }
+}
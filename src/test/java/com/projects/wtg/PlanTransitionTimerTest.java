@@ -0,0 +1,91 @@
+package com.projects.wtg;
+
+import com.projects.wtg.config.ScheduledJobRunner;
+import com.projects.wtg.config.ScheduledJobRunner.JobDefinition;
+import com.projects.wtg.config.ScheduledJobRunner.JobSchedule;
+import com.projects.wtg.model.PlanStatus;
+import com.projects.wtg.repository.UserPlanRepository;
+import com.projects.wtg.service.PlanTransitionTimer;
+import com.projects.wtg.service.PromotionSchedulerService;
+import com.projects.wtg.service.UserPlanChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanTransitionTimerTest {
+
+    @Mock
+    private PromotionSchedulerService promotionSchedulerService;
+    @Mock
+    private UserPlanRepository userPlanRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ScheduledJobRunner jobRunner;
+    private PlanTransitionTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        jobRunner = new ScheduledJobRunner(meterRegistry, new StaticListableBeanFactory().getBeanProvider(JobDefinition.class));
+        jobRunner.register(new JobDefinition(PlanTransitionTimer.JOB_NAME, JobSchedule.onDemand(), Duration.ofMinutes(1),
+                () -> promotionSchedulerService.transitionDuePlans(LocalDateTime.now())));
+        timer = new PlanTransitionTimer(jobRunner, userPlanRepository, true, 60, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.destroy();
+        jobRunner.destroy();
+    }
+
+    @Test
+    void start_shouldCatchUpAndFireLoadedDeadlines() throws InterruptedException {
+        when(userPlanRepository.findActiveFinishTimesBetween(any(), any())).thenReturn(List.of(LocalDateTime.now().plusSeconds(1)));
+        when(userPlanRepository.findReadyStartTimesBetween(any(), any())).thenReturn(List.of());
+
+        timer.start();
+
+        // Uma execução imediata (o que venceu com a aplicação parada) e outra no término carregado.
+        verify(promotionSchedulerService, timeout(5000).times(2)).transitionDuePlans(any());
+        assertEquals(0, timer.size());
+        // As execuções passam pelo ScheduledJobRunner e são medidas como as dos demais jobs.
+        for (int i = 0; i < 100 && runs() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, runs());
+    }
+
+    private long runs() {
+        var timer = meterRegistry.find("scheduled.job.duration").tag("job", PlanTransitionTimer.JOB_NAME).tag("outcome", "success").timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    @Test
+    void onUserPlanChanged_shouldOnlyQueueTransitionsInsideTheWindow() {
+        LocalDateTime inThirtyMinutes = LocalDateTime.now().plusMinutes(30);
+        timer.onUserPlanChanged(new UserPlanChangedEvent(1L, 1L, PlanStatus.ACTIVE, LocalDateTime.now(), inThirtyMinutes));
+        timer.onUserPlanChanged(new UserPlanChangedEvent(1L, 1L, PlanStatus.ACTIVE, LocalDateTime.now(), LocalDateTime.now().plusDays(30)));
+        // Mesmo instante de outro plano: compartilha o disparo.
+        timer.onUserPlanChanged(new UserPlanChangedEvent(1L, 1L, PlanStatus.READYTOACTIVE, inThirtyMinutes, null));
+        timer.onUserPlanChanged(new UserPlanChangedEvent(1L, 1L, PlanStatus.INACTIVE, null, LocalDateTime.now().plusMinutes(5)));
+
+        assertEquals(1, timer.size());
+        verify(promotionSchedulerService, times(0)).transitionDuePlans(any());
+    }
+}
@@ -0,0 +1,83 @@
+package com.projects.wtg;
+
+import com.projects.wtg.dto.PromotionClusterDto;
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.repository.PromotionClusterCell;
+import com.projects.wtg.repository.PromotionRepository;
+import com.projects.wtg.service.BoundingBox;
+import com.projects.wtg.service.PromotionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PromotionClustersTest {
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    @InjectMocks
+    private PromotionService promotionService;
+
+    @Test
+    void findClusters_shouldMergeTypesOfTheSameCell() {
+        LocalDateTime now = LocalDateTime.now();
+        when(promotionRepository.findClusterCells(any(BoundingBox.class), anyDouble(), isNull())).thenReturn(List.of(
+                new PromotionClusterCell(-34.9, -8.0, PromotionType.PARTY, 3, -34.88, -8.04, 1L, false, now),
+                new PromotionClusterCell(-34.9, -8.0, PromotionType.SHOW, 1, -34.90, -8.08, 2L, true, now.minusDays(1)),
+                new PromotionClusterCell(-46.6, -23.5, PromotionType.FOOD, 1, -46.63, -23.55, 3L, false, now)));
+
+        List<PromotionClusterDto> clusters = promotionService.findClusters("-50,-30,-30,0", 5, null);
+
+        assertEquals(2, clusters.size());
+        PromotionClusterDto recife = clusters.get(0);
+        assertEquals(4, recife.getCount());
+        assertEquals(Map.of(PromotionType.PARTY, 3L, PromotionType.SHOW, 1L), recife.getTypes());
+        assertEquals(-8.05, recife.getLatitude(), 1e-9);
+        assertEquals(2L, recife.getRepresentativeId()); // destaque tem prioridade sobre a mais recente
+    }
+
+    @Test
+    void findClusters_shouldAverageLongitudesAcrossTheAntimeridian() {
+        LocalDateTime now = LocalDateTime.now();
+        // Zoom 4: células de 5,625°, e as bordas em 180 e -180 são a mesma coluna.
+        when(promotionRepository.findClusterCells(any(BoundingBox.class), anyDouble(), isNull())).thenReturn(List.of(
+                new PromotionClusterCell(180.0, -16.875, PromotionType.PARTY, 1, 179.0, -17.0, 1L, false, now),
+                new PromotionClusterCell(-180.0, -16.875, PromotionType.PARTY, 1, -179.0, -17.0, 2L, false, now)));
+
+        List<PromotionClusterDto> clusters = promotionService.findClusters("170,-30,-170,0", 4, null);
+
+        assertEquals(1, clusters.size());
+        assertEquals(2, clusters.get(0).getCount());
+        assertEquals(180.0, Math.abs(clusters.get(0).getLongitude()), 1e-9);
+    }
+
+    @Test
+    void findClusters_shouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> promotionService.findClusters("-50,-30,-30", 10, null));
+        assertThrows(IllegalArgumentException.class, () -> promotionService.findClusters("-50,0,-30,-30", 10, null));
+        assertThrows(IllegalArgumentException.class, () -> promotionService.findClusters("-50,-30,-30,0", 23, null));
+        // O mundo inteiro no zoom 18 geraria milhões de células.
+        assertThrows(IllegalArgumentException.class, () -> promotionService.findClusters("-180,-90,180,90", 18, null));
+    }
+
+    @Test
+    void boundingBox_shouldMeasureAreasAcrossTheAntimeridian() {
+        BoundingBox box = BoundingBox.parse("170,-10,-170,10");
+
+        assertTrue(box.crossesAntimeridian());
+        assertEquals(20.0, box.widthInDegrees(), 1e-9);
+    }
+}
@@ -0,0 +1,40 @@
+package com.projects.wtg;
+
+import com.projects.wtg.service.PromotionCursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PromotionCursorTest {
+
+    @Test
+    void distanceCursor_shouldRoundTrip() {
+        PromotionCursor cursor = PromotionCursor.afterDistance(1234.5678901234, 42L);
+
+        PromotionCursor decoded = PromotionCursor.decode(cursor.encode());
+
+        assertTrue(decoded.isDistanceCursor());
+        assertEquals(1234.5678901234, decoded.distance());
+        assertEquals(42L, decoded.id());
+    }
+
+    @Test
+    void updatedAtCursor_shouldRoundTripWithMicroseconds() {
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 9, 24, 17, 14, 36, 707463000);
+        PromotionCursor cursor = PromotionCursor.afterUpdatedAt(updatedAt, 7L);
+
+        PromotionCursor decoded = PromotionCursor.decode(cursor.encode());
+
+        assertFalse(decoded.isDistanceCursor());
+        assertEquals(updatedAt, decoded.updatedAt());
+        assertEquals(7L, decoded.id());
+    }
+
+    @Test
+    void decode_shouldRejectMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> PromotionCursor.decode("não é base64"));
+        assertThrows(IllegalArgumentException.class, () -> PromotionCursor.decode("eHx5"));
+    }
+}
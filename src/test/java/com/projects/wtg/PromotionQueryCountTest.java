@@ -0,0 +1,133 @@
+package com.projects.wtg;
+
+import com.projects.wtg.model.Address;
+import com.projects.wtg.model.Promotion;
+import com.projects.wtg.model.PromotionImage;
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.repository.PromotionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Garante que as listagens de promoções executam um número fixo de comandos SQL por requisição,
+ * independentemente da quantidade de promoções retornadas (sem N+1 em endereço e imagens).
+ * Requer Docker para subir um PostGIS; sem Docker, o teste é ignorado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.projects.wtg.QueryCountInspector",
+        "SPRING_SECURITY_PASSWORD=test",
+        "GOOGLE_CLIENT_SECRET=test",
+        "GOOGLE_CLIENT_APP_PASSWORF=test",
+        "S3_KEY_ACCESS=test",
+        "S3_KEY_SECRET=test"
+})
+@AutoConfigureMockMvc
+class PromotionQueryCountTest {
+
+    private static final int MAX_STATEMENTS_PER_REQUEST = 3;
+
+    @Container
+    static PostgreSQLContainer<?> postgis = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:16-3.4").asCompatibleSubstituteFor("postgres"));
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgis.getJdbcUrl() + "&stringtype=unspecified");
+        registry.add("spring.datasource.username", postgis::getUsername);
+        registry.add("spring.datasource.password", postgis::getPassword);
+    }
+
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @BeforeEach
+    void setUp() {
+        promotionRepository.deleteAll();
+    }
+
+    private void createPromotions(int quantity) {
+        for (int i = 0; i < quantity; i++) {
+            Promotion promotion = Promotion.builder()
+                    .title("Promoção " + i)
+                    .promotionType(PromotionType.PARTY)
+                    .active(true)
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .point(geometryFactory.createPoint(new Coordinate(-34.8770, -8.0476 + i * 0.0001)))
+                    .address(Address.builder().address("Rua da Aurora").number(i).build())
+                    .build();
+            for (int order = 0; order < 2; order++) {
+                promotion.getImages().add(PromotionImage.builder()
+                        .promotion(promotion)
+                        .s3Key("promotions/" + i + "/" + order + ".jpg")
+                        .uploadOrder(order)
+                        .build());
+            }
+            promotionRepository.save(promotion);
+        }
+    }
+
+    private int statementsFor(String url, int expectedResults) throws Exception {
+        QueryCountInspector.reset();
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(expectedResults));
+        return QueryCountInspector.count();
+    }
+
+    @Test
+    @WithMockUser
+    void filterByLocation_shouldUseAFixedNumberOfQueries() throws Exception {
+        String url = "/api/promotions/filter?latitude=-8.0476&longitude=-34.8770&radius=5";
+
+        createPromotions(1);
+        int withOne = statementsFor(url, 1);
+
+        createPromotions(20);
+        int withMany = statementsFor(url, 21);
+
+        assertEquals(withOne, withMany, "A quantidade de queries não pode crescer com o número de promoções.");
+        assertTrue(withMany <= MAX_STATEMENTS_PER_REQUEST, "Queries executadas: " + withMany);
+    }
+
+    @Test
+    @WithMockUser
+    void filterWithoutLocation_shouldUseAFixedNumberOfQueries() throws Exception {
+        createPromotions(20);
+
+        int statements = statementsFor("/api/promotions/filter", 20);
+
+        assertTrue(statements <= MAX_STATEMENTS_PER_REQUEST, "Queries executadas: " + statements);
+    }
+}
@@ -0,0 +1,52 @@
+package com.projects.wtg;
+
+import com.projects.wtg.model.PlanType;
+import com.projects.wtg.repository.PromotionCandidate;
+import com.projects.wtg.service.PromotionRanking;
+import com.projects.wtg.service.WeightedPromotionRanker;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PromotionRankingTest {
+
+    private final PromotionRanking ranking = new PromotionRanking(new WeightedPromotionRanker(1.0, 2000, 1.5, 0.5, 72, 1.0, 0.3));
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private List<Long> topIds(Stream<PromotionCandidate> candidates, int limit) {
+        return ranking.top(candidates, limit).stream().map(PromotionCandidate::id).collect(Collectors.toList());
+    }
+
+    @Test
+    void top_shouldSurfaceHighlightedAndPartnerPromotionsFirst() {
+        PromotionCandidate closest = new PromotionCandidate(1L, 50.0, false, now, PlanType.FREE, 0);
+        PromotionCandidate highlighted = new PromotionCandidate(2L, 3000.0, true, now, PlanType.FREE, 0);
+        PromotionCandidate partner = new PromotionCandidate(3L, 1500.0, false, now, PlanType.PARTNER, 0);
+
+        assertEquals(List.of(2L, 3L, 1L), topIds(Stream.of(closest, highlighted, partner), 3));
+    }
+
+    @Test
+    void top_shouldKeepOnlyTheBestKWithDistanceDecay() {
+        // Mesmos sinais, só a distância muda: as k mais próximas vencem, em ordem.
+        Stream<PromotionCandidate> candidates = LongStream.rangeClosed(1, 1000)
+                .mapToObj(id -> new PromotionCandidate(id, (1001 - id) * 10.0, false, now.minusDays(1), null, 0));
+
+        assertEquals(List.of(1000L, 999L, 998L), topIds(candidates, 3));
+    }
+
+    @Test
+    void top_shouldUseRecencyAndCommentsWhenThereIsNoLocation() {
+        PromotionCandidate old = new PromotionCandidate(1L, null, false, now.minusDays(30), null, 0);
+        PromotionCandidate recent = new PromotionCandidate(2L, null, false, now.minusHours(1), null, 0);
+        PromotionCandidate discussed = new PromotionCandidate(3L, null, false, now.minusDays(30), null, 80);
+
+        assertEquals(List.of(2L, 3L, 1L), topIds(Stream.of(old, recent, discussed), 3));
+    }
+}
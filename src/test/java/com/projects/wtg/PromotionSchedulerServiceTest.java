@@ -0,0 +1,77 @@
+package com.projects.wtg;
+
+import com.projects.wtg.model.PlanStatus;
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.repository.PromotionRepository;
+import com.projects.wtg.repository.PromotionStatusChange;
+import com.projects.wtg.repository.UserPlanRepository;
+import com.projects.wtg.repository.UserPlanTransition;
+import com.projects.wtg.service.JobLeaseService;
+import com.projects.wtg.service.PromotionChangedEvent;
+import com.projects.wtg.service.PromotionSchedulerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PromotionSchedulerServiceTest {
+
+    @Mock
+    private UserPlanRepository userPlanRepository;
+    @Mock
+    private PromotionRepository promotionRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PromotionSchedulerService schedulerService;
+
+    @BeforeEach
+    void setUp() {
+        // Leases desabilitados: uma única instância, todas as partições.
+        JobLeaseService jobLeaseService = new JobLeaseService(jdbcTemplate, false, 60, "node-1");
+        schedulerService = new PromotionSchedulerService(userPlanRepository, promotionRepository, eventPublisher, transactionManager, jobLeaseService, 2, 1);
+    }
+
+    @Test
+    void manageUserPlans_shouldProcessChunksUntilOneIsNotFull() {
+        when(userPlanRepository.expireActivePlans(any(), eq(2), eq(1), eq(0)))
+                .thenReturn(List.of(new UserPlanTransition(1L, 1L, PlanStatus.INACTIVE), new UserPlanTransition(2L, 1L, PlanStatus.INACTIVE)))
+                .thenReturn(List.of(new UserPlanTransition(3L, 1L, PlanStatus.INACTIVE)));
+        when(promotionRepository.deactivatePromotionsOfUsers(anyCollection(), any()))
+                .thenReturn(List.of(new PromotionStatusChange(10L, null, PromotionType.PARTY, false)))
+                .thenReturn(List.of());
+        when(userPlanRepository.activateReadyPlans(any(), eq(2), eq(1), eq(0)))
+                .thenReturn(List.of(new UserPlanTransition(4L, 2L, PlanStatus.ACTIVE)));
+        when(promotionRepository.allowPromotionsOfUsers(anyCollection(), any())).thenReturn(3);
+
+        schedulerService.manageUserPlans();
+
+        verify(userPlanRepository, times(2)).expireActivePlans(any(), eq(2), eq(1), eq(0));
+        verify(promotionRepository).deactivatePromotionsOfUsers(eq(Set.of(1L, 2L)), any());
+        verify(promotionRepository).deactivatePromotionsOfUsers(eq(Set.of(3L)), any());
+        verify(eventPublisher).publishEvent(new PromotionChangedEvent(10L, null, PromotionType.PARTY, false, false));
+        verify(userPlanRepository, times(1)).activateReadyPlans(any(), eq(2), eq(1), eq(0));
+        verify(promotionRepository).allowPromotionsOfUsers(eq(Set.of(4L)), any());
+        // Um commit por lote: dois de expiração e um de ativação.
+        verify(transactionManager, times(3)).commit(any());
+    }
+}
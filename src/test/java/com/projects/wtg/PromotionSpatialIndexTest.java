@@ -0,0 +1,115 @@
+package com.projects.wtg;
+
+import com.projects.wtg.model.PromotionType;
+import com.projects.wtg.repository.PromotionRepository;
+import com.projects.wtg.service.PromotionChangedEvent;
+import com.projects.wtg.service.PromotionSpatialIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PromotionSpatialIndexTest {
+
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    private PromotionSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(promotionRepository.findAllLocations()).thenReturn(Collections.emptyList());
+        index = new PromotionSpatialIndex(promotionRepository, true, 0.01);
+        index.rebuild();
+    }
+
+    private Point point(double latitude, double longitude) {
+        return geometryFactory.createPoint(new Coordinate(longitude, latitude));
+    }
+
+    private List<Long> idsWithin(double latitude, double longitude, double radiusInMeters, PromotionType type) {
+        return index.findWithinRadius(latitude, longitude, radiusInMeters, type).stream()
+                .map(PromotionSpatialIndex.Hit::id)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void findWithinRadius_shouldReturnOnlyPromotionsInsideTheCircle() {
+        // Recife: ~1,1 km e ~11 km de distância do centro da busca
+        index.upsert(1L, point(-8.0476, -34.8770), PromotionType.PARTY, true);
+        index.upsert(2L, point(-8.0576, -34.8770), PromotionType.SHOW, true);
+        index.upsert(3L, point(-8.1476, -34.8770), PromotionType.PARTY, true);
+
+        assertEquals(List.of(1L, 2L), idsWithin(-8.0476, -34.8770, 5_000, null));
+        assertEquals(List.of(1L, 2L, 3L), idsWithin(-8.0476, -34.8770, 20_000, null));
+        assertTrue(idsWithin(-23.55, -46.63, 5_000, null).isEmpty());
+    }
+
+    @Test
+    void findWithinRadius_shouldFilterByType() {
+        index.upsert(1L, point(-8.0476, -34.8770), PromotionType.PARTY, true);
+        index.upsert(2L, point(-8.0480, -34.8775), PromotionType.SHOW, true);
+
+        assertEquals(List.of(2L), idsWithin(-8.0476, -34.8770, 1_000, PromotionType.SHOW));
+    }
+
+    @Test
+    void onPromotionChanged_shouldMoveAndRemoveEntries() {
+        index.upsert(1L, point(-8.0476, -34.8770), PromotionType.PARTY, true);
+
+        index.onPromotionChanged(new PromotionChangedEvent(1L, point(-23.55, -46.63), PromotionType.PARTY, true, false));
+        assertTrue(idsWithin(-8.0476, -34.8770, 5_000, null).isEmpty());
+        assertEquals(List.of(1L), idsWithin(-23.55, -46.63, 5_000, null));
+
+        index.onPromotionChanged(new PromotionChangedEvent(1L, point(-23.55, -46.63), PromotionType.PARTY, true, true));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void findWithinRadius_shouldIgnoreInactivePromotionsAndSortByDistance() {
+        index.upsert(1L, point(-8.0576, -34.8770), PromotionType.PARTY, true);
+        index.upsert(2L, point(-8.0486, -34.8770), PromotionType.PARTY, true);
+        index.upsert(3L, point(-8.0477, -34.8770), PromotionType.PARTY, false);
+
+        List<PromotionSpatialIndex.Hit> hits = index.findWithinRadius(-8.0476, -34.8770, 5_000, null);
+
+        assertEquals(List.of(2L, 1L), hits.stream().map(PromotionSpatialIndex.Hit::id).collect(Collectors.toList()));
+        assertTrue(hits.get(0).distanceInMeters() < hits.get(1).distanceInMeters());
+    }
+
+    @Test
+    void findNearest_shouldReturnTheKClosestWithoutRadius() {
+        index.upsert(1L, point(-8.0476, -34.8770), PromotionType.PARTY, true);
+        index.upsert(2L, point(-23.55, -46.63), PromotionType.PARTY, true);
+        index.upsert(3L, point(-3.73, -38.52), PromotionType.PARTY, true);
+
+        List<Long> nearest = index.findNearest(-8.0, -34.9, 2, null).stream()
+                .map(PromotionSpatialIndex.Hit::id)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(1L, 3L), nearest);
+    }
+
+    @Test
+    void findWithinRadius_shouldWorkAcrossTheAntimeridian() {
+        index.upsert(1L, point(0.0, 179.999), PromotionType.OTHER, true);
+
+        assertEquals(List.of(1L), idsWithin(0.0, -179.999, 1_000, null));
+    }
+}
@@ -0,0 +1,79 @@
+package com.projects.wtg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.wtg.model.Promotion;
+import com.projects.wtg.model.UserType;
+import com.projects.wtg.repository.PromotionRepository;
+import com.projects.wtg.repository.UserIdentity;
+import com.projects.wtg.repository.UserRepository;
+import com.projects.wtg.service.IdentityResolver;
+import com.projects.wtg.service.PromotionStreamService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PromotionStreamServiceTest {
+
+    @Mock
+    private PromotionRepository promotionRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private EntityManager entityManager;
+
+    private PromotionStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PromotionStreamService(promotionRepository, new IdentityResolver(userRepository, 10, 30), transactionManager, new ObjectMapper(), 2);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+    }
+
+    private UserIdentity userOfType(UserType type) {
+        return new UserIdentity(1L, 1L, "user@wtg.com", type, true);
+    }
+
+    @Test
+    void exportAll_shouldWriteOneLinePerPromotionAndClearEachChunk() throws Exception {
+        when(userRepository.findIdentityByEmail("admin@wtg.com")).thenReturn(Optional.of(userOfType(UserType.ADMIN)));
+        when(promotionRepository.streamAll(2)).thenReturn(IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> Promotion.builder().id((long) i).title("Promoção " + i).active(true).build()));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.exportAll("admin@wtg.com").writeTo(output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[4].contains("\"title\":\"Promoção 5\""));
+        // Lotes de 2: [1, 2], [3, 4], [5]
+        verify(promotionRepository, times(3)).findWithAddressAndImagesByIdIn(anyCollection());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void exportAll_shouldRejectNonAdminsBeforeStreaming() {
+        when(userRepository.findIdentityByEmail("user@wtg.com")).thenReturn(Optional.of(userOfType(UserType.USUARIO)));
+
+        assertThrows(AccessDeniedException.class, () -> service.exportAll("user@wtg.com"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.projects.wtg;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StatementInspector usado nos testes para contar os comandos SQL preparados pelo Hibernate.
+ * Registrado via spring.jpa.properties.hibernate.session_factory.statement_inspector.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public String inspect(String sql) {
+        count.incrementAndGet();
+        return sql;
+    }
+
+    public static void reset() {
+        count.set(0);
+    }
+
+    public static int count() {
+        return count.get();
+    }
+}
@@ -0,0 +1,124 @@
+package com.projects.wtg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.wtg.config.RateLimitFilter;
+import com.projects.wtg.config.RateLimitRules;
+import com.projects.wtg.service.IdentityResolver;
+import com.projects.wtg.service.InMemoryRateLimitStore;
+import com.projects.wtg.service.RateLimitPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class RateLimitFilterTest {
+
+    private final InMemoryRateLimitStore store = new InMemoryRateLimitStore(new SimpleMeterRegistry(), 1000);
+    private final RateLimitRules rules = new RateLimitRules(true, "100/1m", "2/1m", "30/1m", "10/1h", "3/1h", "10/1h", "20/1h", "5/1h", "10/1m");
+    private RateLimitFilter filter = new RateLimitFilter(rules, store, mock(IdentityResolver.class), new ObjectMapper());
+
+    private MockHttpServletResponse login(String email) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"x\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (chain.getRequest() != null) {
+            // O controller ainda consegue ler o corpo depois de o filtro extrair o e-mail.
+            String body = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(body.contains(email));
+        }
+        return response;
+    }
+
+    @Test
+    void doFilter_shouldLimitLoginsPerEmailAndSendRetryAfter() throws Exception {
+        assertEquals(200, login("ana@wtg.com").getStatus());
+        assertEquals(200, login("ANA@wtg.com").getStatus());
+
+        MockHttpServletResponse limited = login("ana@wtg.com");
+        assertEquals(429, limited.getStatus());
+        assertNotNull(limited.getHeader("Retry-After"));
+        assertTrue(Long.parseLong(limited.getHeader("Retry-After")) >= 1);
+
+        // Outro e-mail do mesmo IP continua passando.
+        assertEquals(200, login("bia@wtg.com").getStatus());
+    }
+
+    @Test
+    void doFilter_shouldIgnoreRoutesWithoutPolicy() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/promotions/filter"), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void doFilter_shouldNotCreateEmailKeysOnceTheIpIsBlocked() throws Exception {
+        // Um IP tentando e-mails diferentes: depois das 100 tentativas do limite por IP, nada mais entra no store.
+        // Limite por hora, para que nenhum token seja reposto durante o laço.
+        filter = new RateLimitFilter(new RateLimitRules(true, "100/1h", "2/1h", "30/1m", "10/1h", "3/1h", "10/1h", "20/1h", "5/1h", "10/1m"),
+                store, mock(IdentityResolver.class), new ObjectMapper());
+        int allowed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (login("user" + i + "@wtg.com").getStatus() == 200) {
+                allowed++;
+            }
+        }
+        assertEquals(100, allowed);
+        assertEquals(101, store.size());
+
+        // Outro IP, com um e-mail novo, continua passando.
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr("10.0.0.2");
+        request.setContentType("application/json");
+        request.setContent("{\"email\":\"novo@wtg.com\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilter_shouldRejectBodiesWithoutContentLengthAboveTheLimit() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("application/json");
+        request.setContent(new byte[17 * 1024]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void tryConsume_shouldEvictTheLeastRecentlyUsedKeyWhenFull() {
+        InMemoryRateLimitStore small = new InMemoryRateLimitStore(new SimpleMeterRegistry(), 2);
+        RateLimitPolicy policy = new RateLimitPolicy("teste", 1, Duration.ofHours(1));
+
+        assertEquals(0, small.tryConsume("a", policy));
+        assertEquals(0, small.tryConsume("b", policy));
+        assertTrue(small.tryConsume("a", policy) > 0);
+        // "b" é a chave usada há mais tempo: sai para dar lugar a "c", que tem o seu próprio bucket.
+        assertEquals(0, small.tryConsume("c", policy));
+        assertEquals(2, small.size());
+        assertTrue(small.tryConsume("a", policy) > 0);
+        assertEquals(0, small.tryConsume("b", policy));
+    }
+}
@@ -0,0 +1,105 @@
+package com.projects.wtg;
+
+import com.projects.wtg.config.ScheduledJobRunner;
+import com.projects.wtg.config.ScheduledJobRunner.JobDefinition;
+import com.projects.wtg.config.ScheduledJobRunner.JobSchedule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScheduledJobRunnerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    private ScheduledJobRunner jobRunner;
+
+    @AfterEach
+    void tearDown() {
+        jobRunner.destroy();
+    }
+
+    private double count(String name, String job) {
+        return meterRegistry.get(name).tag("job", job).counter().count();
+    }
+
+    @Test
+    void definitionBeans_shouldBeRegisteredAndRecordRowsAndDurationOfEachRun() throws InterruptedException {
+        CountDownLatch runs = new CountDownLatch(2);
+        beanFactory.addBean("counterJob", new JobDefinition("counter", JobSchedule.fixedDelay(10), Duration.ofSeconds(5), () -> {
+            runs.countDown();
+            return 3;
+        }));
+        jobRunner = new ScheduledJobRunner(meterRegistry, beanFactory.getBeanProvider(JobDefinition.class));
+        jobRunner.afterSingletonsInstantiated();
+        jobRunner.start();
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        jobRunner.destroy();
+        assertTrue(count("scheduled.job.rows", "counter") >= 3);
+        assertTrue(meterRegistry.get("scheduled.job.duration").tag("job", "counter").tag("outcome", "success").timer().count() >= 1);
+        assertTrue(meterRegistry.get("scheduled.job.lag").tag("job", "counter").timer().count() >= 1);
+    }
+
+    @Test
+    void slowRun_shouldTimeOutAndSkipOverlappingRuns() throws InterruptedException {
+        jobRunner = new ScheduledJobRunner(meterRegistry, beanFactory.getBeanProvider(JobDefinition.class));
+        CountDownLatch release = new CountDownLatch(1);
+        jobRunner.register(new JobDefinition("slow", JobSchedule.fixedDelay(10), Duration.ofMillis(50), () -> {
+            // Ignora a interrupção, como um job preso em I/O.
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            return 0;
+        }));
+        jobRunner.start();
+
+        for (int i = 0; i < 100 && meterRegistry.find("scheduled.job.skipped").tag("job", "slow").counter().count() == 0; i++) {
+            Thread.sleep(20);
+        }
+        release.countDown();
+
+        assertEquals(1.0, meterRegistry.get("scheduled.job.failures").tag("job", "slow").tag("reason", "timeout").counter().count());
+        assertTrue(count("scheduled.job.skipped", "slow") >= 1);
+    }
+
+    @Test
+    void trigger_shouldRunOnDemandJobsWithoutOverlapAndCoalesceRequests() throws InterruptedException {
+        jobRunner = new ScheduledJobRunner(meterRegistry, beanFactory.getBeanProvider(JobDefinition.class));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        jobRunner.register(new JobDefinition("on-demand", JobSchedule.onDemand(), Duration.ofSeconds(5), () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            release.await();
+            return 1;
+        }));
+        jobRunner.start();
+
+        jobRunner.trigger("on-demand");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Pedidos durante a execução viram uma única execução seguinte.
+        jobRunner.trigger("on-demand");
+        jobRunner.trigger("on-demand");
+        release.countDown();
+
+        for (int i = 0; i < 100 && count("scheduled.job.rows", "on-demand") < 2; i++) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(100);
+        assertEquals(2, runs.get());
+        assertEquals(2.0, count("scheduled.job.rows", "on-demand"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.projects.wtg;
+
+import com.projects.wtg.dto.UserDto;
+import com.projects.wtg.dto.UserView;
+import com.projects.wtg.model.Account;
+import com.projects.wtg.model.User;
+import com.projects.wtg.model.UserType;
+import com.projects.wtg.model.Wallet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserViewTest {
+
+    @Test
+    void selectFields_shouldPreferFieldsOverViewAndAlwaysIncludeId() {
+        assertEquals(Set.of("id", "firstName", "activePlan"), UserView.selectFields("full", "firstName, activePlan"));
+        assertEquals(UserView.SUMMARY.fields(), UserView.selectFields("summary", null));
+        assertEquals(UserDto.ALL_FIELDS, UserView.selectFields(null, " "));
+    }
+
+    @Test
+    void selectFields_shouldRejectUnknownNames() {
+        assertThrows(IllegalArgumentException.class, () -> UserView.selectFields(null, "firstName,password"));
+        assertThrows(IllegalArgumentException.class, () -> UserView.selectFields("compact", null));
+    }
+
+    @Test
+    void userDto_shouldNotTouchAssociationsOutsideTheSelectedFields() {
+        User user = spy(User.builder().id(1L).firstName("Ana").userType(UserType.USUARIO)
+                .account(Account.builder().email("ana@wtg.com").active(true).build()).build());
+        user.setWallet(new Wallet());
+
+        UserDto dto = new UserDto(user, UserView.SUMMARY.fields());
+
+        assertEquals("Ana", dto.getFirstName());
+        assertNull(dto.getEmail());
+        assertNull(dto.getWallet());
+        assertNull(dto.getPromotions());
+        verify(user, never()).getPromotions();
+        verify(user, never()).getWallet();
+        assertEquals(List.of(), new UserDto(user).getPromotions());
+    }
+}
@@ -0,0 +1,97 @@
+package com.projects.wtg;
+
+import com.projects.wtg.model.Account;
+import com.projects.wtg.model.User;
+import com.projects.wtg.service.UserWriteBehindBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class UserWriteBehindBufferTest {
+
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private UserWriteBehindBuffer buffer;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new UserWriteBehindBuffer(jdbcTemplate, new SimpleMeterRegistry(), 500, 10, 60);
+
+        Account account = new Account();
+        account.setId(7L);
+        account.setLastLogin(LocalDateTime.now());
+        user = new User();
+        user.setId(1L);
+        user.setFirstName("Ana");
+        user.setPoint(geometryFactory.createPoint(new Coordinate(-34.8770, -8.0476)));
+        user.setAccount(account);
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.destroy();
+    }
+
+    @Test
+    void recordLogin_shouldSkipUnchangedLocationAndRecentLastLogin() {
+        buffer.recordLogin(user, -8.04761, -34.87701);
+        buffer.recordSsoAttributes(user, new UserWriteBehindBuffer.SsoAttributes("Ana", null, null, null));
+
+        assertEquals(0, buffer.size());
+        buffer.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), any(int[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldCoalesceUpdatesOfTheSameUserIntoOneRow() {
+        buffer.recordLogin(user, -8.10, -34.90);
+        buffer.recordLogin(user, -8.20, -34.95);
+
+        assertEquals(1, buffer.size());
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("SET point"), rows.capture(), any(int[].class));
+        assertEquals(1, rows.getValue().size());
+        assertEquals(-34.95, rows.getValue().get(0)[0]);
+        assertEquals(-8.20, rows.getValue().get(0)[1]);
+        verify(jdbcTemplate, never()).batchUpdate(contains("last_login"), anyList(), any(int[].class));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void destroy_shouldWritePendingUpdates() {
+        user.getAccount().setLastLogin(null);
+        buffer.recordLogin(user, null, null);
+
+        buffer.destroy();
+
+        verify(jdbcTemplate).batchUpdate(contains("last_login"), anyList(), any(int[].class));
+    }
+}